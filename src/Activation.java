@@ -0,0 +1,93 @@
+/**
+ * This interface is an activation function of the network together with its derivative.
+ * The derivative is given both the weighted sum and the activation already computed from it,
+ * so functions whose derivative is a simple expression of their output, such as the sigmoid,
+ * never have to evaluate the function a second time.
+ * Every layer of the network has its own activation function. The network applies them a whole layer at a time
+ * through applyLayer, which lets functions such as softmax depend on every node of the layer. Functions that work
+ * node by node implement NodeActivation instead, which adds apply for a single node.
+ * The psis of the output layer are computed a whole layer at a time by outputPsis for the same reason.
+ *
+ * Methods:
+ * public void applyLayer(double[] thetas, double[] acts, int offset, int count)
+ * public double derivative(double theta, double activation)
+ * public void outputPsis(double[] thetas, double[] acts, double[] expected, double[] psis, int count)
+ * public String getName()
+ * public static Activation forName(String name)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public interface Activation
+{
+   /**
+    * Computes the activations of count nodes of one layer from their weighted sums.
+    * The thetas and the activations may be the same array.
+    *
+    * @param thetas the weighted sums, starting at offset
+    * @param acts destination of the activations, starting at offset
+    * @param offset index of the first node
+    * @param count number of nodes in the layer
+    */
+   void applyLayer(double[] thetas, double[] acts, int offset, int count);
+
+   /**
+    * Computes the derivative of the activation function at theta
+    *
+    * @param theta the weighted sum into the node
+    * @param activation apply(theta), as stored in the activations
+    * @return the derivative
+    */
+   double derivative(double theta, double activation);
+
+   /**
+    * Computes the psis of an output layer with this activation function for the error 0.5 * sum of (t - a)^2,
+    * which are (t_k - a_k) times the derivative of each output with respect to its own weighted sum.
+    * The psis may be the same array as the thetas.
+    *
+    * @param thetas the weighted sums of the output layer
+    * @param acts the activations of the output layer
+    * @param expected the expected outputs
+    * @param psis destination of the psis
+    * @param count number of nodes in the output layer
+    */
+   default void outputPsis(double[] thetas, double[] acts, double[] expected, double[] psis, int count)
+   {
+      for (int k = 0; k < count; k++)
+      {
+         psis[k] = (expected[k] - acts[k]) * derivative(thetas[k], acts[k]);
+      }
+   }
+
+   /**
+    * Name used for this function in the control file
+    */
+   String getName();
+
+   /**
+    * Creates the activation function with the given control file name
+    *
+    * @param name sigmoid, sigmoidTable, tanh, relu, leakyRelu or softmax
+    * @return the activation function
+    */
+   static Activation forName(String name)
+   {
+      switch (name)
+      {
+         case SigmoidActivation.NAME:
+            return new SigmoidActivation();
+         case TableSigmoidActivation.NAME:
+            return new TableSigmoidActivation();
+         case TanhActivation.NAME:
+            return new TanhActivation();
+         case ReluActivation.NAME:
+            return new ReluActivation();
+         case LeakyReluActivation.NAME:
+            return new LeakyReluActivation();
+         case SoftmaxActivation.NAME:
+            return new SoftmaxActivation();
+         default:
+            throw new IllegalArgumentException("Unknown activation function " + name);
+      }
+   } //static Activation forName(String name)
+} //public interface Activation
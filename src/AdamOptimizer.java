@@ -0,0 +1,93 @@
+/**
+ * This class is Adam, which keeps running means of each weight's gradient and squared gradient, corrects
+ * them for their zero start, and steps by the mean gradient divided by its root mean square.
+ * The bias corrections depend only on the step count, so they are computed once per step in beginStep.
+ *
+ * Methods:
+ * public AdamOptimizer(double learningRate, double beta1, double beta2, double epsilon, double[][] weights)
+ * public void beginStep()
+ * public double[][][] getState()
+ * public double delta(int n, int i, double gradient)
+ * public void updateRow(int n, double[] layerWeights, int row, double[] acts, double psi, int width)
+ * public void updateRow(int n, float[] layerWeights, int row, float[] acts, float psi, int width)
+ * public String getName()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class AdamOptimizer extends Optimizer
+{
+   public static final String NAME = "adam";
+
+   public final double beta1;
+   public final double beta2;
+   public final double epsilon;
+   public final double[][] mean;          // running mean of the gradient of each weight
+   public final double[][] meanSquare;    // running mean of the squared gradient of each weight
+   private double meanCorrection;         // 1 / (1 - beta1^steps)
+   private double squareCorrection;       // 1 / (1 - beta2^steps)
+
+   /**
+    * Creates the optimizer with zero means
+    *
+    * @param learningRate the step size
+    * @param beta1 fraction of the mean gradient kept each step
+    * @param beta2 fraction of the mean squared gradient kept each step
+    * @param epsilon added to the root mean square to avoid dividing by zero
+    * @param weights the network weights
+    */
+   public AdamOptimizer(double learningRate, double beta1, double beta2, double epsilon, double[][] weights)
+   {
+      super(learningRate);
+      this.beta1 = beta1;
+      this.beta2 = beta2;
+      this.epsilon = epsilon;
+      mean = stateLike(weights);
+      meanSquare = stateLike(weights);
+   }
+
+   /**
+    * Counts the step and updates the bias corrections
+    */
+   public void beginStep()
+   {
+      super.beginStep();
+      meanCorrection = 1.0 / (1.0 - Math.pow(beta1, steps));
+      squareCorrection = 1.0 / (1.0 - Math.pow(beta2, steps));
+   }
+
+   public double[][][] getState()
+   {
+      return new double[][][] {mean, meanSquare};
+   }
+
+   public double delta(int n, int i, double gradient)
+   {
+      double m = beta1 * mean[n][i] + (1.0 - beta1) * gradient;
+      double s = beta2 * meanSquare[n][i] + (1.0 - beta2) * gradient * gradient;
+      mean[n][i] = m;
+      meanSquare[n][i] = s;
+      return learningRate * m * meanCorrection / (Math.sqrt(s * squareCorrection) + epsilon);
+   }
+
+   public void updateRow(int n, double[] layerWeights, int row, double[] acts, double psi, int width)
+   {
+      for (int j = 0; j < width; j++)
+      {
+         layerWeights[row + j] += delta(n, row + j, acts[j] * psi);
+      }
+   }
+
+   public void updateRow(int n, float[] layerWeights, int row, float[] acts, float psi, int width)
+   {
+      for (int j = 0; j < width; j++)
+      {
+         layerWeights[row + j] += (float) delta(n, row + j, (double) acts[j] * psi);
+      }
+   }
+
+   public String getName()
+   {
+      return NAME;
+   }
+} //public class AdamOptimizer
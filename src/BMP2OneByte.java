@@ -15,8 +15,12 @@
  * Reads in a BMP file of any format and outputs the single byte values of the gray scale image.
  *
  * Usage: java BMP2OneByte <infilename.bmp> <outfilename.bin>
+ *        java BMP2OneByte [<input directory> [<output directory> [<threads>]]]
  *
- * Default file names are test1.bmp and test1.bin, respectively
+ * The first form converts one file and dumps its headers. The second converts every .bmp file in a directory
+ * in parallel through BmpPipeline.
+ *
+ * Default directories are "Converted Images" and "Converted Bins", respectively
  *
  * Search for $ to find the line where you can change the type of data being written to the file (byte vs. double for example).
  *
@@ -54,6 +58,15 @@
  * REV: 12/13/19Added a warning message if the bmpFileHeader_bfType is not the expected value of 0x4D42 which are the letters BM. This short field is no longer int-swapped.
  * Rev: 12/02/21Added a warning message if the bmpFileHeader_biSize is not the expected value of 40 which which means the file has structures we cannot interpret and so we skip over them
  *and then set bmpFileHeader_biSize to 40 so the output image has the correct header content.
+ * Rev: 10/18/26Header fields and the image array are no longer static, so each BMP2OneByte decodes one image and
+ *several can run at once. The body of main was split into readImage(), dumpImage() and writeGrayscale(), and
+ *topDownDIB is reset for every image. main converts a single file or hands a directory to BmpPipeline.
+ * Rev: 10/18/26The whole file is read in one call into a little endian ByteBuffer and each scan line is decoded
+ *from the byte array, skipping the dead bytes by the 4 byte aligned stride instead of reading them. The 16-bit
+ *case now pads each line by its real length of 2 bytes per pel. The gray scale image is written in one call.
+ * Rev: 10/18/26Gray scale conversion no longer allocates an RgbQuad per pel. readImage fills grayImage while decoding,
+ *looking palette images up in a gray version of the color table and converting true color pels with the primitive
+ *luminance() method, and writeGrayscale just writes it.
  *
  *
  * Methods in this file:
@@ -63,15 +76,21 @@
  *intrgbqToPel(int red, int green, int blue, int reserved)
  *RgbQuad pelToRGB(int pel)
  *intrgbToPel(int red, int green, int blue)
+ *intred(int pel), green(int pel), blue(int pel)
+ *intluminance(int red, int green, int blue)
+ *intgrayscale(int pel)
  *intcolorToGrayscale(int pel)
+ *voidreadImage(String inFileName)
+ *voiddumpImage()
+ *voidwriteGrayscale(String outFileName)
  *voidmain(String[] args)
  *
  * There is a lot of cutting and pasting from various
  * documents dealing with bitmaps and I have not taken the
  * time to clean up the formatting in the comments. The C syntax is
  * included for reference. The types are declared in windows.h. The C
- * structures and data arrays are predefined static so that they don't
- * ever fall out of scope.
+ * structures and data arrays are fields of the decoder, so each instance holds
+ * one image.
  *
  * I have not "javafied" this file. Much of it needs to be broken out into
  * various specialty methods. These modifications are left as an exercise
@@ -119,34 +138,44 @@
  *When lossy casts are done (e.g. int to byte) the conversion is done modulo the length of the smaller type.
  */
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 public class BMP2OneByte
 {
 // BITMAPFILEHEADER
-        static int bmpFileHeader_bfType;// WORD
-        static int bmpFileHeader_bfSize;// DWORD
-        static int bmpFileHeader_bfReserved1;// WORD
-        static int bmpFileHeader_bfReserved2;// WORD
-        static int bmpFileHeader_bfOffBits;// DWORD
+        int bmpFileHeader_bfType;// WORD
+        int bmpFileHeader_bfSize;// DWORD
+        int bmpFileHeader_bfReserved1;// WORD
+        int bmpFileHeader_bfReserved2;// WORD
+        int bmpFileHeader_bfOffBits;// DWORD
         // BITMAPINFOHEADER
-        static int bmpInfoHeader_biSize;// DWORD
-        static int bmpInfoHeader_biWidth;// LONG
-        static int bmpInfoHeader_biHeight;// LONG
-        static int bmpInfoHeader_biPlanes;// WORD
-        static int bmpInfoHeader_biBitCount;// WORD
-        static int bmpInfoHeader_biCompression;// DWORD
-        static int bmpInfoHeader_biSizeImage;// DWORD
-        static int bmpInfoHeader_biXPelsPerMeter; // LONG
-static int bmpInfoHeader_biYPelsPerMeter; // LONG
-static int bmpInfoHeader_biClrUsed;// DWORD
-        static int bmpInfoHeader_biClrImportant;// DWORD
+        int bmpInfoHeader_biSize;// DWORD
+        int bmpInfoHeader_biWidth;// LONG
+        int bmpInfoHeader_biHeight;// LONG
+        int bmpInfoHeader_biPlanes;// WORD
+        int bmpInfoHeader_biBitCount;// WORD
+        int bmpInfoHeader_biCompression;// DWORD
+        int bmpInfoHeader_biSizeImage;// DWORD
+        int bmpInfoHeader_biXPelsPerMeter; // LONG
+int bmpInfoHeader_biYPelsPerMeter; // LONG
+int bmpInfoHeader_biClrUsed;// DWORD
+        int bmpInfoHeader_biClrImportant;// DWORD
         // The true color pels
-        static int[][] imageArray;
+        int[][] imageArray;
 
 // if bmpInfoHeader_biHeight is negative then the image is a top down DIB. This flag is used to
 // identify it as such. Note that when the image is saved, it will be written out in the usual
 // inverted format with a positive bmpInfoHeader_biHeight value.
-        static boolean topDownDIB = false;
+        boolean topDownDIB = false;
+// When verbose is set the headers and color depth are printed while reading. It is left off when many images are
+// decoded at once so their output does not interleave.
+        boolean verbose = false;
+// The gray scale image, one byte per pel in the order it is written out (bottom row first). It is filled while the
+// image is decoded so no second pass over imageArray is needed.
+        byte[] grayImage;
 /*
 * Methods to go between little and big endian integer formats.
 */
@@ -211,31 +240,71 @@ return rgb;
 return ((red & 0x00FF) << 16) | ((green & 0x00FF) << 8) | (blue & 0x00FF);
 }
 
+/*
+* Primitive channel extraction. These do the same as pelToRGB but return one channel at a time, so nothing is allocated
+* when they are called once per pel. They are static so other classes can use them without a decoder.
+*/
+        public static int red(int pel)
+{
+return (pel >> 16) & 0x00FF;
+}
+
+public static int green(int pel)
+{
+return (pel >> 8) & 0x00FF;
+}
+
+public static int blue(int pel)
+{
+return pel & 0x00FF;
+}
+
 /*
 * Y = 0.3RED + 0.59GREEN + 0.11Blue
+* The luminance method takes the three channels as ints and returns the gray level from 0 to 255. An integer version in
+* thousandths was tried, but it ran slower than the floating point formula and rounds about 1 color in 5000 differently
+* where the weighted sum is exactly half way between two levels, so the floating point formula is kept.
+*/
+        public static int luminance(int red, int green, int blue)
+{
+return (int)Math.round(0.3 * (double)red + 0.589 * (double)green + 0.11 * (double)blue);
+}
+
+/*
+* The grayscale method takes a color picture element (pel) and returns its gray level from 0 to 255
+* The channels are extracted into locals rather than by calling red(), green() and blue() as arguments, which kept the JIT
+* from inlining luminance() into the caller's loop.
+*/
+        public static int grayscale(int pel)
+{
+int red = (pel >> 16) & 0x00FF;
+int green = (pel >> 8) & 0x00FF;
+int blue = pel & 0x00FF;
+
+return luminance(red, green, blue);
+}
+
+/*
 * The colorToGrayscale method takes a color picture element (pel) and returns the gray scale pel using just one of may possible formulas
 */
         public int colorToGrayscale(int pel)
 {
-RgbQuad rgb = pelToRGB(pel);
-
-int lum = (int)Math.round(0.3 * (double)rgb.red + 0.589 * (double)rgb.green + 0.11 * (double)rgb.blue);
+int lum = grayscale(pel);
 
 return rgbToPel(lum, lum, lum);
 }
 /*
-*
-* ---- MAIN ----
-*
+* Reads a BMP file of any of the supported color depths into imageArray, one 32-bit color per pel.
 */
-        public static void main(String[] args)
+        public void readImage(String inFileName) throws IOException
 {
-String inFileName, outFileName;
 int i, j, k;
 int numberOfColors;
-byte byteVal;
 int pel;
-int iByteVal, iColumn, iBytesPerRow, iPelsPerRow, iTrailingBits, iDeadBytes;
+int iByteVal, iColumn, iStride, iLine;
+int[] line;
+int iGray; // first byte of the row in grayImage
+int iIndex; // color table index of a pel
 // RBGQUAD
 int rgbQuad_rgbBlue;
 int rgbQuad_rgbGreen;
@@ -243,22 +312,14 @@ int rgbQuad_rgbRed;
 int rgbQuad_rgbReserved;// not used in this method
 // The color table
 int[] colorPallet = new int[256];// reserve space for the largest possible color table
+byte[] grayPallet = new byte[256];// gray level of each color table entry, so palette images need no conversion per pel
 
-BMP2OneByte dibdumper = new BMP2OneByte(); // needed to get to the byte swapping methods
-
-for (int num = 1; num <= 5 ; num ++) {// set <= 6
-for (int set = 1; set <= 6; set++) {// num <= 5
-
-inFileName = "Converted Images/f" + num + set + ".bmp";
-outFileName = "Converted Bins/f" + num + set + ".bin";
+topDownDIB = false;
 
-try // lots of things can go wrong when doing file i/o
-{
-// Open the file that is the first command line parameter
-FileInputStream fstream = new FileInputStream(inFileName);
-
-// Convert our input stream to a DataInputStream
-DataInputStream in = new DataInputStream(fstream);
+// Read the whole file in one call and wrap it in a little endian buffer, so the header fields come out in
+// the right byte order without swapping and the bitmap bits can be decoded straight from the array.
+byte[] bmp = Files.readAllBytes(Paths.get(inFileName));
+ByteBuffer in = ByteBuffer.wrap(bmp).order(ByteOrder.LITTLE_ENDIAN);
 
 /*
  *Read in BITMAPFILEHEADER
@@ -283,19 +344,21 @@ bfOffBits
 Specifies the offset, in bytes, from the BITMAPFILEHEADER structure to the bitmap bits
 */
 
-// Read and Convert to big endian
-bmpFileHeader_bfType = in.readUnsignedShort();// WORD - un-swapped since it should be the letters BM
-bmpFileHeader_bfSize = dibdumper.swapInt(in.readInt());// DWORD
-bmpFileHeader_bfReserved1 = dibdumper.swapShort(in.readUnsignedShort());// WORD
-bmpFileHeader_bfReserved2 = dibdumper.swapShort(in.readUnsignedShort());// WORD
-bmpFileHeader_bfOffBits = dibdumper.swapInt(in.readInt());// DWORD
+// Read (the buffer is little endian)
+bmpFileHeader_bfType = swapShort(in.getShort() & 0xFFFF);// WORD - swapped back since it should be the letters BM
+bmpFileHeader_bfSize = in.getInt();// DWORD
+bmpFileHeader_bfReserved1 = in.getShort() & 0xFFFF;// WORD
+bmpFileHeader_bfReserved2 = in.getShort() & 0xFFFF;// WORD
+bmpFileHeader_bfOffBits = in.getInt();// DWORD
 
+if (verbose) {
 System.out.printf("\nbfType=%4X bfSize=%d bfReserved1=%h bfReserved2=%h bfOffBits=%d\n\n",
                     bmpFileHeader_bfType,
                     bmpFileHeader_bfSize,
                     bmpFileHeader_bfReserved1,
                     bmpFileHeader_bfReserved2,
                     bmpFileHeader_bfOffBits);
+}
 
 
 /*
@@ -400,19 +463,20 @@ An application should use the information stored in the biSize member to locate
 pColor = ((LPSTR)pBitmapInfo + (WORD)(pBitmapInfo->bmiHeader.biSize));
 */
 
-// Read and convert to big endian
-bmpInfoHeader_biSize = dibdumper.swapInt(in.readInt());// DWORD
-bmpInfoHeader_biWidth = dibdumper.swapInt(in.readInt());// LONG
-bmpInfoHeader_biHeight = dibdumper.swapInt(in.readInt());// LONG
-bmpInfoHeader_biPlanes = dibdumper.swapShort(in.readUnsignedShort());// WORD
-bmpInfoHeader_biBitCount = dibdumper.swapShort(in.readUnsignedShort());// WORD
-bmpInfoHeader_biCompression = dibdumper.swapInt(in.readInt());// DWORD
-bmpInfoHeader_biSizeImage = dibdumper.swapInt(in.readInt());// DWORD
-bmpInfoHeader_biXPelsPerMeter = dibdumper.swapInt(in.readInt());// LONG
-bmpInfoHeader_biYPelsPerMeter = dibdumper.swapInt(in.readInt());// LONG
-bmpInfoHeader_biClrUsed = dibdumper.swapInt(in.readInt());// DWORD
-bmpInfoHeader_biClrImportant = dibdumper.swapInt(in.readInt());// DWORD
-
+// Read (the buffer is little endian)
+bmpInfoHeader_biSize = in.getInt();// DWORD
+bmpInfoHeader_biWidth = in.getInt();// LONG
+bmpInfoHeader_biHeight = in.getInt();// LONG
+bmpInfoHeader_biPlanes = in.getShort() & 0xFFFF;// WORD
+bmpInfoHeader_biBitCount = in.getShort() & 0xFFFF;// WORD
+bmpInfoHeader_biCompression = in.getInt();// DWORD
+bmpInfoHeader_biSizeImage = in.getInt();// DWORD
+bmpInfoHeader_biXPelsPerMeter = in.getInt();// LONG
+bmpInfoHeader_biYPelsPerMeter = in.getInt();// LONG
+bmpInfoHeader_biClrUsed = in.getInt();// DWORD
+bmpInfoHeader_biClrImportant = in.getInt();// DWORD
+
+if (verbose) {
 System.out.printf("biSize=%d\nbiWidth=%d\nbiHeight=%d\nbiPlanes=%d\nbiBitCount=%d\nbiCompression=%d\nbiSizeImage=%d\nbiXPelsPerMeter=%d\nbiYPelsPerMeter=%d\nbiClrUsed=%d\nbiClrImportant=%d\n",
                     bmpInfoHeader_biSize,
                     bmpInfoHeader_biWidth,
@@ -427,6 +491,7 @@ System.out.printf("biSize=%d\nbiWidth=%d\nbiHeight=%d\nbiPlanes=%d\nbiBitCount=%
                     bmpInfoHeader_biClrImportant);
 
 System.out.printf("\n");
+}
 
 // Since we use the height to crate arrays, it cannot have a negative a value. If the height field is
 // less than zero, then make it positive and set the topDownDIB flag to TRUE so we know that the image is
@@ -466,7 +531,9 @@ default:
 numberOfColors = 0; // no color table
 }
 
+if (verbose) {
 System.out.printf("Color Depth = %d, %d\n", bmpInfoHeader_biBitCount, numberOfColors);
+}
 /*
 * biClrUsed -Specifies the number of color indexes in the color table that are actually used by the bitmap.
 *If this value is zero, the bitmap uses the maximum number of colors corresponding to the value of the biBitCount member for the compression mode specified by biCompression.
@@ -480,25 +547,23 @@ if (bmpInfoHeader_biClrUsed > 0) numberOfColors = bmpInfoHeader_biClrUsed;
 if (bmpInfoHeader_biSize != 40) {
 System.out.printf("\nWARNING! bmpInfoHeader_biSize size is not 40 as expected! Continuing to process anyway...\n\n");
 
-for (int ii = 0; ii < bmpInfoHeader_biSize - 40; ++ii) //We need to skip over the next bmpInfoHeader_biSize - 40 bytes since we have no idea what they are
-{
-in.readByte();
-}
+in.position(in.position() + bmpInfoHeader_biSize - 40); //We need to skip over the next bmpInfoHeader_biSize - 40 bytes since we have no idea what they are
 
 bmpInfoHeader_biSize = 40; // Must fix the size to thew correct value for our header
 }
 
 for (i = 0; i < numberOfColors; ++i) // Read in the color table (or not if numberOfColors is zero)
 {
-rgbQuad_rgbBlue = in.readUnsignedByte(); // lowest byte in the color
-rgbQuad_rgbGreen = in.readUnsignedByte();
-rgbQuad_rgbRed = in.readUnsignedByte(); // highest byte in the color
-rgbQuad_rgbReserved = in.readUnsignedByte();
+rgbQuad_rgbBlue = in.get() & 0xFF; // lowest byte in the color
+rgbQuad_rgbGreen = in.get() & 0xFF;
+rgbQuad_rgbRed = in.get() & 0xFF; // highest byte in the color
+rgbQuad_rgbReserved = in.get() & 0xFF;
 
 // Build the color from the RGB values. Since we declared the rgbQuad values to be int, we can shift and then OR the values
 // to build up the color. Since we are reading one byte at a time, there are no "endian" issues.
 
 colorPallet[i] = (rgbQuad_rgbRed << 16) | (rgbQuad_rgbGreen << 8) | rgbQuad_rgbBlue;
+grayPallet[i] = (byte)luminance(rgbQuad_rgbRed, rgbQuad_rgbGreen, rgbQuad_rgbBlue);
 // System.out.printf("DEBUG: Color Table = %d, %06X\n", i, colorPallet[i]);
 } // for (i = 0; i < numberOfColors; ++i)
 
@@ -521,10 +586,27 @@ colorPallet[i] = (rgbQuad_rgbRed << 16) | (rgbQuad_rgbGreen << 8) | rgbQuad_rgbB
 */
 
 imageArray = new int[bmpInfoHeader_biHeight][bmpInfoHeader_biWidth]; // Create the array for the pels
+grayImage = new byte[bmpInfoHeader_biHeight * bmpInfoHeader_biWidth];
+/*
+* Every scan line holds biBitCount bits per pel padded to a 4 byte boundary, so the "dead bytes" never need to be read,
+* the start of each line is just iStride bytes after the last. The whole bitmap must be in the file.
+*/
+iStride = ((bmpInfoHeader_biBitCount * bmpInfoHeader_biWidth + 31) / 32) * 4;
+if (in.position() + (long)iStride * bmpInfoHeader_biHeight > bmp.length)
+throw new EOFException(inFileName + " ends before the last scan line");
 /*
 * I use the same loop structure for each case for clarity so you can see the similarities and differences.
-* The outer loop is over the rows (in reverse), the inner loop over the columns.
+* The outer loop is over the rows (in reverse), the inner loop over the columns of one scan line of the file array.
 */
+for (int row = 0; row < bmpInfoHeader_biHeight; ++row) // read over the rows
+{
+if (topDownDIB) i = row;
+else i = bmpInfoHeader_biHeight - 1 - row;
+
+line = imageArray[i];
+iLine = in.position() + row * iStride; // first byte of this scan line
+iGray = (bmpInfoHeader_biHeight - 1 - i) * bmpInfoHeader_biWidth;
+
 switch (bmpInfoHeader_biBitCount) {
 case 1: // each bit is a color, so there are 8 pels per byte.Works
 /*
@@ -533,237 +615,99 @@ case 1: // each bit is a color, so there are 8 pels per byte.Works
 * have bits from part of the remaining byte. Each color is 1 bit which is masked with 0x01.
 * The screen ordering of the pels is High-Bit to Low-Bit, so the most significant element is first in the array of pels.
 */
-iBytesPerRow = bmpInfoHeader_biWidth / 8;
-iTrailingBits = bmpInfoHeader_biWidth % 8;
-
-iDeadBytes = iBytesPerRow;
-if (iTrailingBits > 0) ++iDeadBytes;
-iDeadBytes = (4 - iDeadBytes % 4) % 4;
-
-for (int row = 0; row < bmpInfoHeader_biHeight; ++row) // read over the rows
-{
-if (topDownDIB) i = row;
-else i = bmpInfoHeader_biHeight - 1 - row;
-
-for (j = 0; j < iBytesPerRow; ++j) {
-iByteVal = in.readUnsignedByte();
-
-for (k = 0; k < 8; ++k)// Get 8 pels from the one byte
+for (iColumn = 0; iColumn < bmpInfoHeader_biWidth; ++iColumn)
 {
-iColumn = j * 8 + k;
-pel = colorPallet[(iByteVal >> (7 - k)) & 0x01];
-imageArray[i][iColumn] = pel;
-}
-}
-if (iTrailingBits > 0) // pick up the trailing bits for images that are not mod 8 columns wide
-{
-iByteVal = in.readUnsignedByte();
-
-for (k = 0; k < iTrailingBits; ++k) {
-iColumn = iBytesPerRow * 8 + k;
-pel = colorPallet[(iByteVal >> (7 - k)) & 0x01];
-imageArray[i][iColumn] = pel;
-}
-}
-
-for (j = 0; j < iDeadBytes; ++j)
-in.readUnsignedByte(); // Now read in the "dead bytes" to pad to a 4 byte boundary
+iByteVal = bmp[iLine + (iColumn >> 3)] & 0xFF;
+iIndex = (iByteVal >> (7 - (iColumn & 7))) & 0x01;
+line[iColumn] = colorPallet[iIndex];
+grayImage[iGray + iColumn] = grayPallet[iIndex];
 }
 break;
 case 2: // 4 colors, Each byte is 4 pels (2 bits each),Should work, not tested.
 /*
-* Each byte read in is 4 columns, so we need to break them out. We also have to deal with the case
-* where the image width is not an integer multiple of 4, in which case we will
-* have from 2 to 6 bits of the remaining byte. Each color is 2 bits which is masked with 0x03.
+* Each byte read in is 4 columns, so we need to break them out. Each color is 2 bits which is masked with 0x03.
 * The screen ordering of the pels is High-Half-Nibble to Low-Half-Nibble, so the most significant element is first in the array of pels.
 */
-iBytesPerRow = bmpInfoHeader_biWidth / 4;
-iTrailingBits = bmpInfoHeader_biWidth % 4; // 0, 1, 2 or 3
-
-iDeadBytes = iBytesPerRow;
-if (iTrailingBits > 0) ++iDeadBytes;
-iDeadBytes = (4 - iDeadBytes % 4) % 4;
-
-for (int row = 0; row < bmpInfoHeader_biHeight; ++row) // read over the rows
-{
-if (topDownDIB) i = row;
-else i = bmpInfoHeader_biHeight - 1 - row;
-
-for (j = 0; j < iBytesPerRow; ++j) {
-iByteVal = in.readUnsignedByte();
-
-for (k = 0; k < 4; ++k) // Get 4 pels from one byte
+for (iColumn = 0; iColumn < bmpInfoHeader_biWidth; ++iColumn)
 {
-iColumn = j * 4 + k;
-pel = colorPallet[(iByteVal >> ((3 - k) * 2)) & 0x03]; // shift 2 bits at a time and reverse order
-imageArray[i][iColumn] = pel;
-}
-}
-if (iTrailingBits > 0) // pick up the trailing nibble for images that are not mod 2 columns wide
-{
-iByteVal = in.readUnsignedByte();
-
-for (k = 0; k < iTrailingBits; ++k) {
-iColumn = iBytesPerRow * 4 + k;
-pel = colorPallet[(iByteVal >> ((3 - k) * 2)) & 0x03];
-imageArray[i][iColumn] = pel;
-}
-}
-for (j = 0; j < iDeadBytes; ++j)
-in.readUnsignedByte(); // Now read in the "dead bytes" to pad to a 4 byte boundary
+iByteVal = bmp[iLine + (iColumn >> 2)] & 0xFF;
+iIndex = (iByteVal >> ((3 - (iColumn & 3)) * 2)) & 0x03; // shift 2 bits at a time and reverse order
+line[iColumn] = colorPallet[iIndex];
+grayImage[iGray + iColumn] = grayPallet[iIndex];
 }
 break;
 case 4: // 16 colors, Each byte is two pels. Works
 /*
-* Each byte read in is 2 columns, so we need to break them out. We also have to deal with the case
-* where the image width is not an integer multiple of 2, in which case we will
-* have one nibble from part of the remaining byte. We then read in the dead bytes so that each
-* scan line is a multiple of 4 bytes. Each color is a nibble (4 bits) which is masked with 0x0F.
+* Each byte read in is 2 columns, so we need to break them out. Each color is a nibble (4 bits) which is masked with 0x0F.
 * The screen ordering of the pels is High-Nibble Low-Nibble, so the most significant element is first in the array of pels.
 */
-iPelsPerRow = bmpInfoHeader_biWidth;
-iBytesPerRow = iPelsPerRow / 2;
-iTrailingBits = iPelsPerRow % 2;// Will either be 0 or 1
-
-iDeadBytes = iBytesPerRow;
-if (iTrailingBits > 0) ++iDeadBytes;
-iDeadBytes = (4 - iDeadBytes % 4) % 4;
-
-for (int row = 0; row < bmpInfoHeader_biHeight; ++row) // read over the rows
-{
-if (topDownDIB) i = row;
-else i = bmpInfoHeader_biHeight - 1 - row;
-
-for (j = 0; j < iBytesPerRow; ++j) {
-iByteVal = in.readUnsignedByte();
-
-for (k = 0; k < 2; ++k) // Two pels per byte
-{
-iColumn = j * 2 + k;// 1 - kis needed to have High, Low nibble ordering for the image.
-pel = colorPallet[(iByteVal >> ((1 - k) * 4)) & 0x0F]; // shift 4 bits at a time
-imageArray[i][iColumn] = pel;
-}
-}
-
-if (iTrailingBits > 0) // pick up the trailing nibble for images that are not mod 2 columns wide
+for (iColumn = 0; iColumn < bmpInfoHeader_biWidth; ++iColumn)
 {
-iByteVal = in.readUnsignedByte();
-
-iColumn = iBytesPerRow * 2;
-pel = colorPallet[(iByteVal >> 4) & 0x0F]; // The High nibble is the last remaining pel
-imageArray[i][iColumn] = pel;
+iByteVal = bmp[iLine + (iColumn >> 1)] & 0xFF;
+iIndex = (iByteVal >> ((1 - (iColumn & 1)) * 4)) & 0x0F; // shift 4 bits at a time
+line[iColumn] = colorPallet[iIndex];
+grayImage[iGray + iColumn] = grayPallet[iIndex];
 }
-for (j = 0; j < iDeadBytes; ++j)
-in.readUnsignedByte(); // Now read in the "dead bytes" to pad to a 4 byte boundary
-} // for (i = bmpInfoHeader_biHeight - 1; i >= 0; --i)
 break;
 case 8: // 1 byte, 1 pel, Works
 /*
-* Each byte read in is 1 column. We then read in the dead bytes so that each scan line is a multiple of 4 bytes.
+* Each byte read in is 1 column.
 */
-iPelsPerRow = bmpInfoHeader_biWidth;
-iDeadBytes = (4 - iPelsPerRow % 4) % 4;
-for (int row = 0; row < bmpInfoHeader_biHeight; ++row) // read over the rows
-{
-if (topDownDIB) i = row;
-else i = bmpInfoHeader_biHeight - 1 - row;
-
-for (j = 0; j < iPelsPerRow; ++j)// j is now just the column counter
+for (j = 0; j < bmpInfoHeader_biWidth; ++j)// j is now just the column counter
 {
-iByteVal = in.readUnsignedByte();
-pel = colorPallet[iByteVal];
-imageArray[i][j] = pel;
-}
-
-for (j = 0; j < iDeadBytes; ++j)
-in.readUnsignedByte(); // Now read in the "dead bytes" to pad to a 4 byte boundary
+iIndex = bmp[iLine + j] & 0xFF;
+line[j] = colorPallet[iIndex];
+grayImage[iGray + j] = grayPallet[iIndex];
 }
 break;
 case 16: // Not likely to work (format is not internally consistent), not tested.
 /*
-* Each two bytes read in is 1 column. Each color is 5 bits in the 2 byte word value, so we shift 5 bits and then mask them
-* off with 0x1F which is %11111 in binary. We then read in the dead bytes so that each scan line is a multiple of 4 bytes.
+* Each two bytes read in is 1 column (little endian). Each color is 5 bits in the 2 byte word value, so we shift 5 bits and then mask them
+* off with 0x1F which is %11111 in binary.
 */
-iPelsPerRow = bmpInfoHeader_biWidth;
-iDeadBytes = (4 - iPelsPerRow % 4) % 4;
-for (int row = 0; row < bmpInfoHeader_biHeight; ++row) // read over the rows
-{
-if (topDownDIB) i = row;
-else i = bmpInfoHeader_biHeight - 1 - row;
-
-for (j = 0; j < iPelsPerRow; ++j)// j is now just the column counter
+for (j = 0, k = iLine; j < bmpInfoHeader_biWidth; ++j, k += 2)// j is now just the column counter
 {
-pel = dibdumper.swapShort(in.readUnsignedShort()); // Need to deal with little endian values
+pel = (bmp[k] & 0xFF) | ((bmp[k + 1] & 0xFF) << 8);
 rgbQuad_rgbBlue = pel & 0x1F;
 rgbQuad_rgbGreen = (pel >> 5) & 0x1F;
 rgbQuad_rgbRed = (pel >> 10) & 0x1F;
-pel = (rgbQuad_rgbRed << 16) | (rgbQuad_rgbGreen << 8) | rgbQuad_rgbBlue;
-imageArray[i][j] = pel;
+line[j] = (rgbQuad_rgbRed << 16) | (rgbQuad_rgbGreen << 8) | rgbQuad_rgbBlue;
+grayImage[iGray + j] = (byte)luminance(rgbQuad_rgbRed, rgbQuad_rgbGreen, rgbQuad_rgbBlue);
 }
-
-for (j = 0; j < iDeadBytes; ++j)
-in.readUnsignedByte(); // Now read in the "dead bytes" to pad to a 4 byte boundary
-} // for (i = bmpInfoHeader_biHeight - 1; i >= 0; --i)
 break;
 case 24: // Works
 /*
-* Each three bytes read in is 1 column. Each scan line is padded to by a multiple of 4 bytes. The disk image has only 3 however.
+* Each three bytes read in is 1 column, stored blue, green, red.
 */
-iPelsPerRow = bmpInfoHeader_biWidth;
-iDeadBytes = (4 - (iPelsPerRow * 3) % 4) % 4;
-
-for (int row = 0; row < bmpInfoHeader_biHeight; ++row) // read over the rows
+for (j = 0, k = iLine; j < bmpInfoHeader_biWidth; ++j, k += 3)// j is now just the column counter
 {
-if (topDownDIB) i = row;
-else i = bmpInfoHeader_biHeight - 1 - row;
-
-for (j = 0; j < iPelsPerRow; ++j)// j is now just the column counter
-{
-rgbQuad_rgbBlue = in.readUnsignedByte();
-rgbQuad_rgbGreen = in.readUnsignedByte();
-rgbQuad_rgbRed = in.readUnsignedByte();
-pel = (rgbQuad_rgbRed << 16) | (rgbQuad_rgbGreen << 8) | rgbQuad_rgbBlue;
-imageArray[i][j] = pel;
-}
-for (j = 0; j < iDeadBytes; ++j)
-in.readUnsignedByte(); // Now read in the "dead bytes" to pad to a 4 byte boundary
+line[j] = ((bmp[k + 2] & 0xFF) << 16) | ((bmp[k + 1] & 0xFF) << 8) | (bmp[k] & 0xFF);
+grayImage[iGray + j] = (byte)luminance(bmp[k + 2] & 0xFF, bmp[k + 1] & 0xFF, bmp[k] & 0xFF);
 }
 break;
 case 32: // Works
 /*
-* Each four bytes read in is 1 column. The number of bytes per line will always be a multiple of 4, so there are no dead bytes.
+* Each four bytes read in is 1 column, stored blue, green, red, reserved.
 */
-iPelsPerRow = bmpInfoHeader_biWidth;
-for (int row = 0; row < bmpInfoHeader_biHeight; ++row) // read over the rows
+for (j = 0, k = iLine; j < bmpInfoHeader_biWidth; ++j, k += 4)// j is now just the column counter
 {
-if (topDownDIB) i = row;
-else i = bmpInfoHeader_biHeight - 1 - row;
-
-for (j = 0; j < iPelsPerRow; ++j)// j is now just the column counter
-{
-rgbQuad_rgbBlue = in.readUnsignedByte();
-rgbQuad_rgbGreen = in.readUnsignedByte();
-rgbQuad_rgbRed = in.readUnsignedByte();
-rgbQuad_rgbReserved = in.readUnsignedByte();
-pel = (rgbQuad_rgbReserved << 24) | (rgbQuad_rgbRed << 16) | (rgbQuad_rgbGreen << 8) | rgbQuad_rgbBlue;
-imageArray[i][j] = pel;
-}
+line[j] = ((bmp[k + 3] & 0xFF) << 24) | ((bmp[k + 2] & 0xFF) << 16) | ((bmp[k + 1] & 0xFF) << 8) | (bmp[k] & 0xFF);
+grayImage[iGray + j] = (byte)luminance(bmp[k + 2] & 0xFF, bmp[k + 1] & 0xFF, bmp[k] & 0xFF);
 }
 break;
 default: // Oops
-System.out.printf("This error should not occur - 1!\n");
+if (row == 0) System.out.printf("This error should not occur - 1!\n");
 
 } // switch (bmpInfoHeader_biBitCount)
+} // for (int row = 0; row < bmpInfoHeader_biHeight; ++row)
+} // public void readImage(String inFileName)
 
-in.close();
-fstream.close();
-} // try
-catch (Exception e) {
-System.err.println("File input error" + e);
-}
 /*
 * Console dump of image bytes in HEX if the image is smaller than 33 x 33
 */
+        public void dumpImage()
+{
+int i, j, iBytesPerRow;
 
 if ((bmpInfoHeader_biWidth < 33) && (bmpInfoHeader_biHeight < 33)) {
 iBytesPerRow = bmpInfoHeader_biWidth;
@@ -776,33 +720,49 @@ System.out.printf("%08X ", imageArray[i][j]);
 System.out.printf("\n");
 }
 }
+} // public void dumpImage()
 
 /*
-* Now write out the gray scale bytes (one per pel) to a file.
+* Now write out the gray scale bytes (one per pel) to a file. readImage already converted them, with the rows in the
+* usual inverted format.
 *
 */
-try {
-FileOutputStream fstream = new FileOutputStream(outFileName);
-DataOutputStream out = new DataOutputStream(fstream);
-
-for (i = bmpInfoHeader_biHeight - 1; i >= 0; --i)// write over the rows (in the usual inverted format)
+        public void writeGrayscale(String outFileName) throws IOException
 {
-for (j = 0; j < bmpInfoHeader_biWidth; ++j) // and the columns
+try (FileOutputStream out = new FileOutputStream(outFileName)) // one write for the whole image
 {
-pel = imageArray[i][j];
-pel = dibdumper.colorToGrayscale(pel);
-byteVal = (byte) (pel & 0x00FF);
+out.write(grayImage); // $ Change this line to alter the type of output.
+}
+} // public void writeGrayscale(String outFileName)
 
-out.writeByte(byteVal); // $ Change this line to alter the type of output.
+/*
+*
+* ---- MAIN ----
+*
+*/
+        public static void main(String[] args)
+{
+if (args.length == 2 && args[0].toLowerCase().endsWith(".bmp")) {
+BMP2OneByte dibdumper = new BMP2OneByte();
+dibdumper.verbose = true;
+
+try // lots of things can go wrong when doing file i/o
+{
+dibdumper.readImage(args[0]);
 }
-} // for (i = bmpInfoHeader_biHeight - 1; i >= 0; --i)
+catch (Exception e) {
+System.err.println("File input error" + e);
+}
+dibdumper.dumpImage();
 
-out.close();
-fstream.close();
+try {
+dibdumper.writeGrayscale(args[1]);
 } catch (Exception e) {
 System.err.println("File output error" + e);
 }
 }
+else {
+BmpPipeline.main(args);
 }
 } // public static void main
 } // public class DibDump
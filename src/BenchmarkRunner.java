@@ -0,0 +1,219 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class runs throughput benchmarks the way JMH does in its default mode, without needing a build system.
+ * Each benchmark runs a number of warmup iterations that are thrown away, then a number of measurement
+ * iterations. An iteration calls the operation until the iteration time has passed (at least once) and scores
+ * operations per second. Console output is muted while an operation runs.
+ * The results can be printed as a table and written in the JSON layout of JMH (-rf json), so results of two builds
+ * can be compared with the same tools.
+ *
+ * Methods:
+ * public BenchmarkRunner(int warmupIterations, int measureIterations, long iterationNanos)
+ * public void run(String benchmark, String params, Runnable operation)
+ * public void printTable()
+ * public void writeJson(String fileName)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class BenchmarkRunner
+{
+   public static final double NANOS_PER_SECOND = 1.0e9;
+   public static final double CONFIDENCE_Z = 3.291;        // two sided 99.9% interval of the normal distribution
+
+   public final int warmupIterations;
+   public final int measureIterations;
+   public final long iterationNanos;
+   public final List<String[]> names = new ArrayList<String[]>();   // benchmark and params of each result
+   public final List<double[]> scores = new ArrayList<double[]>();  // operations per second of each iteration
+
+   /**
+    * Creates a runner
+    *
+    * @param warmupIterations iterations run and discarded before measuring
+    * @param measureIterations iterations measured
+    * @param iterationNanos length of each iteration
+    */
+   public BenchmarkRunner(int warmupIterations, int measureIterations, long iterationNanos)
+   {
+      this.warmupIterations = warmupIterations;
+      this.measureIterations = Math.max(1, measureIterations);
+      this.iterationNanos = iterationNanos;
+   }
+
+   /**
+    * Benchmarks one operation and records its scores
+    *
+    * @param benchmark name of the benchmark
+    * @param params parameters of this run, such as shape=100-50-5
+    * @param operation the work being measured
+    */
+   public void run(String benchmark, String params, Runnable operation)
+   {
+      PrintStream console = System.out;
+      double[] measured = new double[measureIterations];
+
+      System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+      try
+      {
+         for (int i = 0; i < warmupIterations; i++)
+         {
+            iteration(operation);
+         }
+         for (int i = 0; i < measureIterations; i++)
+         {
+            measured[i] = iteration(operation);
+         }
+      } //try
+      finally
+      {
+         System.setOut(console);
+      }
+
+      names.add(new String[] {benchmark, params});
+      scores.add(measured);
+      System.out.printf(Locale.ROOT, "%-20s %-44s %16.3f ops/s\n", benchmark, params, mean(measured));
+   } //public void run(String benchmark, String params, Runnable operation)
+
+   /**
+    * Runs the operation for one iteration
+    *
+    * @return operations per second
+    */
+   private double iteration(Runnable operation)
+   {
+      long operations = 0;
+      long now;
+      long start = System.nanoTime();
+      do
+      {
+         operation.run();
+         operations++;
+         now = System.nanoTime();
+      } while (now - start < iterationNanos);
+
+      return operations * NANOS_PER_SECOND / (now - start);
+   } //private double iteration(Runnable operation)
+
+   /**
+    * Average of the scores
+    */
+   private static double mean(double[] values)
+   {
+      double sum = 0.0;
+      for (double value : values)
+      {
+         sum += value;
+      }
+      return sum / values.length;
+   }
+
+   /**
+    * Half width of the 99.9% confidence interval of the mean, using the normal approximation
+    */
+   private static double error(double[] values)
+   {
+      if (values.length < 2)
+      {
+         return Double.NaN;
+      }
+
+      double mean = mean(values);
+      double squares = 0.0;
+      for (double value : values)
+      {
+         squares += (value - mean) * (value - mean);
+      }
+      return CONFIDENCE_Z * Math.sqrt(squares / (values.length - 1)) / Math.sqrt(values.length);
+   } //private static double error(double[] values)
+
+   /**
+    * Prints every recorded result with its error
+    */
+   public void printTable()
+   {
+      System.out.println();
+      System.out.printf("%-20s %-44s %16s %12s %s\n", "Benchmark", "Params", "Score", "Error", "Units");
+      for (int r = 0; r < names.size(); r++)
+      {
+         double[] measured = scores.get(r);
+         System.out.printf(Locale.ROOT, "%-20s %-44s %16.3f %12.3f ops/s\n", names.get(r)[0], names.get(r)[1],
+                           mean(measured), error(measured));
+      }
+   } //public void printTable()
+
+   /**
+    * Writes every recorded result as a JSON array in the layout JMH uses
+    *
+    * @param fileName the JSON file
+    * @throws IOException if the file cannot be written
+    */
+   public void writeJson(String fileName) throws IOException
+   {
+      try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(fileName))))
+      {
+         out.println("[");
+         for (int r = 0; r < names.size(); r++)
+         {
+            double[] measured = scores.get(r);
+
+            out.println("   {");
+            out.println("      \"benchmark\" : \"" + names.get(r)[0] + "\",");
+            out.println("      \"mode\" : \"thrpt\",");
+            out.println("      \"warmupIterations\" : " + warmupIterations + ",");
+            out.println("      \"measurementIterations\" : " + measureIterations + ",");
+            out.println("      \"params\" : {" + paramsJson(names.get(r)[1]) + "},");
+            out.println("      \"primaryMetric\" : {");
+            out.println("         \"score\" : " + number(mean(measured)) + ",");
+            out.println("         \"scoreError\" : " + number(error(measured)) + ",");
+            out.println("         \"scoreUnit\" : \"ops/s\",");
+
+            StringBuilder raw = new StringBuilder();
+            for (int i = 0; i < measured.length; i++)
+            {
+               raw.append(i == 0 ? "" : ", ").append(number(measured[i]));
+            }
+            out.println("         \"rawData\" : [[" + raw + "]]");
+            out.println("      }");
+            out.println("   }" + (r + 1 < names.size() ? "," : ""));
+         } // for (int r = 0; r < names.size(); r++)
+         out.println("]");
+      } //try (PrintWriter out = ...)
+   } //public void writeJson(String fileName)
+
+   /**
+    * Turns params such as shape=2-2-1,cases=32 into JSON members
+    */
+   private static String paramsJson(String params)
+   {
+      StringBuilder json = new StringBuilder();
+      for (String pair : params.split(","))
+      {
+         int split = pair.indexOf("=");
+         if (split > 0)
+         {
+            json.append(json.length() == 0 ? " " : ", ");
+            json.append("\"").append(pair.substring(0, split).trim()).append("\" : \"")
+                .append(pair.substring(split + 1).trim()).append("\"");
+         }
+      }
+      return json.append(json.length() == 0 ? "" : " ").toString();
+   } //private static String paramsJson(String params)
+
+   /**
+    * Formats a number for JSON, which has no NaN
+    */
+   private static String number(double value)
+   {
+      return Double.isNaN(value) ? "\"NaN\"" : String.format(Locale.ROOT, "%.6f", value);
+   }
+} //public class BenchmarkRunner
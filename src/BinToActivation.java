@@ -1,101 +1,334 @@
 import java.io.*;
 
-// A class that converts all Bins to a single activation file
-
-public class  BinToActivation
+/**
+ * This class converts the processed gray scale bins of every set and finger into the activation files the network
+ * reads. Set A holds the test cases and the other sets hold the truth table. The bins are named
+ * processed:Set{letter}_F{finger}.bin and hold one signed byte per pel, of which the first rows * columns are used.
+ * Each bin is read with a single readFully into a byte array, and the text files are written through a buffer
+ * that is flushed once when the file is closed. The time and rate of each step is printed.
+ *
+ * Outputs:
+ *    FingersTruthTable     - text, one value per line, each case followed by its finger and a Space line
+ *    FingersTestCases      - text, one value per line, each case followed by a Space line
+ *    FingersTruthTable.bin - binary dataset of the same cases with one-hot expected outputs
+ *    FingersTestCases.bin  - binary dataset of the same cases with one-hot expected outputs
+ *
+ * Usage: java BinToActivation [rows columns [sets fingers]]
+ *
+ * Methods:
+ * public BinToActivation(boolean training, boolean testing)
+ * public BinToActivation(boolean training, boolean testing, int numRows, int numColumns, int totalSets,
+ *                        int totalFingers)
+ * public static String setName(int set)
+ * public String binName(int set, int finger)
+ * public void fileToArray()
+ * public void arrayToFile()
+ * public void arrayToBinary()
+ * public static void main(String[] args)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class BinToActivation
 {
-   public static int numRows = 100;
-   public static int numColums = 100;
-   public static int numImages = 30;
-   int[][][] trainingArray;
-   int[][] testingArray;
-   boolean training;
-   boolean testing;
-   int totalSets = 6;
-   int totalFingers = 5;
-   public static String[] letters = {"A", "B", "C", "D", "E", "F"};
-   
-           public static void main(String[] args)
+   public static final int DEFAULT_ROWS = 100;
+   public static final int DEFAULT_COLUMNS = 100;
+   public static final int DEFAULT_SETS = 6;
+   public static final int DEFAULT_FINGERS = 5;
+   public static final int TEST_SET = 0;                   // set A holds the test cases
+   public static final String BIN_PREFIX = "processed:Set";
+   public static final String TRUTH_TABLE_FILE = "FingersTruthTable";
+   public static final String TEST_CASE_FILE = "FingersTestCases";
+   public static final String BINARY_SUFFIX = ".bin";
+   public static final String SEPARATOR = "Space";
+   public static final int BUFFER_BYTES = 1 << 16;
+   public static final double NANOS_PER_SECOND = 1.0e9;
+   public static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+   public final boolean training;
+   public final boolean testing;
+   public final int numRows;
+   public final int numColumns;
+   public final int totalSets;
+   public final int totalFingers;
+   public final int pels;                 // values per image, numRows * numColumns
+   public byte[][][] trainingArray;       // [set][finger - 1][pel] for the truth table sets
+   public byte[][] testingArray;          // [finger - 1][pel] for the test set
+
+   /**
+    * Creates a converter for the default image size and number of sets and fingers
+    *
+    * @param training true to convert the truth table sets
+    * @param testing true to convert the test set
+    */
+   public BinToActivation(boolean training, boolean testing)
    {
-       BinToActivation processer = new  BinToActivation(true, true);
-      processer.fileToArray();
-      //System.out.println(processer.testingArray[2][2]);
-      processer.arrayToFile();
+      this(training, testing, DEFAULT_ROWS, DEFAULT_COLUMNS, DEFAULT_SETS, DEFAULT_FINGERS);
    }
-   public  BinToActivation(boolean training, boolean testing)
+
+   /**
+    * Creates a converter
+    *
+    * @param training true to convert the truth table sets
+    * @param testing true to convert the test set
+    * @param numRows rows of each image
+    * @param numColumns columns of each image
+    * @param totalSets number of sets, including the test set
+    * @param totalFingers number of fingers in each set
+    */
+   public BinToActivation(boolean training, boolean testing, int numRows, int numColumns, int totalSets,
+                          int totalFingers)
    {
+      if (totalSets > 26)
+      {
+         throw new IllegalArgumentException("Sets are named A to Z, so there can be at most 26");
+      }
+
       this.training = training;
       this.testing = testing;
+      this.numRows = numRows;
+      this.numColumns = numColumns;
+      this.totalSets = totalSets;
+      this.totalFingers = totalFingers;
+      pels = numRows * numColumns;
+   } //public BinToActivation(...)
+
+   /**
+    * Gives the letter of a set
+    *
+    * @param set the set, counted from 0
+    * @return A for set 0, B for set 1 and so on
+    */
+   public static String setName(int set)
+   {
+      return String.valueOf((char) ('A' + set));
    }
-   
-           public void arrayToFile()
+
+   /**
+    * Gives the name of the bin of one finger of one set
+    *
+    * @param set the set, counted from 0
+    * @param finger the finger, counted from 1
+    * @return the bin file name
+    */
+   public String binName(int set, int finger)
+   {
+      return BIN_PREFIX + setName(set) + "_F" + finger + BINARY_SUFFIX;
+   }
+
+   /**
+    * Reads the first pels bytes of every bin into the training and testing arrays
+    */
+   public void fileToArray()
    {
+      long startTime = System.nanoTime();
+      long bytes = 0;
+
       if (training)
-         try
+      {
+         trainingArray = new byte[totalSets][totalFingers][];
+         for (int set = TEST_SET + 1; set < totalSets; set++)
          {
-            PrintWriter out = new PrintWriter(new FileWriter("FingersTruthTable"), true);
-            for (int set = 1; set < 6; set++)
-               for (int finger = 1; finger < 6; finger++)
+            for (int finger = 1; finger <= totalFingers; finger++)
+            {
+               trainingArray[set][finger - 1] = readBin(binName(set, finger));
+               bytes += pels;
+            }
+         }
+      } // if (training)
+
+      if (testing)
+      {
+         testingArray = new byte[totalFingers][];
+         for (int finger = 1; finger <= totalFingers; finger++)
+         {
+            testingArray[finger - 1] = readBin(binName(TEST_SET, finger));
+            bytes += pels;
+         }
+      }
+
+      printRate("Bins read", bytes, startTime);
+   } //public void fileToArray()
+
+   /**
+    * Reads the first pels bytes of one bin with a single readFully
+    */
+   private byte[] readBin(String fileName)
+   {
+      byte[] values = new byte[pels];
+      try (DataInputStream in = new DataInputStream(new FileInputStream(fileName)))
+      {
+         in.readFully(values);
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+
+      System.out.println("BinFile to Array - " + fileName);
+      return values;
+   } //private byte[] readBin(String fileName)
+
+   /**
+    * Writes the truth table and test case text files, one value per line, through a buffered writer
+    */
+   public void arrayToFile()
+   {
+      if (training)
+      {
+         long startTime = System.nanoTime();
+         try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(TRUTH_TABLE_FILE), BUFFER_BYTES)))
+         {
+            for (int set = TEST_SET + 1; set < totalSets; set++)
+            {
+               for (int finger = 1; finger <= totalFingers; finger++)
                {
-                  for (int val = 0; val < numRows * numColums; val++)
-                     out.println(trainingArray[set][finger - 1][val]);
+                  printValues(out, trainingArray[set][finger - 1]);
                   out.println(finger);
-                  out.println("Space");
-                  System.out.println("Array to TruthTable - " + "Set" + letters[set] + " Finger" + finger);
+                  out.println(SEPARATOR);
+                  System.out.println("Array to TruthTable - " + "Set" + setName(set) + " Finger" + finger);
                }
-            out.println("Space");
+            }
+            out.println(SEPARATOR);
+         } //try (PrintWriter out = ...)
+         catch (IOException e)
+         {
+            throw new RuntimeException(e);
          }
-      catch (FileNotFoundException e) { throw new RuntimeException(e);}
-      catch (IOException e) {throw new RuntimeException(e);}
-      
+         printRate(TRUTH_TABLE_FILE + " written", new File(TRUTH_TABLE_FILE).length(), startTime);
+      } // if (training)
+
       if (testing)
-         try
+      {
+         long startTime = System.nanoTime();
+         try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(TEST_CASE_FILE), BUFFER_BYTES)))
          {
-            PrintWriter out = new PrintWriter(new FileWriter("FingersTestCases"), true);
-            for (int finger = 1; finger < 6; finger++)
+            for (int finger = 1; finger <= totalFingers; finger++)
             {
-               for (int val = 0; val < numRows * numColums; val++)
-                  out.println(testingArray[finger - 1][val]);
-               out.println("Space");
-               System.out.println("Array to TestCases - " + "Set" + letters[0] + " Finger" + finger);
+               printValues(out, testingArray[finger - 1]);
+               out.println(SEPARATOR);
+               System.out.println("Array to TestCases - " + "Set" + setName(TEST_SET) + " Finger" + finger);
             }
-            out.println("Space");
+            out.println(SEPARATOR);
+         } //try (PrintWriter out = ...)
+         catch (IOException e)
+         {
+            throw new RuntimeException(e);
          }
-         catch (FileNotFoundException e) { throw new RuntimeException(e);}
-         catch (IOException e) {throw new RuntimeException(e);}
+         printRate(TEST_CASE_FILE + " written", new File(TEST_CASE_FILE).length(), startTime);
+      } // if (testing)
+   } //public void arrayToFile()
+
+   /**
+    * Prints each value of one image on its own line
+    */
+   private static void printValues(PrintWriter out, byte[] values)
+   {
+      for (byte value : values)
+      {
+         out.println(value);
+      }
    }
-   
-           public void fileToArray()
+
+   /**
+    * Writes the same cases as arrayToFile into binary datasets (FingersTruthTable.bin and FingersTestCases.bin)
+    * that Network loads directly. The pixel values are stored as single bytes and the expected output of each
+    * case is one-hot over the fingers.
+    */
+   public void arrayToBinary()
    {
-      if (training)
-         trainingArray = new int[totalSets][totalFingers][numRows * numColums];
-      
-      if (testing)
-         testingArray = new int[totalFingers][numRows * numColums];
       try
       {
          if (training)
-            for (int set = 1; set < 6; set++)
-               for (int finger = 1; finger < 6; finger++)
+         {
+            long startTime = System.nanoTime();
+            double[][] inputs = new double[(totalSets - 1) * totalFingers][];
+            double[][] outputs = new double[inputs.length][];
+            for (int set = TEST_SET + 1; set < totalSets; set++)
+            {
+               for (int finger = 1; finger <= totalFingers; finger++)
                {
-                  FileInputStream fstream = new FileInputStream("processed:Set" + letters[set] + "_F" + finger + ".bin");
-                  DataInputStream in = new DataInputStream(fstream);
-                  for (int val = 0; val < numRows * numColums; val++)
-                     trainingArray[set][finger-1][val] = Integer.valueOf(in.readByte());
-                  System.out.println("BinFile to Array - " + "processed:Set" + letters[set] + "_F" + finger + ".bin");
+                  int k = (set - 1) * totalFingers + finger - 1;
+                  inputs[k] = toActivations(trainingArray[set][finger - 1]);
+                  outputs[k] = oneHot(finger);
                }
-         
+            }
+            String fileName = TRUTH_TABLE_FILE + BINARY_SUFFIX;
+            BinaryDataset.write(fileName, BinaryDataset.TYPE_INT8, inputs, outputs);
+            printRate("Array to binary dataset - " + fileName, new File(fileName).length(), startTime);
+         } // if (training)
+
          if (testing)
-            for (int finger = 1; finger < 6; finger++)
+         {
+            long startTime = System.nanoTime();
+            double[][] inputs = new double[totalFingers][];
+            double[][] outputs = new double[totalFingers][];
+            for (int finger = 1; finger <= totalFingers; finger++)
             {
-               FileInputStream fstream = new FileInputStream("processed:Set" + letters[0] + "_F" + finger + ".bin");
-               DataInputStream in = new DataInputStream(fstream);
-               for (int val = 0; val < numRows * numColums; val++)
-                  testingArray[finger-1][val] = Integer.valueOf(in.readByte());
-               System.out.println("BinFile to Array - " + "processed:Set" + letters[0] + "_F" + finger + ".bin");
+               inputs[finger - 1] = toActivations(testingArray[finger - 1]);
+               outputs[finger - 1] = oneHot(finger);
             }
+            String fileName = TEST_CASE_FILE + BINARY_SUFFIX;
+            BinaryDataset.write(fileName, BinaryDataset.TYPE_INT8, inputs, outputs);
+            printRate("Array to binary dataset - " + fileName, new File(fileName).length(), startTime);
+         } // if (testing)
+      } //try
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
       }
-      catch (FileNotFoundException e) { throw new RuntimeException(e);}
-      catch (IOException e) {throw new RuntimeException(e);}
+   } //public void arrayToBinary()
+
+   /**
+    * Widens the pel values of one image to activations
+    */
+   private static double[] toActivations(byte[] pixels)
+   {
+      double[] values = new double[pixels.length];
+      for (int val = 0; val < pixels.length; val++)
+      {
+         values[val] = pixels[val];
+      }
+      return values;
+   }
+
+   /**
+    * Expected outputs of a finger, 1 for that finger and 0 for the others
+    */
+   private double[] oneHot(int finger)
+   {
+      double[] values = new double[totalFingers];
+      values[finger - 1] = 1.0;
+      return values;
    }
-}
\ No newline at end of file
+
+   /**
+    * Prints the time a step took and its rate
+    */
+   private static void printRate(String step, long bytes, long startTime)
+   {
+      double seconds = (System.nanoTime() - startTime) / NANOS_PER_SECOND;
+      System.out.printf("%s: %d bytes in %.1f ms (%.2f MB/s)\n", step, bytes, seconds * 1000.0,
+                        bytes / BYTES_PER_MB / seconds);
+   }
+
+   /**
+    * Converts every bin to the text and binary activation files
+    *
+    * @param args optional rows and columns of each image, then optional number of sets and fingers
+    */
+   public static void main(String[] args)
+   {
+      int rows = args.length > 1 ? Integer.parseInt(args[0]) : DEFAULT_ROWS;
+      int columns = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_COLUMNS;
+      int sets = args.length > 3 ? Integer.parseInt(args[2]) : DEFAULT_SETS;
+      int fingers = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_FINGERS;
+
+      long startTime = System.nanoTime();
+      BinToActivation processer = new BinToActivation(true, true, rows, columns, sets, fingers);
+      processer.fileToArray();
+      processer.arrayToFile();
+      processer.arrayToBinary();
+      System.out.printf("Total: %.1f ms\n", (System.nanoTime() - startTime) / NANOS_PER_SECOND * 1000.0);
+   } //public static void main(String[] args)
+} //public class BinToActivation
@@ -0,0 +1,341 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class reads and writes the binary dataset container.
+ * All values are little-endian. The header is HEADER_BYTES long and holds
+ *    int magic ("NNDS"), int version, int case count, int input width, int output width, int element type,
+ * followed by zero padding. Each case is then stored as one packed row of its input values followed by its
+ * expected output values, all of the element type:
+ *    TYPE_INT8    - one signed byte per value, for whole numbers from -128 to 127 such as raw pixels
+ *    TYPE_FLOAT32 - one float per value
+ *    TYPE_FLOAT64 - one double per value
+ * An open dataset is memory-mapped in segments of whole rows, so files larger than the heap (or than the 2 GB
+ * limit of a single mapping) can be read one test case at a time. Reads use absolute positions only,
+ * so any number of threads may read from one open dataset.
+ *
+ * Methods:
+ * public static boolean isBinary(String fileName)
+ * public static int elementBytes(int elementType)
+ * public static void write(String fileName, int elementType, double[][] inputs, double[][] outputs)
+ * public static BinaryDataset open(String fileName)
+ * public int getCaseCount()
+ * public int getInputWidth()
+ * public int getOutputWidth()
+ * public int getElementType()
+ * public long getFileSize()
+ * public void readInputs(int k, double[] dst, int offset)
+ * public void readOutputs(int k, double[] dst, int offset)
+ * public void close()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class BinaryDataset implements AutoCloseable
+{
+   public static final int MAGIC = 0x53444E4E;             // the bytes N N D S read as a little-endian int
+   public static final int VERSION = 1;
+   public static final int HEADER_BYTES = 32;
+   public static final int TYPE_INT8 = 1;
+   public static final int TYPE_FLOAT32 = 2;
+   public static final int TYPE_FLOAT64 = 3;
+   public static final long MAX_SEGMENT_BYTES = 1L << 30;  // largest single mapping
+   public static final int CHUNK_BYTES = 1 << 16;          // size of the write buffer
+
+   private final FileChannel channel;
+   private final MappedByteBuffer[] segments;
+   private final int caseCount;
+   private final int inputWidth;
+   private final int outputWidth;
+   private final int elementType;
+   private final int rowBytes;
+   private final int rowsPerSegment;
+
+   /**
+    * Checks whether a file starts with the binary dataset magic number
+    *
+    * @param fileName the dataset file
+    * @return true if the file is a binary dataset, false otherwise
+    * @throws IOException if the file cannot be read
+    */
+   public static boolean isBinary(String fileName) throws IOException
+   {
+      try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ))
+      {
+         ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+         int read = 0;
+         while (magic.hasRemaining() && read >= 0)
+         {
+            read = channel.read(magic);
+         }
+         return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+      }
+   } //public static boolean isBinary(String fileName)
+
+   /**
+    * Gives the size of one value of an element type
+    *
+    * @param elementType TYPE_INT8, TYPE_FLOAT32 or TYPE_FLOAT64
+    * @return bytes per value
+    */
+   public static int elementBytes(int elementType)
+   {
+      switch (elementType)
+      {
+         case TYPE_INT8:
+            return Byte.BYTES;
+         case TYPE_FLOAT32:
+            return Float.BYTES;
+         case TYPE_FLOAT64:
+            return Double.BYTES;
+         default:
+            throw new IllegalArgumentException("Unknown dataset element type " + elementType);
+      }
+   } //public static int elementBytes(int elementType)
+
+   /**
+    * Writes a dataset through a FileChannel. TYPE_INT8 values are cast to bytes, so they must already be
+    * whole numbers from -128 to 127.
+    *
+    * @param fileName the dataset file
+    * @param elementType TYPE_INT8, TYPE_FLOAT32 or TYPE_FLOAT64
+    * @param inputs input values of each case
+    * @param outputs expected output values of each case
+    * @throws IOException if the file cannot be written
+    */
+   public static void write(String fileName, int elementType, double[][] inputs, double[][] outputs)
+         throws IOException
+   {
+      int inputWidth = inputs[0].length;
+      int outputWidth = outputs[0].length;
+      int size = elementBytes(elementType);
+
+      try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+      {
+         ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(CHUNK_BYTES, HEADER_BYTES))
+               .order(ByteOrder.LITTLE_ENDIAN);
+         buffer.putInt(MAGIC).putInt(VERSION).putInt(inputs.length).putInt(inputWidth).putInt(outputWidth)
+               .putInt(elementType);
+         buffer.position(HEADER_BYTES);
+
+         for (int k = 0; k < inputs.length; k++)
+         {
+            for (int pass = 0; pass < 2; pass++)
+            {
+               double[] row = (pass == 0) ? inputs[k] : outputs[k];
+               for (double value : row)
+               {
+                  if (buffer.remaining() < size)
+                  {
+                     drain(channel, buffer);
+                  }
+
+                  if (elementType == TYPE_INT8)
+                  {
+                     buffer.put((byte) value);
+                  }
+                  else if (elementType == TYPE_FLOAT32)
+                  {
+                     buffer.putFloat((float) value);
+                  }
+                  else
+                  {
+                     buffer.putDouble(value);
+                  }
+               } // for (double value : row)
+            } // for (int pass = 0; pass < 2; pass++)
+         } // for (int k = 0; k < inputs.length; k++)
+
+         drain(channel, buffer);
+      } //try (FileChannel channel = ...)
+   } //public static void write(...)
+
+   /**
+    * Writes the filled part of the buffer to the channel and clears it
+    */
+   private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException
+   {
+      buffer.flip();
+      while (buffer.hasRemaining())
+      {
+         channel.write(buffer);
+      }
+      buffer.clear();
+   }
+
+   /**
+    * Opens and memory-maps a binary dataset
+    *
+    * @param fileName the dataset file
+    * @return the open dataset
+    * @throws IOException if the file cannot be read or is not a valid dataset
+    */
+   public static BinaryDataset open(String fileName) throws IOException
+   {
+      FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+      try
+      {
+         return new BinaryDataset(channel);
+      }
+      catch (IOException | RuntimeException e)
+      {
+         channel.close();
+         throw e;
+      }
+   } //public static BinaryDataset open(String fileName)
+
+   /**
+    * Reads the header and maps the rows of an open dataset file
+    */
+   private BinaryDataset(FileChannel channel) throws IOException
+   {
+      this.channel = channel;
+
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      if (header.getInt() != MAGIC || header.getInt() != VERSION)
+      {
+         throw new IOException("Not a version " + VERSION + " binary dataset");
+      }
+      caseCount = header.getInt();
+      inputWidth = header.getInt();
+      outputWidth = header.getInt();
+      elementType = header.getInt();
+
+      rowBytes = (inputWidth + outputWidth) * elementBytes(elementType);
+      if (channel.size() != HEADER_BYTES + (long) caseCount * rowBytes)
+      {
+         throw new IOException("Dataset file size does not match its header");
+      }
+
+      rowsPerSegment = (int) Math.max(1, Math.min(caseCount, MAX_SEGMENT_BYTES / rowBytes));
+      int numSegments = (caseCount + rowsPerSegment - 1) / rowsPerSegment;
+      segments = new MappedByteBuffer[numSegments];
+
+      for (int s = 0; s < numSegments; s++)
+      {
+         long start = HEADER_BYTES + (long) s * rowsPerSegment * rowBytes;
+         long rows = Math.min(rowsPerSegment, caseCount - (long) s * rowsPerSegment);
+         segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, start, rows * rowBytes);
+         segments[s].order(ByteOrder.LITTLE_ENDIAN);
+      }
+   } //private BinaryDataset(FileChannel channel)
+
+   /**
+    * Number of test cases in the dataset
+    */
+   public int getCaseCount()
+   {
+      return caseCount;
+   }
+
+   /**
+    * Number of input values per test case
+    */
+   public int getInputWidth()
+   {
+      return inputWidth;
+   }
+
+   /**
+    * Number of expected output values per test case
+    */
+   public int getOutputWidth()
+   {
+      return outputWidth;
+   }
+
+   /**
+    * Type of the stored values
+    */
+   public int getElementType()
+   {
+      return elementType;
+   }
+
+   /**
+    * Size of the dataset file in bytes
+    */
+   public long getFileSize()
+   {
+      return HEADER_BYTES + (long) caseCount * rowBytes;
+   }
+
+   /**
+    * Copies the input values of test case k into dst starting at offset
+    *
+    * @param k the test case
+    * @param dst destination array
+    * @param offset first index written in dst
+    */
+   public void readInputs(int k, double[] dst, int offset)
+   {
+      readValues(k, 0, inputWidth, dst, offset);
+   }
+
+   /**
+    * Copies the expected output values of test case k into dst starting at offset
+    *
+    * @param k the test case
+    * @param dst destination array
+    * @param offset first index written in dst
+    */
+   public void readOutputs(int k, double[] dst, int offset)
+   {
+      readValues(k, inputWidth, outputWidth, dst, offset);
+   }
+
+   /**
+    * Converts count values of row k, starting at value first, into dst
+    */
+   private void readValues(int k, int first, int count, double[] dst, int offset)
+   {
+      MappedByteBuffer segment = segments[k / rowsPerSegment];
+      int size = elementBytes(elementType);
+      int position = (k % rowsPerSegment) * rowBytes + first * size;
+
+      switch (elementType)
+      {
+         case TYPE_INT8:
+         {
+            for (int i = 0; i < count; i++)
+            {
+               dst[offset + i] = segment.get(position + i);
+            }
+            break;
+         }
+
+         case TYPE_FLOAT32:
+         {
+            for (int i = 0; i < count; i++)
+            {
+               dst[offset + i] = segment.getFloat(position + i * Float.BYTES);
+            }
+            break;
+         }
+
+         default:
+         {
+            for (int i = 0; i < count; i++)
+            {
+               dst[offset + i] = segment.getDouble(position + i * Double.BYTES);
+            }
+         }
+      } //switch (elementType)
+   } //private void readValues(int k, int first, int count, double[] dst, int offset)
+
+   /**
+    * Closes the file. The mappings are released once they are no longer reachable.
+    *
+    * @throws IOException if the file cannot be closed
+    */
+   public void close() throws IOException
+   {
+      channel.close();
+   }
+} //public class BinaryDataset
@@ -0,0 +1,156 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class converts every .bmp file in a directory to a one byte per pel gray scale .bin file of the same name.
+ * Each image is decoded by its own BMP2OneByte, so the images are spread over a pool of threads. The throughput of
+ * the whole batch is printed when it finishes. A file that cannot be converted is reported and skipped without
+ * stopping the rest of the batch.
+ *
+ * Usage: java BmpPipeline [<input directory> [<output directory> [<threads>]]]
+ *
+ * Methods:
+ * public BmpPipeline(String inputDirectory, String outputDirectory, int numThreads)
+ * public int convertDirectory()
+ * public void printThroughput()
+ * public static void main(String[] args)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class BmpPipeline
+{
+   public static final String DEFAULT_INPUT_DIRECTORY = "Converted Images";
+   public static final String DEFAULT_OUTPUT_DIRECTORY = "Converted Bins";
+   public static final String BMP_EXTENSION = ".bmp";
+   public static final String BIN_EXTENSION = ".bin";
+   public static final double NANOS_PER_SECOND = 1.0e9;
+   public static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+   public final String inputDirectory;
+   public final String outputDirectory;
+   public final int numThreads;
+
+   public int imagesConverted;            // images converted by the last batch
+   public int imagesFailed;               // images of the last batch that could not be converted
+   public long bytesRead;                 // size of the BMP files converted by the last batch
+   public long elapsedNanos;              // wall clock time of the last batch
+
+   /**
+    * Creates a pipeline between two directories
+    *
+    * @param inputDirectory directory holding the .bmp files
+    * @param outputDirectory directory the .bin files are written to, created if it is missing
+    * @param numThreads number of images decoded at once
+    */
+   public BmpPipeline(String inputDirectory, String outputDirectory, int numThreads)
+   {
+      this.inputDirectory = inputDirectory;
+      this.outputDirectory = outputDirectory;
+      this.numThreads = Math.max(1, numThreads);
+   }
+
+   /**
+    * Converts every .bmp file of the input directory, in name order, on a pool of numThreads threads
+    *
+    * @return the number of images converted
+    */
+   public int convertDirectory()
+   {
+      File[] images = new File(inputDirectory).listFiles(
+            (directory, name) -> name.toLowerCase().endsWith(BMP_EXTENSION));
+      if (images == null)
+      {
+         throw new IllegalArgumentException("Cannot read the directory " + inputDirectory);
+      }
+      Arrays.sort(images);
+      new File(outputDirectory).mkdirs();
+
+      List<Callable<Long>> tasks = new ArrayList<Callable<Long>>();
+      for (File image : images)
+      {
+         String name = image.getName();
+         File bin = new File(outputDirectory, name.substring(0, name.length() - BMP_EXTENSION.length()) +
+                                              BIN_EXTENSION);
+         tasks.add(() ->
+         {
+            BMP2OneByte decoder = new BMP2OneByte();
+            decoder.readImage(image.getPath());
+            decoder.writeGrayscale(bin.getPath());
+            return image.length();
+         });
+      } // for (File image : images)
+
+      imagesConverted = 0;
+      imagesFailed = 0;
+      bytesRead = 0L;
+      long startTime = System.nanoTime();
+      ExecutorService pool = Executors.newFixedThreadPool(Math.min(numThreads, Math.max(images.length, 1)));
+
+      try
+      {
+         List<Future<Long>> futures = pool.invokeAll(tasks);
+         for (int i = 0; i < futures.size(); i++)
+         {
+            try
+            {
+               bytesRead += futures.get(i).get();
+               imagesConverted++;
+            }
+            catch (ExecutionException e)
+            {
+               imagesFailed++;
+               System.out.println("Could not convert " + images[i].getPath() + ": " + e.getCause());
+            }
+         } // for (int i = 0; i < futures.size(); i++)
+      } //try
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException(e);
+      }
+      finally
+      {
+         pool.shutdown();
+      }
+
+      elapsedNanos = System.nanoTime() - startTime;
+      return imagesConverted;
+   } //public int convertDirectory()
+
+   /**
+    * Prints the images and megabytes of BMP data converted per second by the last batch
+    */
+   public void printThroughput()
+   {
+      double seconds = elapsedNanos / NANOS_PER_SECOND;
+      System.out.printf("Converted %d images (%d failed, %d bytes) from %s to %s with %d threads in %.1f ms\n",
+                        imagesConverted, imagesFailed, bytesRead, inputDirectory, outputDirectory, numThreads,
+                        seconds * 1000.0);
+      System.out.printf("Throughput: %.1f images/s, %.2f MB/s\n", imagesConverted / seconds,
+                        bytesRead / BYTES_PER_MB / seconds);
+   } //public void printThroughput()
+
+   /**
+    * Converts a directory of BMP files and prints the throughput
+    *
+    * @param args optional input directory, output directory and number of threads
+    */
+   public static void main(String[] args)
+   {
+      String inputDirectory = args.length > 0 ? args[0] : DEFAULT_INPUT_DIRECTORY;
+      String outputDirectory = args.length > 1 ? args[1] : DEFAULT_OUTPUT_DIRECTORY;
+      int numThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+      BmpPipeline pipeline = new BmpPipeline(inputDirectory, outputDirectory, numThreads);
+      pipeline.convertDirectory();
+      pipeline.printThroughput();
+   } //public static void main(String[] args)
+} //public class BmpPipeline
@@ -0,0 +1,347 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * This class is a snapshot of a training run that can be written to a checkpoint file and restored later.
+ * A snapshot holds copies of the weights, the optimizer and its per-weight state, the iteration count and the
+ * error, so it can be written on another thread while training goes on. Training draws no random numbers after
+ * the weights are initialized, so there is no random number state to keep.
+ * All values are little-endian. A checkpoint file holds
+ *    int magic ("NNCK"), int version, int number of layers, one int per layer size, int iteration, double error,
+ *    int optimizer name length, the UTF-8 optimizer name, long optimizer steps, int number of state arrays,
+ * then the weights and each optimizer state array in the flat order of Network.weights, and ends with the
+ * long CRC32 of everything before it. Files are written under a temporary name and then moved into place,
+ * so a crash while writing never damages an existing checkpoint.
+ *
+ * Methods:
+ * public Checkpoint(int[] numActs, int iteration, double error, String optimizerName, long optimizerSteps,
+ *                   double[][] weights, double[][][] optimizerState)
+ * public static Checkpoint snapshot(Network network)
+ * public static String slotName(String baseName, int slot)
+ * public void write(String fileName)
+ * public static Checkpoint read(String fileName, int[] numActs)
+ * public static int findLatest(String baseName, int slots, int[] numActs)
+ * public void restore(Network network)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class Checkpoint
+{
+   public static final int MAGIC = 0x4B434E4E;             // the bytes N N C K read as a little-endian int
+   public static final int VERSION = 1;
+   public static final int CHUNK_BYTES = 1 << 16;          // size of the write buffer
+   public static final String SUFFIX = ".ckpt";
+
+   public final int[] numActs;
+   public final int iteration;
+   public final double error;
+   public final String optimizerName;
+   public final long optimizerSteps;
+   public final double[][] weights;
+   public final double[][][] optimizerState;
+
+   /**
+    * Creates a checkpoint from arrays it takes ownership of
+    *
+    * @param numActs number of activations in each layer
+    * @param iteration iterations completed
+    * @param error error after the last completed iteration
+    * @param optimizerName name of the optimizer
+    * @param optimizerSteps steps the optimizer has taken
+    * @param weights flat weights of each connectivity layer, starting at layer 1
+    * @param optimizerState per-weight state arrays of the optimizer, each laid out like the weights
+    */
+   public Checkpoint(int[] numActs, int iteration, double error, String optimizerName, long optimizerSteps,
+                     double[][] weights, double[][][] optimizerState)
+   {
+      this.numActs = numActs;
+      this.iteration = iteration;
+      this.error = error;
+      this.optimizerName = optimizerName;
+      this.optimizerSteps = optimizerSteps;
+      this.weights = weights;
+      this.optimizerState = optimizerState;
+   } //public Checkpoint(...)
+
+   /**
+    * Copies the training state of a network, so the copy can be written while training changes the originals
+    *
+    * @param network the network being trained, with its optimizer created
+    * @return the snapshot
+    */
+   public static Checkpoint snapshot(Network network)
+   {
+      double[][][] state = network.optimizer.getState();
+      double[][][] stateCopy = new double[state.length][][];
+      for (int s = 0; s < state.length; s++)
+      {
+         stateCopy[s] = copyLayers(state[s]);
+      }
+
+      return new Checkpoint(network.numActs.clone(), network.iterTracker, network.errorTracker,
+                            network.optimizer.getName(), network.optimizer.steps, copyLayers(network.weights),
+                            stateCopy);
+   } //public static Checkpoint snapshot(Network network)
+
+   /**
+    * Copies each connectivity layer of an array laid out like the weights
+    */
+   private static double[][] copyLayers(double[][] layers)
+   {
+      double[][] copy = new double[layers.length][];
+      for (int n = Network.HIDDENS_ONE_LOC; n < layers.length; n++)
+      {
+         copy[n] = layers[n].clone();
+      }
+      return copy;
+   }
+
+   /**
+    * Gives the file name of one slot of a rotating set of checkpoints
+    *
+    * @param baseName the weight file name the checkpoints belong to
+    * @param slot the slot number
+    * @return the checkpoint file name
+    */
+   public static String slotName(String baseName, int slot)
+   {
+      return baseName + SUFFIX + slot;
+   }
+
+   /**
+    * Writes the checkpoint to a temporary file next to fileName, then moves it over fileName
+    *
+    * @param fileName the checkpoint file
+    * @throws IOException if the file cannot be written
+    */
+   public void write(String fileName) throws IOException
+   {
+      Path path = Paths.get(fileName);
+      Path temporary = Paths.get(fileName + ".tmp");
+      byte[] name = optimizerName.getBytes(StandardCharsets.UTF_8);
+      CRC32 crc = new CRC32();
+
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING))
+      {
+         ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+         buffer.putInt(MAGIC).putInt(VERSION).putInt(numActs.length);
+         for (int size : numActs)
+         {
+            buffer.putInt(size);
+         }
+         buffer.putInt(iteration).putDouble(error).putInt(name.length).put(name);
+         buffer.putLong(optimizerSteps).putInt(optimizerState.length);
+
+         putLayers(channel, buffer, crc, weights);
+         for (double[][] state : optimizerState)
+         {
+            putLayers(channel, buffer, crc, state);
+         }
+         drain(channel, buffer, crc);
+
+         buffer.putLong(crc.getValue());
+         buffer.flip();
+         while (buffer.hasRemaining())
+         {
+            channel.write(buffer);
+         }
+         channel.force(false);
+      } //try (FileChannel channel = ...)
+
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+   } //public void write(String fileName)
+
+   /**
+    * Adds every connectivity layer of an array laid out like the weights to the buffer, draining it as it fills
+    */
+   private static void putLayers(FileChannel channel, ByteBuffer buffer, CRC32 crc, double[][] layers)
+         throws IOException
+   {
+      for (int n = Network.HIDDENS_ONE_LOC; n < layers.length; n++)
+      {
+         double[] layer = layers[n];
+         int w = 0;
+         while (w < layer.length)
+         {
+            if (buffer.remaining() < Double.BYTES)
+            {
+               drain(channel, buffer, crc);
+            }
+            int count = Math.min(buffer.remaining() / Double.BYTES, layer.length - w);
+            buffer.asDoubleBuffer().put(layer, w, count);
+            buffer.position(buffer.position() + count * Double.BYTES);
+            w += count;
+         }
+      } // for (int n = Network.HIDDENS_ONE_LOC; n < layers.length; n++)
+   } //private static void putLayers(...)
+
+   /**
+    * Writes the filled part of the buffer, adding it to the checksum, and clears the buffer
+    */
+   private static void drain(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException
+   {
+      buffer.flip();
+      crc.update(buffer.duplicate());
+      while (buffer.hasRemaining())
+      {
+         channel.write(buffer);
+      }
+      buffer.clear();
+   }
+
+   /**
+    * Reads and validates a checkpoint file for a network of the given shape
+    *
+    * @param fileName the checkpoint file
+    * @param numActs number of activations in each layer of the network
+    * @return the checkpoint
+    * @throws IOException if the file cannot be read, does not match the network, or is corrupt
+    */
+   public static Checkpoint read(String fileName, int[] numActs) throws IOException
+   {
+      try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ))
+      {
+         long size = channel.size();
+         if (size < Long.BYTES)
+         {
+            throw new IOException("Checkpoint file is too short");
+         }
+
+         MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+         mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+         CRC32 crc = new CRC32();
+         crc.update(mapped.duplicate().limit((int) (size - Long.BYTES)));
+         if (crc.getValue() != mapped.getLong((int) (size - Long.BYTES)))
+         {
+            throw new IOException("Checkpoint checksum does not match, the file is corrupt");
+         }
+
+         if (mapped.getInt() != MAGIC || mapped.getInt() != VERSION)
+         {
+            throw new IOException("Not a version " + VERSION + " checkpoint");
+         }
+         if (mapped.getInt() != numActs.length)
+         {
+            throw new IOException("Checkpoint has a different number of layers than the network");
+         }
+         for (int n = 0; n < numActs.length; n++)
+         {
+            if (mapped.getInt() != numActs[n])
+            {
+               throw new IOException("Checkpoint layer " + n + " does not match the network");
+            }
+         }
+
+         int iteration = mapped.getInt();
+         double error = mapped.getDouble();
+         byte[] name = new byte[mapped.getInt()];
+         mapped.get(name);
+         long steps = mapped.getLong();
+         double[][][] state = new double[mapped.getInt()][][];
+
+         double[][] weights = getLayers(mapped, numActs);
+         for (int s = 0; s < state.length; s++)
+         {
+            state[s] = getLayers(mapped, numActs);
+         }
+
+         return new Checkpoint(numActs.clone(), iteration, error, new String(name, StandardCharsets.UTF_8), steps,
+                               weights, state);
+      } //try (FileChannel channel = ...)
+   } //public static Checkpoint read(String fileName, int[] numActs)
+
+   /**
+    * Reads one array laid out like the weights of a network with the given layer sizes
+    */
+   private static double[][] getLayers(MappedByteBuffer mapped, int[] numActs)
+   {
+      double[][] layers = new double[numActs.length][];
+      for (int n = Network.HIDDENS_ONE_LOC; n < numActs.length; n++)
+      {
+         layers[n] = new double[numActs[n] * numActs[n-1]];
+         mapped.asDoubleBuffer().get(layers[n]);
+         mapped.position(mapped.position() + layers[n].length * Double.BYTES);
+      }
+      return layers;
+   } //private static double[][] getLayers(MappedByteBuffer mapped, int[] numActs)
+
+   /**
+    * Finds the slot holding the valid checkpoint with the most iterations. Missing slots are skipped quietly and
+    * invalid ones with a message.
+    *
+    * @param baseName the weight file name the checkpoints belong to
+    * @param slots number of slots in the rotation
+    * @param numActs number of activations in each layer of the network
+    * @return the slot, or -1 if there is no valid checkpoint
+    */
+   public static int findLatest(String baseName, int slots, int[] numActs)
+   {
+      int latest = -1;
+      int latestIteration = -1;
+
+      for (int slot = 0; slot < slots; slot++)
+      {
+         String fileName = slotName(baseName, slot);
+         if (!Files.exists(Paths.get(fileName)))
+         {
+            continue;
+         }
+
+         try
+         {
+            Checkpoint checkpoint = read(fileName, numActs);
+            if (checkpoint.iteration > latestIteration)
+            {
+               latest = slot;
+               latestIteration = checkpoint.iteration;
+            }
+         } //try
+         catch (IOException e)
+         {
+            System.out.println("Skipping checkpoint " + fileName + ": " + e.getMessage());
+         }
+      } // for (int slot = 0; slot < slots; slot++)
+      return latest;
+   } //public static int findLatest(String baseName, int slots, int[] numActs)
+
+   /**
+    * Copies the checkpoint into a network whose optimizer has been created with the same name
+    *
+    * @param network the network to resume
+    */
+   public void restore(Network network)
+   {
+      if (!optimizerName.equals(network.optimizer.getName()))
+      {
+         throw new IllegalArgumentException("Checkpoint was trained with " + optimizerName + ", not " +
+                                            network.optimizer.getName());
+      }
+
+      double[][][] state = network.optimizer.getState();
+      for (int n = Network.HIDDENS_ONE_LOC; n < numActs.length; n++)
+      {
+         System.arraycopy(weights[n], 0, network.weights[n], 0, weights[n].length);
+         for (int s = 0; s < state.length; s++)
+         {
+            System.arraycopy(optimizerState[s][n], 0, state[s][n], 0, optimizerState[s][n].length);
+         }
+      }
+
+      network.optimizer.steps = optimizerSteps;
+      network.iterTracker = iteration;
+      network.errorTracker = error;
+   } //public void restore(Network network)
+} //public class Checkpoint
@@ -0,0 +1,274 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class streams the text dataset file through a FileChannel and parses numbers straight from the bytes.
+ * The file is read in blocks into one reusable buffer and no String is built per line. Each value line starts with
+ * a number, optionally followed by "=" and a comment, which is skipped along with the rest of the line.
+ * Plain decimal numbers of up to 18 significant digits with small exponents are converted exactly by a single
+ * multiplication or division by a power of ten. Anything else, including NaN and Infinity, falls back to
+ * Double.parseDouble on the token so every value parses to the same double as before.
+ *
+ * Methods:
+ * public DatasetReader(String fileName)
+ * public void skipLine()
+ * public double nextValue()
+ * public long getBytesRead()
+ * public void close()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class DatasetReader implements AutoCloseable
+{
+   public static final int BUFFER_BYTES = 1 << 16;
+   public static final int MAX_TOKEN = 256;                // longest number token accepted
+   public static final int MAX_FAST_DIGITS = 18;           // significant digits that always fit in a long
+   public static final long MAX_EXACT_MANTISSA = 1L << 53; // largest mantissa a double holds exactly
+   public static final int MAX_EXACT_POWER = 22;           // largest power of ten a double holds exactly
+   private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_POWER + 1];
+
+   private final FileChannel channel;
+   private final byte[] buffer = new byte[BUFFER_BYTES];
+   private final ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+   private final char[] token = new char[MAX_TOKEN + 2];   // room for an exponent marker and sign past the limit
+   private int position;                                   // next unread byte in the buffer
+   private int limit;                                      // number of valid bytes in the buffer
+   private long bytesRead;
+
+   static
+   {
+      POWERS_OF_TEN[0] = 1.0;
+      for (int p = 1; p <= MAX_EXACT_POWER; p++)
+      {
+         POWERS_OF_TEN[p] = POWERS_OF_TEN[p - 1] * 10.0;
+      }
+   }
+
+   /**
+    * Opens the dataset file for reading
+    *
+    * @param fileName the dataset file
+    * @throws IOException if the file cannot be opened
+    */
+   public DatasetReader(String fileName) throws IOException
+   {
+      channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+   }
+
+   /**
+    * Refills the buffer from the file
+    *
+    * @return false at the end of the file, true otherwise
+    */
+   private boolean fill() throws IOException
+   {
+      wrapped.clear();
+      int read = channel.read(wrapped);
+      while (read == 0)
+      {
+         read = channel.read(wrapped);
+      }
+
+      position = 0;
+      limit = Math.max(read, 0);
+      if (read > 0)
+      {
+         bytesRead += read;
+      }
+      return read > 0;
+   } //private boolean fill()
+
+   /**
+    * Returns the next byte without consuming it, or -1 at the end of the file
+    */
+   private int peek() throws IOException
+   {
+      if (position == limit && !fill())
+      {
+         return -1;
+      }
+      return buffer[position];
+   }
+
+   /**
+    * Skips the rest of the current line, including the line break
+    *
+    * @throws IOException if the file cannot be read
+    */
+   public void skipLine() throws IOException
+   {
+      while (true)
+      {
+         if (position == limit && !fill())
+         {
+            return;
+         }
+         if (buffer[position++] == '\n')
+         {
+            return;
+         }
+      }
+   } //public void skipLine()
+
+   /**
+    * Parses the number at the start of the current line and moves to the next line
+    *
+    * @return the value
+    * @throws IOException if the file cannot be read or ends before the value
+    * @throws NumberFormatException if the line does not start with a number
+    */
+   public double nextValue() throws IOException
+   {
+      int c = peek();
+      if (c < 0)
+      {
+         throw new IOException("Dataset file ended early");
+      }
+
+      while (c == ' ' || c == '\t')
+      {
+         position++;
+         c = peek();
+      }
+
+      int length = 0;
+      boolean negative = false;
+      long mantissa = 0;
+      int digits = 0;
+      int exponent = 0;
+      boolean fast = true;
+
+      if (c == '-' || c == '+')
+      {
+         negative = (c == '-');
+         token[length++] = (char) c;
+         position++;
+         c = peek();
+      }
+
+      boolean seenPoint = false;
+      boolean seenDigit = false;
+      while ((c >= '0' && c <= '9') || (c == '.' && !seenPoint))
+      {
+         if (c == '.')
+         {
+            seenPoint = true;
+         }
+         else if (mantissa != 0 || c != '0')
+         {
+            seenDigit = true;
+            if (digits < MAX_FAST_DIGITS)
+            {
+               mantissa = mantissa * 10 + (c - '0');
+               if (seenPoint)
+               {
+                  exponent--;
+               }
+            }
+            else
+            {
+               fast = false;
+            }
+            digits++;
+         }
+         else
+         {
+            seenDigit = true;
+            if (seenPoint)
+            {
+               exponent--;                                    //leading zeros after the point
+            }
+         }
+
+         if (length < MAX_TOKEN)
+         {
+            token[length++] = (char) c;
+         }
+         position++;
+         c = peek();
+      } // while ((c >= '0' && c <= '9') || (c == '.' && !seenPoint))
+
+      if ((c == 'e' || c == 'E') && seenDigit)
+      {
+         token[length++] = (char) c;
+         position++;
+         c = peek();
+
+         boolean negativeExponent = false;
+         if (c == '-' || c == '+')
+         {
+            negativeExponent = (c == '-');
+            token[length++] = (char) c;
+            position++;
+            c = peek();
+         }
+
+         int value = 0;
+         while (c >= '0' && c <= '9')
+         {
+            value = Math.min(value * 10 + (c - '0'), 100000);
+            if (length < MAX_TOKEN)
+            {
+               token[length++] = (char) c;
+            }
+            position++;
+            c = peek();
+         }
+         exponent += negativeExponent ? -value : value;
+      } // if (c == 'e' || c == 'E')
+
+      if (!seenDigit || !(c < 0 || c == '=' || c == '\n' || c == '\r' || c == ' ' || c == '\t'))
+      {
+         fast = false;
+      }
+
+      double result;
+      if (fast && mantissa < MAX_EXACT_MANTISSA && Math.abs(exponent) <= MAX_EXACT_POWER)
+      {
+         result = (exponent < 0) ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+         if (negative)
+         {
+            result = -result;
+         }
+      }
+      else
+      {
+         while (c >= 0 && c != '=' && c != '\n' && c != '\r' && length < MAX_TOKEN)  //slow path takes the whole token
+         {
+            token[length++] = (char) c;
+            position++;
+            c = peek();
+         }
+         if (length >= MAX_TOKEN)
+         {
+            throw new NumberFormatException("Dataset value longer than " + MAX_TOKEN + " characters");
+         }
+         result = Double.parseDouble(new String(token, 0, length).trim());
+      }
+
+      skipLine();
+      return result;
+   } //public double nextValue()
+
+   /**
+    * Returns the number of bytes read from the file so far
+    */
+   public long getBytesRead()
+   {
+      return bytesRead;
+   }
+
+   /**
+    * Closes the file
+    *
+    * @throws IOException if the file cannot be closed
+    */
+   public void close() throws IOException
+   {
+      channel.close();
+   }
+} //public class DatasetReader
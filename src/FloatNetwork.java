@@ -0,0 +1,413 @@
+import java.util.Arrays;
+
+/**
+ * This class runs and trains a network in single precision. It keeps a float copy of the weights along with float
+ * activations, weighted sums and psis, so a pass reads half the bytes of weights that the double path does, and
+ * streaming the weights is most of the time of a pass for wide input layers.
+ * The dot products are summed in float by default or, with double accumulation, in double from the float products,
+ * which are exact, so only the weights and activations are rounded. The error and the activation functions are
+ * still computed in double, and so is the state of the optimizers that keep any.
+ * Saturated nodes can give psis too small for a normal float, and arithmetic on those subnormal values is many
+ * times slower. Psis under FLUSH_LIMIT are set to zero instead, since the weight changes they would make are far
+ * below the spacing of floats around any weight that is not itself practically zero.
+ * The weights of the network stay the reference copy: every training or running call starts from them and
+ * training stores the float weights back into them when it ends and before each checkpoint. The float copy is
+ * kept alongside them, so it adds half again to the memory the weights take.
+ *
+ * Methods:
+ * public FloatNetwork(Network network, boolean doubleAccumulation)
+ * public void loadWeights()
+ * public void storeWeights()
+ * public void forwardPass(int k)
+ * public void backPropagate(int k)
+ * public void trainNetwork()
+ * public double evaluateError()
+ * public void runNetwork()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class FloatNetwork
+{
+   public static final int DOT_LANES = 4;              // independent partial sums of each dot product
+   public static final double FLUSH_LIMIT = 1.0e-30;   // psis smaller than this are flushed to zero
+
+   public final Network network;
+   public final boolean doubleAccumulation;  // true if dot products are summed in double
+   public float[][] weights;              // float copy of the weights, laid out like Network.weights
+   public float[][] acts;
+   public float[][] thetas;
+   public float[][] psis;
+   private final double[] inputs;         // inputs of one test case as the network loads them
+   private final double[] layerThetas;    // one layer in double for the activation functions
+   private final double[] layerActs;
+
+   /**
+    * Allocates the float arrays for a network
+    *
+    * @param network the network, with its arrays allocated
+    * @param doubleAccumulation true to sum dot products in double
+    */
+   public FloatNetwork(Network network, boolean doubleAccumulation)
+   {
+      this.network = network;
+      this.doubleAccumulation = doubleAccumulation;
+      acts = new float[network.numTotalLayers][];
+      thetas = new float[network.numTotalLayers][];
+      psis = new float[network.numTotalLayers][];
+      weights = new float[network.numTotalLayers][];
+
+      for (int n = 0; n < network.numTotalLayers; n++)
+      {
+         acts[n] = new float[network.numActs[n]];
+         thetas[n] = new float[network.numActs[n]];
+         psis[n] = new float[network.numActs[n]];
+         if (n >= Network.HIDDENS_ONE_LOC)
+         {
+            weights[n] = new float[network.weights[n].length];
+         }
+      }
+
+      inputs = new double[network.numActs[Network.INPUTS_LOC]];
+      layerThetas = new double[network.maxTotalNodes];
+      layerActs = new double[network.maxTotalNodes];
+   } //public FloatNetwork(Network network, boolean doubleAccumulation)
+
+   /**
+    * Rounds the weights of the network into the float weights
+    */
+   public void loadWeights()
+   {
+      for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+      {
+         double[] source = network.weights[n];
+         float[] layerWeights = weights[n];
+         for (int w = 0; w < layerWeights.length; w++)
+         {
+            layerWeights[w] = (float) source[w];
+         }
+      }
+   } //public void loadWeights()
+
+   /**
+    * Copies the float weights back into the weights of the network
+    */
+   public void storeWeights()
+   {
+      for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+      {
+         double[] destination = network.weights[n];
+         float[] layerWeights = weights[n];
+         for (int w = 0; w < layerWeights.length; w++)
+         {
+            destination[w] = layerWeights[w];
+         }
+      }
+   } //public void storeWeights()
+
+   /**
+    * Computes the weighted sum of one row of weights and the activations of the layer before it.
+    * The sum is split into DOT_LANES partial sums, which do not wait on each other, and these are added at the end.
+    */
+   private float dot(float[] layerWeights, int row, float[] prevActs, int width)
+   {
+      int end = width - width % DOT_LANES;
+      if (doubleAccumulation)
+      {
+         double sum0 = 0.0;
+         double sum1 = 0.0;
+         double sum2 = 0.0;
+         double sum3 = 0.0;
+         int j = 0;
+         for (; j < end; j += DOT_LANES)
+         {
+            sum0 += (double) layerWeights[row + j] * prevActs[j];
+            sum1 += (double) layerWeights[row + j + 1] * prevActs[j + 1];
+            sum2 += (double) layerWeights[row + j + 2] * prevActs[j + 2];
+            sum3 += (double) layerWeights[row + j + 3] * prevActs[j + 3];
+         }
+         for (; j < width; j++)                                               //remaining weights of the row
+         {
+            sum0 += (double) layerWeights[row + j] * prevActs[j];
+         }
+         return (float) ((sum0 + sum1) + (sum2 + sum3));
+      } // if (doubleAccumulation)
+
+      float sum0 = 0.0f;
+      float sum1 = 0.0f;
+      float sum2 = 0.0f;
+      float sum3 = 0.0f;
+      int j = 0;
+      for (; j < end; j += DOT_LANES)
+      {
+         sum0 += layerWeights[row + j] * prevActs[j];
+         sum1 += layerWeights[row + j + 1] * prevActs[j + 1];
+         sum2 += layerWeights[row + j + 2] * prevActs[j + 2];
+         sum3 += layerWeights[row + j + 3] * prevActs[j + 3];
+      }
+      for (; j < width; j++)                                                  //remaining weights of the row
+      {
+         sum0 += layerWeights[row + j] * prevActs[j];
+      }
+      return (sum0 + sum1) + (sum2 + sum3);
+   } //private float dot(float[] layerWeights, int row, float[] prevActs, int width)
+
+   /**
+    * Loads the inputs of test case k and runs them through every layer, leaving the weighted sums in thetas
+    * and the activations in acts
+    *
+    * @param k the test case
+    */
+   public void forwardPass(int k)
+   {
+      network.loadInputs(k, inputs, 0);
+      float[] inputActs = acts[Network.INPUTS_LOC];
+      for (int j = 0; j < inputs.length; j++)
+      {
+         inputActs[j] = (float) inputs[j];
+      }
+
+      for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+      {
+         float[] layerWeights = weights[n];
+         float[] prevActs = acts[n-1];
+         int width = network.numActs[n-1];
+         int count = network.numActs[n];
+
+         for (int i = 0; i < count; i++)
+         {
+            float theta = dot(layerWeights, i * width, prevActs, width);
+            thetas[n][i] = theta;
+            layerThetas[i] = theta;
+         }
+
+         network.activations[n].applyLayer(layerThetas, layerActs, 0, count);
+         for (int i = 0; i < count; i++)
+         {
+            acts[n][i] = (float) layerActs[i];
+         }
+      } // for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+   } //public void forwardPass(int k)
+
+   /**
+    * Computes the psis of the output layer for test case k after a forward pass, then backpropagates them through
+    * every connectivity layer, updating the float weights through the optimizer row by row as Network does
+    *
+    * @param k the test case
+    */
+   public void backPropagate(int k)
+   {
+      int outputLocation = network.outputLocation;
+      int[] numActs = network.numActs;
+      Optimizer optimizer = network.optimizer;
+      int outputs = numActs[outputLocation];
+
+      for (int j = 0; j < outputs; j++)                          //output psis are computed in double
+      {
+         layerThetas[j] = thetas[outputLocation][j];
+         layerActs[j] = acts[outputLocation][j];
+      }
+      network.activations[outputLocation].outputPsis(layerThetas, layerActs, network.outputDataset[k], layerThetas,
+                                                     outputs);
+      for (int j = 0; j < outputs; j++)
+      {
+         psis[outputLocation][j] = flush(layerThetas[j]);
+      }
+      optimizer.beginStep();
+
+      for (int n = outputLocation-1; n >= Network.HIDDENS_ONE_LOC; n--)
+      {
+         float[] layerWeights = weights[n+1];
+         float[] layerActs = acts[n];
+         float[] omegas = psis[n];
+         int width = numActs[n];
+
+         Arrays.fill(omegas, 0, width, 0.0f);
+         for (int m = 0; m < numActs[n+1]; m++)
+         {
+            int row = m * width;
+            float psi = psis[n+1][m];
+            for (int j = 0; j < width; j++)
+            {
+               omegas[j] += psi * layerWeights[row + j];
+            }
+            optimizer.updateRow(n+1, layerWeights, row, layerActs, psi, width);
+         } // for (int m = 0; m < numActs[n+1]; m++)
+
+         Activation activation = network.activations[n];
+         for (int j = 0; j < width; j++)
+         {
+            psis[n][j] = flush(omegas[j] * activation.derivative(thetas[n][j], acts[n][j]));
+         }
+      } // for (int n = outputLocation-1; n >= Network.HIDDENS_ONE_LOC; n--)
+
+      int n = Network.HIDDENS_ONE_LOC;
+      float[] layerWeights = weights[n];
+      float[] inputActs = acts[n-1];
+      int width = numActs[n-1];
+
+      for (int j = 0; j < numActs[n]; j++)
+      {
+         optimizer.updateRow(n, layerWeights, j * width, inputActs, psis[n][j], width);
+      }
+   } //public void backPropagate(int k)
+
+   /**
+    * Rounds a psi to float, flushing it to zero if it is smaller than FLUSH_LIMIT
+    */
+   private static float flush(double psi)
+   {
+      return (Math.abs(psi) < FLUSH_LIMIT) ? 0.0f : (float) psi;
+   }
+
+   /**
+    * Trains the network online in single precision, with the same stopping rules, error modes, keep-alive
+    * messages, checkpoints and metrics as Network.trainNetwork, and stores the trained weights in the network
+    */
+   public void trainNetwork()
+   {
+      NetworkMetrics metrics = network.metrics;
+      int outputLocation = network.outputLocation;
+      int outputs = network.numActs[outputLocation];
+
+      loadWeights();
+      network.iterTracker = network.startIteration;
+      boolean trainingBool = false;
+      long startTime = System.currentTimeMillis();
+      System.out.println();
+
+      while (!trainingBool)
+      {
+         if (metrics != null)
+         {
+            metrics.startEpoch(network.optimizer.steps);
+         }
+
+         double error = 0.0;
+         for (int k = 0; k < network.numTestCases; k++)
+         {
+            long forwardStart = (metrics != null) ? System.nanoTime() : 0L;
+            forwardPass(k);
+            long backwardStart = (metrics != null) ? System.nanoTime() : 0L;
+            backPropagate(k);
+            long backwardEnd = (metrics != null) ? System.nanoTime() : 0L;
+
+            if (network.errorMode == Network.EXACT_ERROR)
+            {
+               forwardPass(k);
+            }
+
+            if (metrics != null)
+            {
+               metrics.addForward(backwardStart - forwardStart + System.nanoTime() - backwardEnd);
+               metrics.addBackward(backwardEnd - backwardStart);
+            }
+
+            for (int j = 0; j < outputs; j++)
+            {
+               network.finalOutputs[k][j] = acts[outputLocation][j];
+               double diff = network.outputDataset[k][j] - acts[outputLocation][j];
+               error += 0.5 * diff * diff;
+            }
+         } // for (int k = 0; k < network.numTestCases; k++)
+
+         network.iterTracker++;
+         network.tempError = error;
+         network.errorTracker = error / (double) network.numTestCases;
+
+         if (network.errorMode == Network.ESTIMATED_ERROR && network.evalInterval > 0 &&
+             network.iterTracker % network.evalInterval == 0)
+         {
+            network.errorTracker = evaluateError();
+         }
+
+         trainingBool = ((network.errorTracker < network.errorThresh) || (network.iterTracker >= network.maxIter));
+
+         if (metrics != null)
+         {
+            metrics.endEpoch(network.iterTracker, network.errorTracker, network.numTestCases,
+                             network.optimizer.steps, countWeights());
+         }
+
+         if (network.keepAliveTracker != 0 && network.iterTracker % network.keepAliveTracker == 0)
+         {
+            System.out.printf("Iteration %d, Error = %f\n", network.iterTracker, network.errorTracker);
+         }
+
+         if (network.checkpointInterval > 0 && network.iterTracker % network.checkpointInterval == 0)
+         {
+            storeWeights();
+         }
+         network.checkpointIfDue();
+      } // while (!trainingBool)
+
+      network.finishCheckpoints();
+      storeWeights();
+      network.elapsed = System.currentTimeMillis() - startTime;
+   } //public void trainNetwork()
+
+   /**
+    * Runs every test case through the float weights and calculates the average error, leaving the outputs in
+    * finalOutputs
+    *
+    * @return the error of the current float weights
+    */
+   public double evaluateError()
+   {
+      long runStart = (network.metrics != null) ? System.nanoTime() : 0L;
+      runCases();
+      if (network.metrics != null)
+      {
+         network.metrics.addRun(network.numTestCases, System.nanoTime() - runStart);
+      }
+
+      double error = 0.0;
+      for (int k = 0; k < network.numTestCases; k++)
+      {
+         for (int j = 0; j < network.numActs[network.outputLocation]; j++)
+         {
+            double diff = network.outputDataset[k][j] - network.finalOutputs[k][j];
+            error += 0.5 * diff * diff;
+         }
+      }
+      return error / (double) network.numTestCases;
+   } //public double evaluateError()
+
+   /**
+    * Runs every test case through the weights of the network in single precision, filling finalOutputs
+    */
+   public void runNetwork()
+   {
+      loadWeights();
+      runCases();
+   }
+
+   /**
+    * Runs every test case through the float weights as they are, filling finalOutputs
+    */
+   private void runCases()
+   {
+      int outputLocation = network.outputLocation;
+      for (int k = 0; k < network.numTestCases; k++)
+      {
+         forwardPass(k);
+         for (int j = 0; j < network.numActs[outputLocation]; j++)
+         {
+            network.finalOutputs[k][j] = acts[outputLocation][j];
+         }
+      }
+   } //private void runCases()
+
+   /**
+    * Gives the number of weights in every connectivity layer
+    */
+   private long countWeights()
+   {
+      long count = 0L;
+      for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+      {
+         count += weights[n].length;
+      }
+      return count;
+   }
+} //public class FloatNetwork
@@ -0,0 +1,377 @@
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class streams a directory of BMP images into a network without writing any files in between.
+ * A pool of decode threads reads each image with its own BMP2OneByte, scales its gray levels to activations and
+ * puts it on a bounded queue. The calling thread takes the images off the queue as they arrive, either copying them
+ * into the input dataset or running them through the network a block at a time, so decoding and computing overlap.
+ * When the queue is full the decoders wait, which keeps at most queueCapacity decoded images in memory.
+ * Activations are in the order of the .bin files BMP2OneByte writes, bottom row first.
+ *
+ * Images are taken in name order. When the expected outputs come from the images, the first digit of each name
+ * is its class, counted from 1, so f32.bmp is class 3 (the third finger) and its expected output is one-hot.
+ *
+ * Usage: java ImagePipeline [<control file> [<image directory>]]
+ *
+ * Methods:
+ * public ImagePipeline(String directory, int numThreads, int queueCapacity, double scale)
+ * public int getImageCount()
+ * public static double[] oneHot(String name, int classes)
+ * public void loadDataset(Network network)
+ * public void runInference(Network network)
+ * public void printThroughput(String stage)
+ * public static void main(String[] args)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class ImagePipeline
+{
+   public static final double DEFAULT_SCALE = 1.0 / 255.0;   // gray levels 0 to 255 become activations 0 to 1
+   public static final int DEFAULT_QUEUE_CAPACITY = 8;
+   public static final String DEFAULT_DIRECTORY = "Converted Images";
+   public static final double NANOS_PER_SECOND = 1.0e9;
+   public static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+   public final String directory;
+   public final File[] images;            // the BMP files of the directory in name order
+   public final int numThreads;
+   public final int queueCapacity;
+   public final double scale;
+
+   public int imagesProcessed;            // images taken off the queue by the last run
+   public long bytesRead;                 // size of the BMP files of the last run
+   public long elapsedNanos;              // wall clock time of the last run
+
+   /**
+    * One decoded image, or the error that stopped it from being decoded
+    */
+   private static final class DecodedImage
+   {
+      int index;                          // position of the image in name order
+      double[] activations;
+      long fileSize;
+      Exception error;
+   }
+
+   /**
+    * Creates a pipeline over the BMP files of a directory
+    *
+    * @param directory directory holding the .bmp files
+    * @param numThreads number of decode threads
+    * @param queueCapacity most decoded images waiting for the compute stage
+    * @param scale activation of each gray level
+    */
+   public ImagePipeline(String directory, int numThreads, int queueCapacity, double scale)
+   {
+      this.directory = directory;
+      this.numThreads = Math.max(1, numThreads);
+      this.queueCapacity = Math.max(1, queueCapacity);
+      this.scale = scale;
+
+      File[] files = new File(directory).listFiles(
+            (dir, name) -> name.toLowerCase().endsWith(BmpPipeline.BMP_EXTENSION));
+      if (files == null)
+      {
+         throw new IllegalArgumentException("Cannot read the directory " + directory);
+      }
+      Arrays.sort(files);
+      images = files;
+   } //public ImagePipeline(String directory, int numThreads, int queueCapacity, double scale)
+
+   /**
+    * Gives the number of images in the directory
+    *
+    * @return the number of .bmp files
+    */
+   public int getImageCount()
+   {
+      return images.length;
+   }
+
+   /**
+    * Gives the expected outputs of an image from its name
+    *
+    * @param name the file name
+    * @param classes number of output nodes
+    * @return one-hot outputs with the class given by the first digit of the name
+    */
+   public static double[] oneHot(String name, int classes)
+   {
+      for (int c = 0; c < name.length(); c++)
+      {
+         if (Character.isDigit(name.charAt(c)))
+         {
+            int label = name.charAt(c) - '0';
+            if (label < 1 || label > classes)
+            {
+               throw new IllegalArgumentException("Class " + label + " of " + name + " is not between 1 and " +
+                                                  classes);
+            }
+            double[] outputs = new double[classes];
+            outputs[label - 1] = 1.0;
+            return outputs;
+         }
+      } // for (int c = 0; c < name.length(); c++)
+      throw new IllegalArgumentException("No class digit in the image name " + name);
+   } //public static double[] oneHot(String name, int classes)
+
+   /**
+    * Decodes the first numTestCases images into the input dataset of the network. When the network is training,
+    * the expected outputs are set from the image names.
+    *
+    * @param network the network, with its arrays allocated
+    */
+   public void loadDataset(Network network)
+   {
+      int count = checkCount(network);
+      ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(numThreads, count)));
+      BlockingQueue<DecodedImage> queue = new ArrayBlockingQueue<DecodedImage>(queueCapacity);
+      int outputs = network.numActs[network.outputLocation];
+
+      long startTime = System.nanoTime();
+      start(network, count, pool, queue);
+      try
+      {
+         for (int i = 0; i < count; i++)
+         {
+            DecodedImage image = take(queue);
+            System.arraycopy(image.activations, 0, network.inputDataset[image.index], 0, image.activations.length);
+            if (network.training)
+            {
+               double[] expected = oneHot(images[image.index].getName(), outputs);
+               System.arraycopy(expected, 0, network.outputDataset[image.index], 0, outputs);
+            }
+         }
+      } //try
+      finally
+      {
+         pool.shutdownNow();
+      }
+      elapsedNanos = System.nanoTime() - startTime;
+   } //public void loadDataset(Network network)
+
+   /**
+    * Runs the first numTestCases images through the network, filling finalOutputs. The images are gathered into
+    * blocks of inferenceBatchSize as they arrive and each block is run through every layer together, which gives
+    * the same outputs as runNetwork.
+    *
+    * @param network the network, with its arrays allocated and its weights set
+    */
+   public void runInference(Network network)
+   {
+      int count = checkCount(network);
+      int blockSize = Math.max(1, Math.min(network.inferenceBatchSize, count));
+      int width = network.numActs[Network.INPUTS_LOC];
+      int outputs = network.numActs[network.outputLocation];
+      int[] indexes = new int[blockSize];
+
+      network.allocateBatchActs(blockSize);
+      ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(numThreads, count)));
+      BlockingQueue<DecodedImage> queue = new ArrayBlockingQueue<DecodedImage>(queueCapacity);
+
+      long startTime = System.nanoTime();
+      start(network, count, pool, queue);
+      try
+      {
+         for (int first = 0; first < count; first += blockSize)
+         {
+            int block = Math.min(blockSize, count - first);
+            for (int b = 0; b < block; b++)
+            {
+               DecodedImage image = take(queue);
+               indexes[b] = image.index;
+               System.arraycopy(image.activations, 0, network.batchActs[Network.INPUTS_LOC], b * width, width);
+            }
+
+            for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+            {
+               network.batchForwardLayer(n, block);
+            }
+
+            for (int b = 0; b < block; b++)
+            {
+               System.arraycopy(network.batchActs[network.outputLocation], b * outputs,
+                                network.finalOutputs[indexes[b]], 0, outputs);
+            }
+         } // for (int first = 0; first < count; first += blockSize)
+      } //try
+      finally
+      {
+         pool.shutdownNow();
+      }
+      elapsedNanos = System.nanoTime() - startTime;
+
+      if (network.metrics != null)
+      {
+         network.metrics.addRun(count, elapsedNanos);
+      }
+   } //public void runInference(Network network)
+
+   /**
+    * Checks there are enough images for the test cases of the network
+    *
+    * @return the number of images to process
+    */
+   private int checkCount(Network network)
+   {
+      if (images.length < network.numTestCases)
+      {
+         throw new IllegalArgumentException(directory + " has " + images.length + " images but the network has " +
+                                            network.numTestCases + " test cases");
+      }
+      return network.numTestCases;
+   } //private int checkCount(Network network)
+
+   /**
+    * Submits the decoding of the first count images to the pool. Each decoder puts its image on the queue, waiting
+    * while the queue is full.
+    */
+   private void start(Network network, int count, ExecutorService pool, BlockingQueue<DecodedImage> queue)
+   {
+      int width = network.numActs[Network.INPUTS_LOC];
+      imagesProcessed = 0;
+      bytesRead = 0L;
+
+      for (int i = 0; i < count; i++)
+      {
+         final int index = i;
+         pool.execute(() ->
+         {
+            DecodedImage image = new DecodedImage();
+            image.index = index;
+            try
+            {
+               BMP2OneByte decoder = new BMP2OneByte();
+               decoder.readImage(images[index].getPath());
+               byte[] gray = decoder.grayImage;
+               if (gray.length != width)
+               {
+                  throw new IllegalArgumentException(images[index].getName() + " has " + gray.length +
+                                                     " pels but the network has " + width + " inputs");
+               }
+
+               image.activations = new double[width];
+               for (int p = 0; p < width; p++)
+               {
+                  image.activations[p] = (gray[p] & 0xFF) * scale;
+               }
+               image.fileSize = images[index].length();
+            } //try
+            catch (Exception e)
+            {
+               image.error = e;
+            }
+
+            try
+            {
+               queue.put(image);
+            }
+            catch (InterruptedException e)
+            {
+               Thread.currentThread().interrupt();            //the compute stage gave up, so the image is dropped
+            }
+         });
+      } // for (int i = 0; i < count; i++)
+   } //private void start(Network network, int count, ExecutorService pool, BlockingQueue<DecodedImage> queue)
+
+   /**
+    * Takes the next decoded image off the queue, waiting for one if needed
+    *
+    * @return the image
+    */
+   private DecodedImage take(BlockingQueue<DecodedImage> queue)
+   {
+      DecodedImage image;
+      try
+      {
+         image = queue.take();
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException(e);
+      }
+
+      if (image.error != null)
+      {
+         throw new RuntimeException("Could not decode " + images[image.index].getPath(), image.error);
+      }
+      imagesProcessed++;
+      bytesRead += image.fileSize;
+      return image;
+   } //private DecodedImage take(BlockingQueue<DecodedImage> queue)
+
+   /**
+    * Prints the images and megabytes of BMP data processed per second by the last run
+    *
+    * @param stage what the run did, printed first
+    */
+   public void printThroughput(String stage)
+   {
+      double seconds = elapsedNanos / NANOS_PER_SECOND;
+      System.out.printf("%s: %d images (%d bytes) from %s with %d decode threads in %.1f ms (%.1f images/s, " +
+                        "%.2f MB/s)\n", stage, imagesProcessed, bytesRead, directory, numThreads, seconds * 1000.0,
+                        imagesProcessed / seconds, bytesRead / BYTES_PER_MB / seconds);
+   } //public void printThroughput(String stage)
+
+   /**
+    * Runs the images of a directory through a network set up by a control file and prints the class each image
+    * is given. The weights are set by the control file and no dataset is loaded.
+    *
+    * @param args optional control file and image directory, which defaults to the input file of the control file
+    *             if that is a directory and to DEFAULT_DIRECTORY otherwise
+    */
+   public static void main(String[] args)
+   {
+      Network network = new Network();
+      network.setConfigParams(args.length > 0 ? args[0] : Network.DEFAULT_CONFIG);
+
+      String imageDirectory = DEFAULT_DIRECTORY;
+      if (args.length > 1)
+      {
+         imageDirectory = args[1];
+      }
+      else if (new File(network.inputFile).isDirectory())
+      {
+         imageDirectory = network.inputFile;
+      }
+
+      network.allocateArrays();
+      network.initializeWeights();
+      network.createMetrics();
+
+      ImagePipeline pipeline = new ImagePipeline(imageDirectory, network.numThreads, DEFAULT_QUEUE_CAPACITY,
+                                                 network.imageScale);
+      pipeline.runInference(network);
+
+      int outputs = network.numActs[network.outputLocation];
+      for (int k = 0; k < network.numTestCases; k++)
+      {
+         int best = 0;
+         for (int j = 1; j < outputs; j++)
+         {
+            if (network.finalOutputs[k][j] > network.finalOutputs[k][best])
+            {
+               best = j;
+            }
+         }
+         System.out.printf("%s: class %d %s\n", pipeline.images[k].getName(), best + 1,
+                           Arrays.toString(network.finalOutputs[k]));
+      } // for (int k = 0; k < network.numTestCases; k++)
+
+      System.out.println();
+      pipeline.printThroughput("Inference");
+
+      if (network.metrics != null)
+      {
+         network.metrics.printSummary();
+         network.metrics.close();
+      }
+   } //public static void main(String[] args)
+} //public class ImagePipeline
@@ -0,0 +1,275 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * This class serves a trained network to other processes on the same machine over HTTP on the loopback address.
+ * The network is set up from its control file and its weights are loaded once through loadWeights. Every request is
+ * handled on its own virtual thread, which submits its sample to a MicroBatcher and blocks until the batch it
+ * joined has run, so concurrent requests share forward passes.
+ *    POST /predict   - the body is the input activations separated by spaces, commas or line breaks, and the
+ *                      response is the output activations separated by spaces
+ *    GET /info       - the number of inputs and outputs
+ *    GET /stats      - the requests served, the batches they were run in and their latency percentiles
+ * Malformed samples get a 400 response, and a sample whose batch has not run within PREDICT_TIMEOUT_MILLIS gets
+ * a 503 response.
+ *
+ * Usage: java InferenceServer <control file> [-port 8080] [-batch 32] [-waitMicros 500]
+ *
+ * Methods:
+ * public InferenceServer(Network network, int port, int maxBatchSize, long maxWaitMicros)
+ * public void start()
+ * public void stop()
+ * public String getAddress()
+ * public String getStats()
+ * public static double[] parseValues(String text)
+ * public static void main(String[] args)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public final class InferenceServer
+{
+   public static final int DEFAULT_PORT = 8080;
+   public static final int DEFAULT_BATCH_SIZE = 32;
+   public static final long DEFAULT_WAIT_MICROS = 500;
+   public static final long NANOS_PER_MICRO = 1000L;
+   public static final int BACKLOG = 1024;                  // connections the socket queues before refusing more
+   public static final long PREDICT_TIMEOUT_MILLIS = 5000;  // longest a request waits for its batch to run
+   public static final int HTTP_OK = 200;
+   public static final int HTTP_BAD_REQUEST = 400;
+   public static final int HTTP_BAD_METHOD = 405;
+   public static final int HTTP_ERROR = 500;
+   public static final int HTTP_UNAVAILABLE = 503;
+
+   public final Network network;
+   public final MicroBatcher batcher;
+   public final HttpServer server;
+   private final ExecutorService handlers = Executors.newVirtualThreadPerTaskExecutor();
+
+   static
+   {
+      //without TCP_NODELAY each small response waits on the client's delayed ACK, about 40 ms a request
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+   }
+
+   /**
+    * Creates a server for a network whose weights are already loaded, bound to the loopback address
+    *
+    * @param network the network
+    * @param port the port, or 0 for any free port
+    * @param maxBatchSize most requests run through the network together
+    * @param maxWaitMicros longest the first request of a batch waits for others to join it
+    * @throws IOException if the port cannot be bound
+    */
+   public InferenceServer(Network network, int port, int maxBatchSize, long maxWaitMicros) throws IOException
+   {
+      this.network = network;
+      batcher = new MicroBatcher(network, maxBatchSize, maxWaitMicros * NANOS_PER_MICRO);
+      server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+      server.setExecutor(handlers);
+      server.createContext("/predict", this::handlePredict);
+      server.createContext("/info", exchange -> respond(exchange, HTTP_OK,
+            network.numActs[Network.INPUTS_LOC] + " " + network.numActs[network.outputLocation] + "\n"));
+      server.createContext("/stats", exchange -> respond(exchange, HTTP_OK, getStats()));
+   } //public InferenceServer(Network network, int port, int maxBatchSize, long maxWaitMicros)
+
+   /**
+    * Starts the batching thread and begins accepting requests
+    */
+   public void start()
+   {
+      batcher.start();
+      server.start();
+   }
+
+   /**
+    * Stops accepting requests, then stops the batching thread and the handler threads
+    */
+   public void stop()
+   {
+      server.stop(0);
+      batcher.close();
+      handlers.shutdown();
+   }
+
+   /**
+    * Gives the host and port the server is bound to
+    *
+    * @return host:port
+    */
+   public String getAddress()
+   {
+      InetSocketAddress address = server.getAddress();
+      return address.getHostString() + ":" + address.getPort();
+   }
+
+   /**
+    * Scores the sample in the body of a POST request
+    */
+   private void handlePredict(HttpExchange exchange) throws IOException
+   {
+      if (!"POST".equals(exchange.getRequestMethod()))
+      {
+         respond(exchange, HTTP_BAD_METHOD, "Use POST\n");
+         return;
+      }
+
+      double[] outputs;
+      CompletableFuture<double[]> result = null;
+      try (InputStream in = exchange.getRequestBody())
+      {
+         result = batcher.submit(parseValues(new String(in.readAllBytes(), StandardCharsets.US_ASCII)));
+         outputs = result.get(PREDICT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      }
+      catch (IllegalArgumentException e)
+      {
+         respond(exchange, HTTP_BAD_REQUEST, e.getMessage() + "\n");
+         return;
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         respond(exchange, HTTP_ERROR, "Interrupted\n");
+         return;
+      }
+      catch (TimeoutException e)
+      {
+         result.cancel(false);                                 //the batch no longer needs to answer it
+         respond(exchange, HTTP_UNAVAILABLE, "Timed out waiting for a batch\n");
+         return;
+      }
+      catch (ExecutionException | IllegalStateException e)
+      {
+         respond(exchange, HTTP_ERROR, e.getMessage() + "\n");
+         return;
+      }
+
+      StringBuilder body = new StringBuilder();
+      for (int k = 0; k < outputs.length; k++)
+      {
+         body.append(k > 0 ? " " : "").append(outputs[k]);
+      }
+      respond(exchange, HTTP_OK, body.append('\n').toString());
+   } //private void handlePredict(HttpExchange exchange)
+
+   /**
+    * Sends a plain text response and closes the exchange
+    */
+   private static void respond(HttpExchange exchange, int status, String text) throws IOException
+   {
+      byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+      exchange.getResponseHeaders().set("Content-Type", "text/plain");
+      exchange.sendResponseHeaders(status, bytes.length);
+      try (OutputStream out = exchange.getResponseBody())
+      {
+         out.write(bytes);
+      }
+   } //private static void respond(HttpExchange exchange, int status, String text)
+
+   /**
+    * Gives the requests served, the batches they were run in and the latency from submitting each request to its
+    * batch finishing, which leaves out parsing and HTTP
+    *
+    * @return the statistics as text
+    */
+   public String getStats()
+   {
+      LatencyHistogram latency = batcher.getLatency();
+      return String.format("requests %d, batches %d, mean batch %.2f, batch latency mean %.1f us, p50 %.1f us, " +
+                           "p99 %.1f us, p99.9 %.1f us, max %.1f us\n", batcher.getSamples(), batcher.getBatches(),
+                           batcher.getMeanBatchSize(), latency.getMeanNanos() / NANOS_PER_MICRO,
+                           latency.getPercentileNanos(50.0) / (double) NANOS_PER_MICRO,
+                           latency.getPercentileNanos(99.0) / (double) NANOS_PER_MICRO,
+                           latency.getPercentileNanos(99.9) / (double) NANOS_PER_MICRO,
+                           latency.getMaxNanos() / (double) NANOS_PER_MICRO);
+   } //public String getStats()
+
+   /**
+    * Parses values separated by spaces, commas or line breaks
+    *
+    * @param text the values
+    * @return the values in order
+    * @throws IllegalArgumentException if a value is not a number
+    */
+   public static double[] parseValues(String text)
+   {
+      String trimmed = text.trim();
+      if (trimmed.isEmpty())
+      {
+         return new double[0];
+      }
+
+      String[] fields = trimmed.split("[\\s,]+");
+      double[] values = new double[fields.length];
+      for (int i = 0; i < fields.length; i++)
+      {
+         values[i] = Double.parseDouble(fields[i]);            //NumberFormatException is an IllegalArgumentException
+      }
+      return values;
+   } //public static double[] parseValues(String text)
+
+   /**
+    * Sets up the network from the control file, loads its weights and serves it until the process is stopped
+    */
+   public static void main(String[] args) throws IOException
+   {
+      if (args.length == 0)
+      {
+         System.out.println("Usage: java InferenceServer <control file> [-port 8080] [-batch 32] [-waitMicros 500]");
+         return;
+      }
+
+      int port = DEFAULT_PORT;
+      int batchSize = DEFAULT_BATCH_SIZE;
+      long waitMicros = DEFAULT_WAIT_MICROS;
+      for (int a = 1; a + 1 < args.length; a += 2)
+      {
+         switch (args[a])
+         {
+            case "-port":
+               port = Integer.parseInt(args[a + 1]);
+               break;
+            case "-batch":
+               batchSize = Integer.parseInt(args[a + 1]);
+               break;
+            case "-waitMicros":
+               waitMicros = Long.parseLong(args[a + 1]);
+               break;
+            default:
+               throw new IllegalArgumentException("Unknown option " + args[a]);
+         }
+      } // for (int a = 1; a + 1 < args.length; a += 2)
+
+      Network network = new Network();
+      network.setConfigParams(args[0]);
+      network.training = false;
+      network.numTestCases = 0;                                //the server keeps no dataset
+      network.allocateArrays();
+      network.loadWeights();
+
+      InferenceServer inferenceServer = new InferenceServer(network, port, batchSize, waitMicros);
+      Runtime.getRuntime().addShutdownHook(new Thread(() ->
+      {
+         inferenceServer.stop();
+         System.out.print(inferenceServer.getStats());
+      }));
+      inferenceServer.start();
+
+      System.out.println("Serving " + network.numActs[Network.INPUTS_LOC] + " inputs and " +
+                         network.numActs[network.outputLocation] + " outputs on http://" +
+                         inferenceServer.getAddress() + " with batches of up to " + batchSize + " waiting up to " +
+                         waitMicros + " us");
+   } //public static void main(String[] args)
+} //public final class InferenceServer
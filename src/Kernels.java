@@ -0,0 +1,95 @@
+/**
+ * This interface is the set of inner loops the network spends its time in: the dot product of a weight row with
+ * the activations of the layer before it, the omega accumulation and the weight update. The scalar kernels are
+ * the plain loops and give exactly the results of the loops they replaced. The vector kernels use the incubating
+ * Vector API (jdk.incubator.vector), which must be added when compiling and running them:
+ *    javac --add-modules jdk.incubator.vector -d <classes> vector/VectorKernels.java
+ *    java --add-modules jdk.incubator.vector -cp <classes> Network <control file>
+ * They are loaded by name, so the rest of the network compiles without the module, and forName falls back to the
+ * scalar kernels when they cannot be loaded. The vector dot product adds its terms in a different order, so its
+ * results may differ in the last bits. The element-wise kernels round exactly like the scalar ones.
+ *
+ * Methods:
+ * public double dot(double[] x, int xOffset, double[] y, int yOffset, int width)
+ * public void addScaled(double[] y, int yOffset, double[] x, int xOffset, double scale, int width)
+ * public void addProduct(double[] y, int yOffset, double[] x, double a, double b, int width)
+ * public String getName()
+ * public static Kernels forName(String name)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public interface Kernels
+{
+   /**
+    * Computes the dot product of width values of two arrays
+    *
+    * @param x the first array, such as a layer of weights
+    * @param xOffset index of the first value of x, such as the start of a weight row
+    * @param y the second array, such as the activations of the layer before
+    * @param yOffset index of the first value of y
+    * @param width number of values
+    * @return the sum of x[xOffset + j] * y[yOffset + j]
+    */
+   double dot(double[] x, int xOffset, double[] y, int yOffset, int width);
+
+   /**
+    * Adds scale times width values of x to y, y[yOffset + j] += scale * x[xOffset + j], as in the omega
+    * accumulation of backpropagation
+    *
+    * @param y the array added to
+    * @param yOffset index of the first value of y
+    * @param x the array scaled
+    * @param xOffset index of the first value of x
+    * @param scale the factor
+    * @param width number of values
+    */
+   void addScaled(double[] y, int yOffset, double[] x, int xOffset, double scale, int width);
+
+   /**
+    * Adds a * x[j] * b to y[yOffset + j] for the first width values of x, in that order of rounding, as in the
+    * gradient descent update of a weight row, where a is the learning rate, x the activations and b the psi
+    *
+    * @param y the array added to
+    * @param yOffset index of the first value of y
+    * @param x the array scaled, starting at 0
+    * @param a the first factor
+    * @param b the second factor
+    * @param width number of values
+    */
+   void addProduct(double[] y, int yOffset, double[] x, double a, double b, int width);
+
+   /**
+    * Name used for these kernels in the control file
+    */
+   String getName();
+
+   /**
+    * Creates the kernels with the given control file name, using the scalar kernels if the vector ones are asked
+    * for but cannot be loaded
+    *
+    * @param name scalar or vector
+    * @return the kernels
+    */
+   static Kernels forName(String name)
+   {
+      switch (name)
+      {
+         case ScalarKernels.NAME:
+            return new ScalarKernels();
+         case ScalarKernels.VECTOR_NAME:
+            try
+            {
+               return (Kernels) Class.forName("VectorKernels").getDeclaredConstructor().newInstance();
+            }
+            catch (ReflectiveOperationException | LinkageError e)
+            {
+               System.out.println("Vector kernels are not available (" + e + "), using the scalar kernels. " +
+                                  "Compile vector/VectorKernels.java and run with --add-modules jdk.incubator.vector");
+               return new ScalarKernels();
+            }
+         default:
+            throw new IllegalArgumentException("Unknown kernels " + name);
+      }
+   } //static Kernels forName(String name)
+} //public interface Kernels
@@ -0,0 +1,150 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class is a histogram of latencies in nanoseconds that any number of threads can record into without locking
+ * or allocating. Latencies below SUB_BUCKETS nanoseconds each get their own bucket. Above that, every power of two
+ * is split into SUB_BUCKETS buckets of equal width, so a percentile is never off by more than 1 part in SUB_BUCKETS
+ * of the latency, from nanoseconds up to the longest a long can hold.
+ * A percentile is read back as the middle of the bucket it falls in.
+ *
+ * Methods:
+ * public void record(long nanos)
+ * public long getCount()
+ * public double getMeanNanos()
+ * public long getMaxNanos()
+ * public long getPercentileNanos(double percentile)
+ * public void reset()
+ * public void printSummary(String name)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class LatencyHistogram
+{
+   public static final int SUB_BUCKET_BITS = 6;
+   public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;  // buckets per power of two
+   public static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+   public static final double NANOS_PER_MICRO = 1.0e3;
+
+   private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+   private final AtomicLong count = new AtomicLong();
+   private final AtomicLong total = new AtomicLong();     // sum of every latency, for the mean
+   private final AtomicLong max = new AtomicLong();
+
+   /**
+    * Records one latency
+    *
+    * @param nanos the latency in nanoseconds, negative values are counted as 0
+    */
+   public void record(long nanos)
+   {
+      long value = Math.max(nanos, 0L);
+      counts.incrementAndGet(bucketOf(value));
+      count.incrementAndGet();
+      total.addAndGet(value);
+      max.accumulateAndGet(value, Math::max);
+   }
+
+   /**
+    * Gives the bucket a latency falls in. Values of SUB_BUCKETS and above are shifted down to SUB_BUCKET_BITS + 1
+    * significant bits, whose top bit is dropped to give the position within their power of two.
+    */
+   private static int bucketOf(long value)
+   {
+      if (value < SUB_BUCKETS)
+      {
+         return (int) value;
+      }
+      int shift = Long.SIZE - SUB_BUCKET_BITS - 1 - Long.numberOfLeadingZeros(value);
+      return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+   }
+
+   /**
+    * Gives the middle of the latencies that fall in a bucket
+    */
+   private static long middleOf(int bucket)
+   {
+      if (bucket < SUB_BUCKETS)
+      {
+         return bucket;
+      }
+      int shift = bucket / SUB_BUCKETS - 1;
+      long lowest = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+      return lowest + ((1L << shift) >>> 1);
+   }
+
+   public long getCount()
+   {
+      return count.get();
+   }
+
+   public double getMeanNanos()
+   {
+      long recorded = count.get();
+      return (recorded == 0L) ? 0.0 : total.get() / (double) recorded;
+   }
+
+   public long getMaxNanos()
+   {
+      return max.get();
+   }
+
+   /**
+    * Gives the latency below which the given percentage of the recorded latencies fall
+    *
+    * @param percentile the percentage, such as 50.0, 99.0 or 99.9
+    * @return the latency in nanoseconds, or 0 if nothing has been recorded
+    */
+   public long getPercentileNanos(double percentile)
+   {
+      long recorded = 0L;
+      for (int bucket = 0; bucket < BUCKETS; bucket++)
+      {
+         recorded += counts.get(bucket);
+      }
+      if (recorded == 0L)
+      {
+         return 0L;
+      }
+
+      long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * recorded));
+      long seen = 0L;
+      for (int bucket = 0; bucket < BUCKETS; bucket++)
+      {
+         seen += counts.get(bucket);
+         if (seen >= rank)
+         {
+            return Math.min(middleOf(bucket), max.get());
+         }
+      }
+      return max.get();
+   } //public long getPercentileNanos(double percentile)
+
+   /**
+    * Forgets every recorded latency. Latencies recorded while resetting may be partly kept.
+    */
+   public void reset()
+   {
+      for (int bucket = 0; bucket < BUCKETS; bucket++)
+      {
+         counts.set(bucket, 0L);
+      }
+      count.set(0L);
+      total.set(0L);
+      max.set(0L);
+   }
+
+   /**
+    * Prints the count, mean, percentiles and maximum in microseconds
+    *
+    * @param name what was timed
+    */
+   public void printSummary(String name)
+   {
+      System.out.printf("%s latency: %d calls, mean %.2f us, p50 %.2f us, p99 %.2f us, p99.9 %.2f us, " +
+                        "max %.2f us\n", name, getCount(), getMeanNanos() / NANOS_PER_MICRO,
+                        getPercentileNanos(50.0) / NANOS_PER_MICRO, getPercentileNanos(99.0) / NANOS_PER_MICRO,
+                        getPercentileNanos(99.9) / NANOS_PER_MICRO, getMaxNanos() / NANOS_PER_MICRO);
+   }
+} //public class LatencyHistogram
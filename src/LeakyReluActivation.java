@@ -0,0 +1,45 @@
+/**
+ * This class is the leaky rectified linear activation, which passes negative weighted sums scaled by SLOPE
+ * so that nodes with negative sums still learn.
+ *
+ * Methods:
+ * public double apply(double theta)
+ * public double derivative(double theta, double activation)
+ * public String getName()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class LeakyReluActivation implements NodeActivation
+{
+   public static final String NAME = "leakyRelu";
+   public static final double SLOPE = 0.01;                // gradient for negative weighted sums
+
+   /**
+    * Leaky rectified linear calculation
+    *
+    * @param theta input into the rectifier
+    * @return theta if positive, SLOPE times theta otherwise
+    */
+   public double apply(double theta)
+   {
+      return (theta > 0.0) ? theta : SLOPE * theta;
+   }
+
+   /**
+    * Leaky rectified linear derivative calculation
+    *
+    * @param theta input into the rectifier
+    * @param activation output of the rectifier for theta
+    * @return 1 if theta is positive, SLOPE otherwise
+    */
+   public double derivative(double theta, double activation)
+   {
+      return (theta > 0.0) ? 1.0 : SLOPE;
+   }
+
+   public String getName()
+   {
+      return NAME;
+   }
+} //public class LeakyReluActivation
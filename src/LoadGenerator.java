@@ -0,0 +1,192 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is the load generator for InferenceServer. It asks the server for its number of inputs, then runs
+ * a number of clients on virtual threads, each sending one random sample after another, until the requests are
+ * used up. A warmup of the same kind runs first and is not counted. The throughput and the latency percentiles
+ * the clients saw are printed, followed by the statistics of the server, which show how requests were batched.
+ *
+ * Usage: java LoadGenerator [-url http://127.0.0.1:8080] [-clients 64] [-requests 20000] [-warmup 2000]
+ *
+ * Methods:
+ * public LoadGenerator(String url, int clients)
+ * public String get(String path)
+ * public void run(int requests, LatencyHistogram latency)
+ * public static void main(String[] args)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class LoadGenerator
+{
+   public static final String DEFAULT_URL = "http://127.0.0.1:" + InferenceServer.DEFAULT_PORT;
+   public static final int DEFAULT_CLIENTS = 64;
+   public static final int DEFAULT_REQUESTS = 20000;
+   public static final int DEFAULT_WARMUP = 2000;
+   public static final double NANOS_PER_SECOND = 1.0e9;
+
+   public final String url;
+   public final int clients;
+   public final HttpClient client;
+   public final AtomicLong failures = new AtomicLong();    // requests of the latest run without a 200 response
+   private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+   private int inputs;                    // number of input activations the server expects
+
+   /**
+    * Creates a load generator for the server at the given url
+    *
+    * @param url the url of the server, without a path
+    * @param clients number of clients sending requests at once
+    */
+   public LoadGenerator(String url, int clients)
+   {
+      this.url = url;
+      this.clients = clients;
+      client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(threads).build();
+   }
+
+   /**
+    * Sends a GET request and gives the body of the response
+    *
+    * @param path the path, such as /stats
+    * @return the body
+    */
+   public String get(String path)
+   {
+      try
+      {
+         HttpRequest request = HttpRequest.newBuilder(URI.create(url + path)).GET().build();
+         return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException(e);
+      }
+   } //public String get(String path)
+
+   /**
+    * Sends the given number of requests from every client together and records the latency of each.
+    * The failures are counted from zero for each run.
+    *
+    * @param requests number of requests sent in all
+    * @param latency receives the latency of each request
+    */
+   public void run(int requests, LatencyHistogram latency)
+   {
+      if (inputs == 0)
+      {
+         inputs = Integer.parseInt(get("/info").trim().split("\\s+")[0]);
+      }
+
+      failures.set(0L);
+      AtomicInteger remaining = new AtomicInteger(requests);
+      List<Future<?>> running = new ArrayList<Future<?>>();
+      for (int c = 0; c < clients; c++)
+      {
+         running.add(threads.submit(() ->
+         {
+            StringBuilder body = new StringBuilder();
+            while (remaining.getAndDecrement() > 0)
+            {
+               body.setLength(0);
+               for (int i = 0; i < inputs; i++)
+               {
+                  body.append(i > 0 ? " " : "").append(ThreadLocalRandom.current().nextDouble());
+               }
+               HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/predict"))
+                     .POST(HttpRequest.BodyPublishers.ofString(body.toString())).build();
+
+               long start = System.nanoTime();
+               HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+               latency.record(System.nanoTime() - start);
+               if (response.statusCode() != InferenceServer.HTTP_OK)
+               {
+                  failures.incrementAndGet();
+               }
+            } // while (remaining.getAndDecrement() > 0)
+            return null;
+         }));
+      } // for (int c = 0; c < clients; c++)
+
+      try
+      {
+         for (Future<?> future : running)
+         {
+            future.get();
+         }
+      } //try
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException(e);
+      }
+      catch (ExecutionException e)
+      {
+         throw new RuntimeException(e.getCause());
+      }
+   } //public void run(int requests, LatencyHistogram latency)
+
+   /**
+    * Parses the options, warms the server up, then measures it and prints the results
+    */
+   public static void main(String[] args)
+   {
+      String url = DEFAULT_URL;
+      int clients = DEFAULT_CLIENTS;
+      int requests = DEFAULT_REQUESTS;
+      int warmup = DEFAULT_WARMUP;
+      for (int a = 0; a + 1 < args.length; a += 2)
+      {
+         switch (args[a])
+         {
+            case "-url":
+               url = args[a + 1];
+               break;
+            case "-clients":
+               clients = Integer.parseInt(args[a + 1]);
+               break;
+            case "-requests":
+               requests = Integer.parseInt(args[a + 1]);
+               break;
+            case "-warmup":
+               warmup = Integer.parseInt(args[a + 1]);
+               break;
+            default:
+               throw new IllegalArgumentException("Unknown option " + args[a]);
+         }
+      } // for (int a = 0; a + 1 < args.length; a += 2)
+
+      LoadGenerator generator = new LoadGenerator(url, clients);
+      generator.run(warmup, new LatencyHistogram());
+      String before = generator.get("/stats");
+
+      LatencyHistogram latency = new LatencyHistogram();
+      long start = System.nanoTime();
+      generator.run(requests, latency);
+      double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+
+      System.out.printf("%d requests from %d clients in %.2f s: %.1f requests/s, %d failed\n", requests, clients,
+                        seconds, requests / seconds, generator.failures.get());
+      latency.printSummary("Client");
+      System.out.print("Server before: " + before);
+      System.out.print("Server after:  " + generator.get("/stats"));
+   } //public static void main(String[] args)
+} //public class LoadGenerator
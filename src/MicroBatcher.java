@@ -0,0 +1,251 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class gathers samples submitted by many threads into micro-batches and runs each batch through the network
+ * together. One batching thread takes the first waiting sample, then waits at most maxWaitNanos from when that
+ * sample was submitted for more, until the batch holds maxBatchSize samples. The batch is run a layer at a time by
+ * Network.batchForwardLayer, so every weight is read once per batch instead of once per sample, and each submitter
+ * gets its outputs through a CompletableFuture.
+ * Only the batching thread touches the network, so its weights and batch arrays need no locking. The outputs are
+ * exactly those runNetwork gives for the same inputs with the scalar kernels.
+ * The time from submitting a sample to its outputs being ready is recorded in a LatencyHistogram.
+ *
+ * Methods:
+ * public MicroBatcher(Network network, int maxBatchSize, long maxWaitNanos)
+ * public void start()
+ * public CompletableFuture<double[]> submit(double[] inputs)
+ * public LatencyHistogram getLatency()
+ * public long getBatches()
+ * public long getSamples()
+ * public double getMeanBatchSize()
+ * public void close()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class MicroBatcher implements AutoCloseable
+{
+   public final Network network;
+   public final int maxBatchSize;         // most samples run through the network together
+   public final long maxWaitNanos;        // longest the first sample of a batch waits for others to join it
+   private final BlockingQueue<Request> queue = new LinkedBlockingQueue<Request>();
+   private final LatencyHistogram latency = new LatencyHistogram();
+   private final AtomicLong batches = new AtomicLong();
+   private final AtomicLong samples = new AtomicLong();
+   private final Thread batcher;
+   private volatile boolean running;
+
+   /**
+    * A submitted sample waiting for its outputs
+    */
+   private static class Request
+   {
+      final double[] inputs;
+      final long submitted;               // clock when the sample was submitted
+      final CompletableFuture<double[]> result = new CompletableFuture<double[]>();
+
+      Request(double[] inputs)
+      {
+         this.inputs = inputs;
+         submitted = System.nanoTime();
+      }
+   } //private static class Request
+
+   /**
+    * Creates a batcher for a network whose weights are already loaded. The batching thread starts with start.
+    *
+    * @param network the network, which only the batching thread uses from then on
+    * @param maxBatchSize most samples run together
+    * @param maxWaitNanos longest the first sample of a batch waits for others to join it
+    */
+   public MicroBatcher(Network network, int maxBatchSize, long maxWaitNanos)
+   {
+      this.network = network;
+      this.maxBatchSize = Math.max(1, maxBatchSize);
+      this.maxWaitNanos = Math.max(0L, maxWaitNanos);
+      network.allocateBatchActs(this.maxBatchSize);
+      batcher = new Thread(this::runBatches, "micro-batcher");
+      batcher.setDaemon(true);
+   } //public MicroBatcher(Network network, int maxBatchSize, long maxWaitNanos)
+
+   /**
+    * Starts the batching thread
+    */
+   public void start()
+   {
+      running = true;
+      batcher.start();
+   }
+
+   /**
+    * Queues one sample to be run in the next batch
+    *
+    * @param inputs the input activations, one per input node
+    * @return the future that receives the output activations, or fails with an IllegalStateException if the
+    *         batcher is closed before the sample is run
+    * @throws IllegalArgumentException if the number of inputs does not match the input layer
+    */
+   public CompletableFuture<double[]> submit(double[] inputs)
+   {
+      if (inputs.length != network.numActs[Network.INPUTS_LOC])
+      {
+         throw new IllegalArgumentException("Expected " + network.numActs[Network.INPUTS_LOC] + " inputs, got " +
+                                            inputs.length);
+      }
+      if (!running)
+      {
+         throw new IllegalStateException("The batcher is not running");
+      }
+
+      Request request = new Request(inputs);
+      queue.add(request);
+      if (!running && queue.remove(request))
+      {
+         //closed after the check above, possibly after the batching thread failed what was waiting
+         request.result.completeExceptionally(new IllegalStateException("The batcher was closed"));
+      }
+      return request.result;
+   } //public CompletableFuture<double[]> submit(double[] inputs)
+
+   /**
+    * Body of the batching thread: gathers each batch, runs it and completes its futures until closed
+    */
+   private void runBatches()
+   {
+      List<Request> batch = new ArrayList<Request>(maxBatchSize);
+      try
+      {
+         while (running)
+         {
+            Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+            if (first == null)
+            {
+               continue;
+            }
+            batch.add(first);
+
+            long deadline = first.submitted + maxWaitNanos;
+            while (batch.size() < maxBatchSize)
+            {
+               Request next = queue.poll();
+               if (next == null)
+               {
+                  long remaining = deadline - System.nanoTime();
+                  next = (remaining > 0L) ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                  if (next == null)
+                  {
+                     break;
+                  }
+               }
+               batch.add(next);
+            } // while (batch.size() < maxBatchSize)
+
+            runBatch(batch);
+            batch.clear();
+         } // while (running)
+      } //try
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+      finally
+      {
+         IllegalStateException closed = new IllegalStateException("The batcher was closed");
+         for (Request request : batch)
+         {
+            request.result.completeExceptionally(closed);
+         }
+         for (Request request = queue.poll(); request != null; request = queue.poll())
+         {
+            request.result.completeExceptionally(closed);
+         }
+      } //finally
+   } //private void runBatches()
+
+   /**
+    * Runs a batch through every layer and hands each sample its outputs
+    */
+   private void runBatch(List<Request> batch)
+   {
+      int count = batch.size();
+      int width = network.numActs[Network.INPUTS_LOC];
+      int outputs = network.numActs[network.outputLocation];
+
+      try
+      {
+         for (int b = 0; b < count; b++)
+         {
+            System.arraycopy(batch.get(b).inputs, 0, network.batchActs[Network.INPUTS_LOC], b * width, width);
+         }
+         for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+         {
+            network.batchForwardLayer(n, count);
+         }
+      } //try
+      catch (RuntimeException e)
+      {
+         for (Request request : batch)
+         {
+            request.result.completeExceptionally(e);
+         }
+         return;
+      }
+
+      long done = System.nanoTime();
+      for (int b = 0; b < count; b++)
+      {
+         Request request = batch.get(b);
+         double[] result = new double[outputs];
+         System.arraycopy(network.batchActs[network.outputLocation], b * outputs, result, 0, outputs);
+         latency.record(done - request.submitted);
+         request.result.complete(result);
+      }
+      batches.incrementAndGet();
+      samples.addAndGet(count);
+   } //private void runBatch(List<Request> batch)
+
+   public LatencyHistogram getLatency()
+   {
+      return latency;
+   }
+
+   public long getBatches()
+   {
+      return batches.get();
+   }
+
+   public long getSamples()
+   {
+      return samples.get();
+   }
+
+   public double getMeanBatchSize()
+   {
+      long run = batches.get();
+      return (run == 0L) ? 0.0 : samples.get() / (double) run;
+   }
+
+   /**
+    * Stops the batching thread once the batch it is running is done. Samples still waiting fail with an
+    * IllegalStateException.
+    */
+   public void close()
+   {
+      running = false;
+      batcher.interrupt();
+      try
+      {
+         batcher.join();
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+   } //public void close()
+} //public class MicroBatcher
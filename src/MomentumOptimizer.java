@@ -0,0 +1,69 @@
+/**
+ * This class is gradient descent with momentum. Each weight keeps a velocity that decays by the momentum
+ * factor every step and gathers the learning rate times the gradient, and the weight moves by its velocity.
+ *
+ * Methods:
+ * public MomentumOptimizer(double learningRate, double momentum, double[][] weights)
+ * public double[][][] getState()
+ * public double delta(int n, int i, double gradient)
+ * public void updateRow(int n, double[] layerWeights, int row, double[] acts, double psi, int width)
+ * public void updateRow(int n, float[] layerWeights, int row, float[] acts, float psi, int width)
+ * public String getName()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class MomentumOptimizer extends Optimizer
+{
+   public static final String NAME = "momentum";
+
+   public final double momentum;
+   public final double[][] velocity;      // velocity of each weight, laid out like the weights
+
+   /**
+    * Creates the optimizer with zero velocities
+    *
+    * @param learningRate the step size
+    * @param momentum fraction of the velocity kept each step
+    * @param weights the network weights
+    */
+   public MomentumOptimizer(double learningRate, double momentum, double[][] weights)
+   {
+      super(learningRate);
+      this.momentum = momentum;
+      velocity = stateLike(weights);
+   }
+
+   public double[][][] getState()
+   {
+      return new double[][][] {velocity};
+   }
+
+   public double delta(int n, int i, double gradient)
+   {
+      double v = momentum * velocity[n][i] + learningRate * gradient;
+      velocity[n][i] = v;
+      return v;
+   }
+
+   public void updateRow(int n, double[] layerWeights, int row, double[] acts, double psi, int width)
+   {
+      for (int j = 0; j < width; j++)
+      {
+         layerWeights[row + j] += delta(n, row + j, acts[j] * psi);
+      }
+   }
+
+   public void updateRow(int n, float[] layerWeights, int row, float[] acts, float psi, int width)
+   {
+      for (int j = 0; j < width; j++)
+      {
+         layerWeights[row + j] += (float) delta(n, row + j, (double) acts[j] * psi);
+      }
+   }
+
+   public String getName()
+   {
+      return NAME;
+   }
+} //public class MomentumOptimizer
@@ -0,0 +1,71 @@
+/**
+ * This class is Nesterov accelerated gradient descent. The velocity is updated as with momentum, but the weight
+ * is moved as if the gradient had been taken after the momentum step, which in terms of the stored weights is
+ * (1 + momentum) times the new velocity less momentum times the old one.
+ *
+ * Methods:
+ * public NesterovOptimizer(double learningRate, double momentum, double[][] weights)
+ * public double[][][] getState()
+ * public double delta(int n, int i, double gradient)
+ * public void updateRow(int n, double[] layerWeights, int row, double[] acts, double psi, int width)
+ * public void updateRow(int n, float[] layerWeights, int row, float[] acts, float psi, int width)
+ * public String getName()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class NesterovOptimizer extends Optimizer
+{
+   public static final String NAME = "nesterov";
+
+   public final double momentum;
+   public final double[][] velocity;      // velocity of each weight, laid out like the weights
+
+   /**
+    * Creates the optimizer with zero velocities
+    *
+    * @param learningRate the step size
+    * @param momentum fraction of the velocity kept each step
+    * @param weights the network weights
+    */
+   public NesterovOptimizer(double learningRate, double momentum, double[][] weights)
+   {
+      super(learningRate);
+      this.momentum = momentum;
+      velocity = stateLike(weights);
+   }
+
+   public double[][][] getState()
+   {
+      return new double[][][] {velocity};
+   }
+
+   public double delta(int n, int i, double gradient)
+   {
+      double previous = velocity[n][i];
+      double v = momentum * previous + learningRate * gradient;
+      velocity[n][i] = v;
+      return (1.0 + momentum) * v - momentum * previous;
+   }
+
+   public void updateRow(int n, double[] layerWeights, int row, double[] acts, double psi, int width)
+   {
+      for (int j = 0; j < width; j++)
+      {
+         layerWeights[row + j] += delta(n, row + j, acts[j] * psi);
+      }
+   }
+
+   public void updateRow(int n, float[] layerWeights, int row, float[] acts, float psi, int width)
+   {
+      for (int j = 0; j < width; j++)
+      {
+         layerWeights[row + j] += (float) delta(n, row + j, (double) acts[j] * psi);
+      }
+   }
+
+   public String getName()
+   {
+      return NAME;
+   }
+} //public class NesterovOptimizer
@@ -1,6 +1,15 @@
 import java.io.*;
 import java.lang.Math;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.text.DecimalFormat;
 
 
@@ -8,26 +17,63 @@ import java.text.DecimalFormat;
  * This class implements backpropagation to optimize weights and minimize the output error function.
  * This feed forward N-layer network is organized with N activation layers.
  * This class may train or run with random or manual weights. It can also load and save weights.
+ * Random weights come from a seeded generator, so a run can be repeated, and are drawn in parallel, either uniformly
+ * between the bounds of the control file or scaled to the layer sizes (Xavier/Glorot or He).
  * This class may also train within an error threshold, iteration threshold, and within a certain number of test cases.
  * This class reads the config parameters from a control file.
- * Sigmoid is used as the activation function.
+ * Training is either online (one weight update per test case) or mini-batch, where the test cases of each
+ * batch are split across a thread pool and the summed gradients are applied once per batch.
+ * Each connectivity layer has its own activation function, the exact sigmoid by default, chosen from sigmoid,
+ * a tabulated sigmoid, tanh, ReLU, leaky ReLU and, for the output layer, softmax.
+ * Weight updates are plain gradient descent by default, or momentum, Nesterov, RMSProp or Adam.
+ * Long training runs can write checkpoints in the background and resume from the latest one.
+ * The dot products, omega sums and gradient descent updates go through scalar kernels or, when the Vector API is
+ * available, SIMD kernels.
+ * Training online and running can also be done in single precision, with the dot products summed in float
+ * or in double.
+ * Optional metrics time each phase of training and each run, publish them as an MXBean and can write one line
+ * per epoch to a CSV or JSON lines file.
+ * The input file may also be a directory of BMP images, which are decoded straight into the input dataset.
+ * Running can be split across threads, each running its share of the test cases through an immutable
+ * NetworkModel of the weights with its own Workspace. The same model can be wrapped in a Predictor to score single
+ * samples from other code.
  *
  * Methods:
  * public void setConfigParams(String con)
+ * public void setOptionalParam(String line)
  * public void echoConfigParams()
  * public void allocateArrays()
  * public void populateArrays()
+ * public void initializeWeights()
+ * public void randomizeWeights()
+ * public void loadDataset()
+ * public void loadBinaryDataset()
+ * public void loadImageDataset()
+ * public void loadInputs(int k, double[] dst, int offset)
  * public void saveWeights()
+ * public void saveTextWeights()
  * public void loadWeights()
  * public double randomize(double high, double low)
- * public double sigmoid(double input)
- * public double sigmoidDeriv(double input)
- * public double activationFunction(double input)
- * public double activationDeriv(double in)
+ * public void setActivations(String spec)
  * public void trainingForwardPass(int pass)
  * public void runForwardPass(int tests)
+ * public void createOptimizer()
+ * public void resumeFromCheckpoint()
+ * public void checkpointIfDue()
+ * public void finishCheckpoints()
+ * public void createMetrics()
+ * public FloatNetwork getFloatNetwork()
+ * public void backPropagate()
  * public void trainNetwork()
+ * public void trainNetworkParallel()
+ * public double evaluateError()
  * public void runNetwork()
+ * public NetworkModel createModel()
+ * public Predictor createPredictor()
+ * public void runNetworkParallel()
+ * public void runNetworkBatched()
+ * public void allocateBatchActs(int blockSize)
+ * public void batchForwardLayer(int n, int count)
  * public void reportResults()
  * public static void main(String[] args)
  *
@@ -43,12 +89,28 @@ public class Network
    public static final Integer INPUTS_LOC = 0;
    public static final Integer HIDDENS_ONE_LOC = 1;
    public static final Integer SINGLE_OFFSET = 1;
+   public static final int ONLINE_TRAINING = 1;
+   public static final int MINI_BATCH_TRAINING = 2;
+   public static final int EXACT_ERROR = 1;
+   public static final int ESTIMATED_ERROR = 2;
+   public static final String BINARY_WEIGHTS = "binary";
+   public static final String TEXT_WEIGHTS = "text";
+   public static final String DOUBLE_PRECISION = "double";
+   public static final String FLOAT_PRECISION = "float";
+   public static final String UNIFORM_INIT = "uniform";
+   public static final String XAVIER_INIT = "xavier";
+   public static final String HE_INIT = "he";
+   public static final int INIT_CHUNK = 1 << 16;        // weights drawn from each split of the random generator
+   public static final int BATCH_TILE = 512;            // input nodes per cache tile of the batched dot products
+   public static final int BATCH_LANES = 4;             // test cases sharing each weight load in the batched pass
+   public static final double NANOS_PER_SECOND = 1.0e9;
+   public static final double MILLIS_PER_SECOND = 1.0e3;
+   public static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
    public String configFile;
    public String testCaseFile;
    public String inputFile;
    public String weightFile;
    public Scanner configScanner;
-   public Scanner inputScanner;
    public Scanner testCaseScanner;
    public Scanner weightScanner;
    public long elapsed;
@@ -72,12 +134,49 @@ public class Network
    public double[][] finalOutputs;        // calculated output values for each test case
    public double[][] inputDataset;        // array of input dataset
    public double[][] outputDataset;       // array of expected output dataset
-   public double[][][] weights;           // array of consolidated weights
+   public double[][] weights;             // flat row-major weights per connectivity layer, [n][k * numActs[n-1] + j]
    public double[][] thetas;
    public double[][] psis;
    public int weightsMode;                // if 1 - load from file, if 2 - randomize, if 3 - preset weights
    public boolean saving;                 // true if weights are to be saved - false otherwise
    public int keepAliveTracker;           // tracker for number of iterations between messages
+   public int trainingMode = ONLINE_TRAINING;  // if 1 - online updates per test case, if 2 - parallel mini-batches
+   public int batchSize = 1;              // number of test cases whose gradients are summed per mini-batch update
+   public int numThreads = Runtime.getRuntime().availableProcessors();  // worker threads for mini-batch training
+   public String weightFormat = BINARY_WEIGHTS;  // format saveWeights writes, binary or text
+   public int errorMode = EXACT_ERROR;    // if 1 - error after each update, if 2 - error from the training passes
+   public int evalInterval;               // epochs between full evaluation passes when estimating, 0 for never
+   public int inferenceBatchSize = 1;     // test cases pushed through each layer together when running
+   public int runThreads = 1;             // threads sharing the test cases when running, 1 for a single pass
+   public double[][] batchActs;           // activations of a block of test cases, [n][b * numActs[n] + k]
+   public boolean mapDataset;             // true if a binary dataset stays mapped instead of filling inputDataset
+   public BinaryDataset mappedDataset;    // the mapped binary dataset, null when inputDataset holds the inputs
+   public Activation[] activations;       // activation function of each connectivity layer n, applied to acts[n]
+   public String optimizerName = SgdOptimizer.NAME;  // update rule used in training, lambda is its learning rate
+   public Optimizer optimizer;            // the update rule and its per-weight state, created when training starts
+   public double momentum = 0.9;          // velocity kept each step by the momentum and Nesterov optimizers
+   public double rmsDecay = 0.9;          // mean square kept each step by RMSProp
+   public double beta1 = 0.9;             // mean gradient kept each step by Adam
+   public double beta2 = 0.999;           // mean squared gradient kept each step by Adam
+   public double epsilon = 1.0e-8;        // keeps RMSProp and Adam from dividing by zero
+   public int checkpointInterval;         // iterations between checkpoints, 0 for none
+   public int checkpointFiles = 3;        // number of checkpoint files written in rotation
+   public boolean resume;                 // true if training continues from the latest valid checkpoint
+   public int startIteration;             // iterations already completed when training starts
+   public int checkpointCount;            // checkpoints started, selects the next file in the rotation
+   public ExecutorService checkpointWriter;  // single background thread writing checkpoints
+   public Future<?> pendingCheckpoint;    // the checkpoint being written, null if none was started
+   public double imageScale = ImagePipeline.DEFAULT_SCALE;  // activation of each gray level when reading images
+   public boolean metricsEnabled;         // true if training and runs are timed and published over JMX
+   public String metricsFile;             // CSV or JSON lines file the metrics are written to, null for none
+   public NetworkMetrics metrics;         // the timers and counters, null when metrics are off
+   public String precision = DOUBLE_PRECISION;  // precision of online training and running, double or float
+   public boolean doubleAccumulation;     // true if float dot products are summed in double
+   public FloatNetwork floatNetwork;      // float copy of the network, created when first used in float precision
+   public Kernels kernels = new ScalarKernels();  // inner loops of the passes, scalar or vector
+   public long seed = new SplittableRandom().nextLong();  // seed of the random weights, printed so a run can be repeated
+   public SplittableRandom random = new SplittableRandom(seed);  // generator randomize draws from
+   public String weightInit = UNIFORM_INIT;  // random weight scheme, uniform, xavier or he
    private static final DecimalFormat df = new DecimalFormat("0.000");
 
    /**
@@ -135,10 +234,280 @@ public class Network
       //testCaseFile = configScanner.nextLine();
       inputFile = configScanner.nextLine();
       weightFile = configScanner.nextLine();
+      setActivations(SigmoidActivation.NAME);
 
+      while (configScanner.hasNextLine())                  //optional name=value lines, older files simply end here
+      {
+         String line = configScanner.nextLine().trim();
+         if (!line.isEmpty())
+         {
+            setOptionalParam(line);
+         }
+      }
+
+      configScanner.close();
       return;
    } //public void setConfigParams()
 
+   /**
+    * Applies one optional control file line of the form name=value.
+    * Parameters that are never given keep their default values.
+    *
+    * @param line the control file line
+    */
+   public void setOptionalParam(String line)
+   {
+      int split = line.indexOf("=");
+      if (split < 0)
+      {
+         System.out.println("Ignoring config line without a value: " + line);
+         return;
+      }
+
+      String name = line.substring(0, split).trim();
+      String value = line.substring(split + 1).trim();
+
+      switch (name)
+      {
+         case "trainingMode":
+         {
+            switch (value.toLowerCase())
+            {
+               case "online":
+               case "1":
+                  trainingMode = ONLINE_TRAINING;
+                  break;
+               case "minibatch":
+               case "2":
+                  trainingMode = MINI_BATCH_TRAINING;
+                  break;
+               default:
+                  throw new IllegalArgumentException("Unknown training mode " + value +
+                                                     ", expected online, minibatch, 1 or 2");
+            }
+            break;
+         }
+
+         case "batchSize":
+         {
+            batchSize = Math.max(1, Integer.parseInt(value));
+            break;
+         }
+
+         case "numThreads":
+         {
+            numThreads = Math.max(1, Integer.parseInt(value));
+            break;
+         }
+
+         case "errorMode":
+         {
+            switch (value.toLowerCase())
+            {
+               case "exact":
+               case "1":
+                  errorMode = EXACT_ERROR;
+                  break;
+               case "estimate":
+               case "2":
+                  errorMode = ESTIMATED_ERROR;
+                  break;
+               default:
+                  throw new IllegalArgumentException("Unknown error mode " + value +
+                                                     ", expected exact, estimate, 1 or 2");
+            }
+            break;
+         }
+
+         case "evalInterval":
+         {
+            evalInterval = Math.max(0, Integer.parseInt(value));
+            break;
+         }
+
+         case "inferenceBatchSize":
+         {
+            inferenceBatchSize = Math.max(1, Integer.parseInt(value));
+            break;
+         }
+
+         case "runThreads":
+         {
+            runThreads = Integer.parseInt(value);
+            break;
+         }
+
+         case "mapDataset":
+         {
+            mapDataset = Boolean.parseBoolean(value);
+            break;
+         }
+
+         case "activation":
+         {
+            setActivations(value);
+            break;
+         }
+
+         case "optimizer":
+         {
+            optimizerName = value.toLowerCase();
+            break;
+         }
+
+         case "momentum":
+         {
+            momentum = Double.parseDouble(value);
+            break;
+         }
+
+         case "rmsDecay":
+         {
+            rmsDecay = Double.parseDouble(value);
+            break;
+         }
+
+         case "beta1":
+         {
+            beta1 = Double.parseDouble(value);
+            break;
+         }
+
+         case "beta2":
+         {
+            beta2 = Double.parseDouble(value);
+            break;
+         }
+
+         case "epsilon":
+         {
+            epsilon = Double.parseDouble(value);
+            break;
+         }
+
+         case "checkpointInterval":
+         {
+            checkpointInterval = Math.max(0, Integer.parseInt(value));
+            break;
+         }
+
+         case "checkpointFiles":
+         {
+            checkpointFiles = Math.max(1, Integer.parseInt(value));
+            break;
+         }
+
+         case "resume":
+         {
+            resume = Boolean.parseBoolean(value);
+            break;
+         }
+
+         case "weightFormat":
+         {
+            weightFormat = value.toLowerCase();
+            if (!BINARY_WEIGHTS.equals(weightFormat) && !TEXT_WEIGHTS.equals(weightFormat))
+            {
+               throw new IllegalArgumentException("Unknown weight format " + value + ", expected binary or text");
+            }
+            break;
+         }
+
+         case "imageScale":
+         {
+            imageScale = Double.parseDouble(value);
+            break;
+         }
+
+         case "precision":
+         {
+            precision = value.toLowerCase();
+            if (!DOUBLE_PRECISION.equals(precision) && !FLOAT_PRECISION.equals(precision))
+            {
+               throw new IllegalArgumentException("Unknown precision " + value + ", expected double or float");
+            }
+            break;
+         }
+
+         case "accumulation":
+         {
+            doubleAccumulation = DOUBLE_PRECISION.equalsIgnoreCase(value);
+            break;
+         }
+
+         case "seed":
+         {
+            seed = Long.parseLong(value);
+            random = new SplittableRandom(seed);
+            break;
+         }
+
+         case "weightInit":
+         {
+            weightInit = value.toLowerCase();
+            if (!UNIFORM_INIT.equals(weightInit) && !XAVIER_INIT.equals(weightInit) && !HE_INIT.equals(weightInit))
+            {
+               throw new IllegalArgumentException("Unknown weight initialization " + value +
+                                                  ", expected uniform, xavier or he");
+            }
+            break;
+         }
+
+         case "kernels":
+         {
+            kernels = Kernels.forName(value.toLowerCase());
+            break;
+         }
+
+         case "metrics":
+         {
+            metricsEnabled = Boolean.parseBoolean(value);
+            break;
+         }
+
+         case "metricsFile":
+         {
+            metricsFile = value;
+            metricsEnabled = true;
+            break;
+         }
+
+         default:
+         {
+            System.out.println("Unknown config parameter: " + name);
+         }
+      } //switch (name)
+      return;
+   } //public void setOptionalParam(String line)
+
+   /**
+    * Sets the activation function of every connectivity layer from a comma separated list of names,
+    * one per layer starting with the first hidden layer. A single name is used for every layer.
+    * Softmax is only allowed on the output layer.
+    *
+    * @param spec names such as sigmoid or relu,relu,softmax
+    */
+   public void setActivations(String spec)
+   {
+      String[] names = spec.split(",");
+      if (names.length != 1 && names.length != numConLayers)
+      {
+         throw new IllegalArgumentException("Expected 1 or " + numConLayers + " activation functions, found " +
+                                            names.length);
+      }
+
+      activations = new Activation[numTotalLayers];
+      for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
+      {
+         activations[n] = Activation.forName(names[(names.length == 1) ? 0 : n - HIDDENS_ONE_LOC].trim());
+         if (activations[n] instanceof SoftmaxActivation && n != outputLocation)
+         {
+            throw new IllegalArgumentException("Softmax can only be used on the output layer");
+         }
+      }
+      return;
+   } //public void setActivations(String spec)
+
    /**
     * Prints the configuration parameters of the function for the user
     * If training, prints the runtime training parameters and network structure
@@ -148,7 +517,8 @@ public class Network
    {
       System.out.println();
       System.out.println("Config File: " + configFile);
-      System.out.println("Input File: " + inputFile);
+      System.out.println("Input File: " + inputFile + (mapDataset ? " (memory-mapped)" : "") +
+                         (new File(inputFile).isDirectory() ? " (BMP images, scaled by " + imageScale + ")" : ""));
       if (training)
       {
          System.out.println("Testcase File: " + testCaseFile);
@@ -160,7 +530,7 @@ public class Network
       }
       else if (weightsMode == 2)
       {
-         System.out.println("Weights will be randomized");
+         System.out.println("Weights will be randomized (" + weightInit + ", seed " + seed + ")");
       }
       else
       {
@@ -176,6 +546,33 @@ public class Network
       System.out.println();
       System.out.println("Training State: " + training);
       System.out.println("Saving State: " + saving);
+      System.out.print("Activations: ");
+      for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
+      {
+         System.out.print(activations[n].getName() + (n < outputLocation ? ", " : ""));
+      }
+      System.out.println();
+      if (inferenceBatchSize > 1)
+      {
+         System.out.println("Inference Batch Size: " + inferenceBatchSize);
+      }
+      if (runThreads > 1)
+      {
+         System.out.println("Run Threads: " + runThreads);
+      }
+      if (!ScalarKernels.NAME.equals(kernels.getName()))
+      {
+         System.out.println("Kernels: " + kernels.getName());
+      }
+      if (FLOAT_PRECISION.equals(precision))
+      {
+         System.out.println("Precision: float, dot products summed in " + (doubleAccumulation ? "double" : "float") +
+                            (trainingMode == MINI_BATCH_TRAINING ? ", mini-batch training in double" : ""));
+      }
+      if (metricsEnabled)
+      {
+         System.out.println("Metrics: JMX" + (metricsFile != null ? " and " + metricsFile : ""));
+      }
       System.out.println();
 
       if (training)
@@ -185,11 +582,57 @@ public class Network
          System.out.println("Error Threshold: " + errorThresh);
          System.out.println("Random Number Range: " + lowRandWeight + " - " + highRandWeight);
          System.out.println("Keep Alive Value:" + keepAliveTracker);
+
+         if (trainingMode == MINI_BATCH_TRAINING)
+         {
+            System.out.println("Training Mode: mini-batch, batch size " + batchSize + " on " + numThreads + " threads");
+         }
+         else
+         {
+            System.out.println("Training Mode: online");
+         }
+
+         switch (optimizerName)
+         {
+            case MomentumOptimizer.NAME:
+            case NesterovOptimizer.NAME:
+               System.out.println("Optimizer: " + optimizerName + ", momentum " + momentum);
+               break;
+            case RmsPropOptimizer.NAME:
+               System.out.println("Optimizer: " + optimizerName + ", decay " + rmsDecay + ", epsilon " + epsilon);
+               break;
+            case AdamOptimizer.NAME:
+               System.out.println("Optimizer: " + optimizerName + ", beta1 " + beta1 + ", beta2 " + beta2 +
+                                  ", epsilon " + epsilon);
+               break;
+            default:
+               System.out.println("Optimizer: " + optimizerName);
+         }
+
+         if (checkpointInterval > 0)
+         {
+            System.out.println("Checkpoints: every " + checkpointInterval + " iterations to " +
+                               Checkpoint.slotName(weightFile, 0) + " through " + (checkpointFiles - 1));
+         }
+         if (resume)
+         {
+            System.out.println("Training will resume from the latest checkpoint");
+         }
+
+         if (errorMode == ESTIMATED_ERROR)
+         {
+            System.out.println("Error Mode: estimated from the training passes" +
+                  (evalInterval > 0 ? ", evaluated every " + evalInterval + " iterations" : ""));
+         }
+         else
+         {
+            System.out.println("Error Mode: exact");
+         }
       }
 
       if (saving)
       {
-         System.out.println("Weights will be saved to file: " + weightFile);
+         System.out.println("Weights will be saved to file: " + weightFile + " (" + weightFormat + ")");
       }
       else
       {
@@ -200,24 +643,36 @@ public class Network
 
    /**
     * Allocates memory for each array declared in the global variables section.
-    * Only allocates memory for thetas and psis and output dataset if training
+    * Only allocates memory for thetas and psis and output dataset if training.
+    * Datasets that are already set, such as one shared by every network of a sweep, are kept.
     */
    public void allocateArrays()
    {
-      inputDataset = new double[numTestCases][numActs[INPUTS_LOC]];
+      if (!mapDataset && inputDataset == null)
+      {
+         inputDataset = new double[numTestCases][numActs[INPUTS_LOC]];
+      }
       finalOutputs = new double[numTestCases][numActs[outputLocation]];
 
-      weights = new double[numConLayers + SINGLE_OFFSET][][];
+      weights = new double[numConLayers + SINGLE_OFFSET][];
       for (int n = 1; n < numConLayers + SINGLE_OFFSET; n++)
       {
-         weights[n] = new double[numActs[n-1]][numActs[n]];
+         weights[n] = new double[numActs[n] * numActs[n-1]];        //one row of numActs[n-1] inputs per node k
       }
 
       acts = new double[numTotalLayers][maxTotalNodes];
 
+      if (activations == null)
+      {
+         setActivations(SigmoidActivation.NAME);
+      }
+
       if (training)
       {
-         outputDataset = new double[numTestCases][numActs[outputLocation]];
+         if (outputDataset == null)
+         {
+            outputDataset = new double[numTestCases][numActs[outputLocation]];
+         }
          thetas = new double[numConLayers + SINGLE_OFFSET][maxHiddenOutputNodes];
          psis = new double[numTotalLayers][maxTotalNodes];
       }
@@ -226,9 +681,25 @@ public class Network
    } //public void allocateArrays()
 
    /**
-    * Loads the test cases (input and output datasets) from a configuration file
+    * Sets the weights as directed by the weights mode, then loads the test cases (input and output datasets).
+    * When resuming, the weights are then replaced by those of the latest checkpoint.
     */
    public void populateArrays()
+   {
+      initializeWeights();
+      loadDataset();
+
+      if (training && resume)
+      {
+         resumeFromCheckpoint();
+      }
+      return;
+   } //public void populateArrays()
+
+   /**
+    * Sets the weights as directed by the weights mode
+    */
+   public void initializeWeights()
    {
       switch (weightsMode)
       {
@@ -238,422 +709,1209 @@ public class Network
             break;
          }
 
-         case 2:              //sets all weights to a random number as determined by the range given in the controlFile
+         case 2:              //sets all weights to random numbers as directed by the weight initialization scheme
+         {
+            randomizeWeights();
+            break;
+         }
+
+         case 3:              //sets all weights to a constant
+         {
+            for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
+            {
+               Arrays.fill(weights[n], DEFAULT_WEIGHT_VALUE);
+            }
+            break;
+         } //case 3:
+      } //switch (weightsMode)
+      return;
+   } //public void initializeWeights()
+
+   /**
+    * Loads the test cases (input and output datasets) from the input file through a DatasetReader,
+    * then reports the load time and rate. Binary datasets and directories of images are handed to
+    * loadBinaryDataset and loadImageDataset.
+    */
+   public void loadDataset()
+   {
+      if (new File(inputFile).isDirectory())
+      {
+         loadImageDataset();
+         return;
+      }
+
+      try
+      {
+         if (BinaryDataset.isBinary(inputFile))
+         {
+            loadBinaryDataset();
+            return;
+         }
+      } //try
+      catch (IOException e)
+      {
+         System.out.println("Input file could not be found");
+         throw new RuntimeException(e);
+      }
+
+      if (mapDataset)
+      {
+         throw new RuntimeException("Only binary datasets can be memory-mapped");
+      }
+
+      long startTime = System.nanoTime();
+      long bytes;
+
+      /**
+      try
+      {
+         testCaseScanner = new Scanner(new File(testCaseFile));
+      }
+      catch (FileNotFoundException e)
+      {
+         System.out.println("Test case file could not be found");
+      }
+       */
+
+      try (DatasetReader reader = new DatasetReader(inputFile))
+      {
+         reader.skipLine();
+         reader.skipLine();
+
+         try
+         {
+            for (int k = 0; k < numTestCases; k++)
+            {
+               for (int i = 0; i < numActs[INPUTS_LOC]; i++)
+               {
+                  inputDataset[k][i] = reader.nextValue();
+               }
+            }
+         } //try
+
+         catch (Exception e)
+         {
+            throw new RuntimeException("Input dataset too big");
+         }
+
+
+         if (training)
+         {
+            reader.skipLine();
+
+            try
+            {
+               for (int i = 0; i < numActs[outputLocation]; i++)
+               {
+                  for (int k = 0; k < numTestCases; k++)
+                  {
+                     outputDataset[k][i] = reader.nextValue();
+                  }
+               }
+            } //try
+
+            catch (Exception e)
+            {
+               throw new RuntimeException("Output dataset too big");
+            }
+         } // if (training)
+
+         bytes = reader.getBytesRead();
+      } //try (DatasetReader reader = new DatasetReader(inputFile))
+
+      catch (IOException e)
+      {
+         System.out.println("Input file could not be found");
+         throw new RuntimeException(e);
+      }
+
+      double seconds = (System.nanoTime() - startTime) / NANOS_PER_SECOND;
+      System.out.println();
+      System.out.printf("Dataset loaded: %d bytes in %.1f ms (%.1f MB/s)\n", bytes, seconds * MILLIS_PER_SECOND,
+                        bytes / seconds / BYTES_PER_MEGABYTE);
+      return;
+   } //public void loadDataset()
+
+   /**
+    * Loads the test cases from a binary dataset file. If the dataset is mapped, it is kept open as mappedDataset
+    * and the inputs are read from it one test case at a time. Otherwise the inputs are copied into inputDataset.
+    * The expected outputs are always copied into outputDataset.
+    */
+   public void loadBinaryDataset()
+   {
+      long startTime = System.nanoTime();
+      BinaryDataset dataset;
+
+      try
+      {
+         dataset = BinaryDataset.open(inputFile);
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException("Binary dataset could not be opened: " + e.getMessage(), e);
+      }
+
+      if (dataset.getCaseCount() < numTestCases || dataset.getInputWidth() != numActs[INPUTS_LOC] ||
+          (training && dataset.getOutputWidth() != numActs[outputLocation]))
+      {
+         throw new RuntimeException("Binary dataset is " + dataset.getCaseCount() + " cases of " +
+               dataset.getInputWidth() + " inputs and " + dataset.getOutputWidth() + " outputs, which does not fit the network");
+      }
+
+      for (int k = 0; k < numTestCases; k++)
+      {
+         if (!mapDataset)
+         {
+            dataset.readInputs(k, inputDataset[k], 0);
+         }
+         if (training)
+         {
+            dataset.readOutputs(k, outputDataset[k], 0);
+         }
+      }
+
+      long bytes = dataset.getFileSize();
+      if (mapDataset)
+      {
+         mappedDataset = dataset;
+      }
+      else
+      {
+         try
+         {
+            dataset.close();
+         }
+         catch (IOException e)
+         {
+            throw new RuntimeException(e);
+         }
+      }
+
+      double seconds = (System.nanoTime() - startTime) / NANOS_PER_SECOND;
+      System.out.println();
+      System.out.printf("Binary dataset %s: %d bytes in %.1f ms (%.1f MB/s)\n", mapDataset ? "mapped" : "loaded", bytes,
+                        seconds * MILLIS_PER_SECOND, bytes / seconds / BYTES_PER_MEGABYTE);
+      return;
+   } //public void loadBinaryDataset()
+
+   /**
+    * Loads the test cases from the BMP images in the input directory through an ImagePipeline, which decodes
+    * them on numThreads threads while this thread copies them into inputDataset. When training, the expected
+    * outputs come from the image names.
+    */
+   public void loadImageDataset()
+   {
+      if (mapDataset)
+      {
+         throw new RuntimeException("Only binary datasets can be memory-mapped");
+      }
+
+      ImagePipeline pipeline = new ImagePipeline(inputFile, numThreads, ImagePipeline.DEFAULT_QUEUE_CAPACITY,
+                                                 imageScale);
+      pipeline.loadDataset(this);
+      System.out.println();
+      pipeline.printThroughput("Image dataset loaded");
+      return;
+   } //public void loadImageDataset()
+
+   /**
+    * Copies the inputs of test case k into dst starting at offset, from inputDataset or the mapped dataset
+    *
+    * @param k the test case
+    * @param dst destination array
+    * @param offset first index written in dst
+    */
+   public void loadInputs(int k, double[] dst, int offset)
+   {
+      if (mappedDataset != null)
+      {
+         mappedDataset.readInputs(k, dst, offset);
+      }
+      else
+      {
+         System.arraycopy(inputDataset[k], 0, dst, offset, numActs[INPUTS_LOC]);
+      }
+   } //public void loadInputs(int k, double[] dst, int offset)
+
+
+   /**
+    * Saves the weights of every connectivity layer to the weight file.
+    * By default the weights are written in the binary format of WeightFile. If the weight format is text, each line
+    * contains a single weight, with a single line separating the weights leaving each node
+    */
+   public void saveWeights()
+   {
+      try
+      {
+         if (TEXT_WEIGHTS.equals(weightFormat))
+         {
+            saveTextWeights();
+         }
+         else
+         {
+            WeightFile.write(weightFile, numActs, weights);
+         }
+
+         System.out.println();
+         System.out.println("Weights have saved");                       //indicates completion
+
+      } //try
+      catch (IOException e)
+      {
+         System.out.println();
+         System.out.println("Weights could not be saved");
+      }
+   } //public void saveWeights()
+
+   /**
+    * Exports the weights as text with one weight per line, the format loadWeights also accepts
+    */
+   public void saveTextWeights() throws IOException
+   {
+      PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(weightFile)));
+      out.println("Network: ");
+      for (int n = 0; n < numTotalLayers; n++)
+      {
+         out.print(numActs[n] + "-");
+      }
+      out.println();
+
+      for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
+      {
+         for (int k = 0; k < numActs[n-1]; k++)
+         {
+            for (int j = 0; j < numActs[n]; j++)
+            {
+               out.println(String.format("%.17f", weights[n][j * numActs[n-1] + k]));
+            }
+            out.println();
+         }
+      } // for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
+
+      out.close();
+      if (out.checkError())
+      {
+         throw new IOException("Weights could not be written to " + weightFile);
+      }
+   } //public void saveTextWeights()
+
+   /**
+    * Loads the weights from the weight file.
+    * Binary weight files are recognized by their header and memory-mapped. Any other file is read as text,
+    * parsing each line as a double for a weight and updating the network weight arrays.
+    * Prints "Weights have loaded" upon completion
+    */
+   public void loadWeights()
+   {
+      try
+      {
+         if (WeightFile.isBinary(weightFile))
+         {
+            WeightFile.read(weightFile, numActs, weights);
+         }
+         else
+         {
+            weightScanner = new Scanner(new File(weightFile));
+
+            weightScanner.nextLine();
+            weightScanner.nextLine();
+
+            for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
+            {
+               for (int k = 0; k < numActs[n-1]; k++)
+               {
+                  for (int j = 0; j < numActs[n]; j++)
+                  {
+                     weights[n][j * numActs[n-1] + k] = Double.parseDouble(weightScanner.nextLine());
+                  }
+                  weightScanner.nextLine();
+               }
+            }
+
+            weightScanner.close();
+         } // else
+
+         System.out.println();
+         System.out.println("Weights have loaded");                        //indicates completion
+      } //try
+
+      catch(IOException e)
+      {
+         System.out.println();
+         System.out.println("Weights could not be loaded: " + e.getMessage());
+      }
+   } //public void loadWeights()
+
+   /**
+    * Sets every weight to a random value of the weight initialization scheme:
+    *    uniform - between lowRandWeight and highRandWeight, as given in the control file
+    *    xavier  - uniform within sqrt(6 / (fan in + fan out)) of 0, for sigmoid and tanh layers
+    *    he      - normal around 0 with a standard deviation of sqrt(2 / fan in), for ReLU layers
+    * The weights are split into chunks of INIT_CHUNK, and each chunk gets its own generator, split from random in
+    * chunk order before any is filled. The chunks are then filled on numThreads threads, so the weights depend only
+    * on the seed, never on the number of threads or the order the chunks are filled in.
+    */
+   public void randomizeWeights()
+   {
+      List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+      for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
+      {
+         double[] layerWeights = weights[n];
+         int fanIn = numActs[n-1];
+         int fanOut = numActs[n];
+         for (int first = 0; first < layerWeights.length; first += INIT_CHUNK)
+         {
+            int start = first;
+            int end = Math.min(first + INIT_CHUNK, layerWeights.length);
+            SplittableRandom chunkRandom = random.split();
+            tasks.add(() ->
+            {
+               fillRandom(layerWeights, start, end, chunkRandom, fanIn, fanOut);
+               return null;
+            });
+         } // for (int first = 0; first < layerWeights.length; first += INIT_CHUNK)
+      } // for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
+
+      ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(numThreads, tasks.size())));
+      try
+      {
+         runTasks(pool, tasks);
+      }
+      finally
+      {
+         pool.shutdown();
+      }
+   } //public void randomizeWeights()
+
+   /**
+    * Fills weights from to to - 1 of a layer as directed by the weight initialization scheme
+    */
+   private void fillRandom(double[] layerWeights, int from, int to, SplittableRandom chunkRandom, int fanIn,
+                           int fanOut)
+   {
+      switch (weightInit)
+      {
+         case XAVIER_INIT:
+         {
+            double limit = Math.sqrt(6.0 / (double) (fanIn + fanOut));
+            for (int w = from; w < to; w++)
+            {
+               layerWeights[w] = chunkRandom.nextDouble() * 2.0 * limit - limit;
+            }
+            break;
+         }
+
+         case HE_INIT:
+         {
+            double deviation = Math.sqrt(2.0 / (double) fanIn);
+            for (int w = from; w < to; w++)
+            {
+               layerWeights[w] = chunkRandom.nextGaussian() * deviation;
+            }
+            break;
+         }
+
+         default:
+         {
+            for (int w = from; w < to; w++)
+            {
+               layerWeights[w] = chunkRandom.nextDouble() * (highRandWeight - lowRandWeight) + lowRandWeight;
+            }
+         }
+      } //switch (weightInit)
+   } //private void fillRandom(...)
+
+   /**
+    * Calculates a random weight value using the high and low variables
+    *
+    * @param high - higher bound of randomized weight value calculation
+    * @param low - lower bound of randomized weight value calculation
+    * @return randomized value for weight
+    */
+   public double randomize(double high, double low)
+   {
+      return random.nextDouble() * (high - low) + low;
+   }
+
+
+
+   /**
+    * Performs the forward pass for training hidden and output activations.
+    * Updates the activations based on dot product of weights and input dataset.
+    * Also applies the activation function
+    */
+   public void trainingForwardPass(int pass)
+   {
+      for (int n = HIDDENS_ONE_LOC; n < outputLocation; n++)
+      {
+         double[] layerWeights = weights[n];
+         double[] prevActs = acts[n-1];
+         int width = numActs[n-1];
+
+         for (int k = 0; k < numActs[n]; k++)
+         {
+            thetas[n][k] = kernels.dot(layerWeights, k * width, prevActs, 0, width);   //applying dot product
+         }
+         activations[n].applyLayer(thetas[n], acts[n], 0, numActs[n]);    //applying activation function
+      } //for (int n = HIDDENS_ONE_LOC; n < outputLocation; n++)
+
+      int n = outputLocation;
+      double[] layerWeights = weights[n];
+      double[] prevActs = acts[n-1];
+      int width = numActs[n-1];
+
+      for (int k = 0; k < numActs[n]; k++)                                    //finding hidden to output
+      {
+         thetas[n][k] = kernels.dot(layerWeights, k * width, prevActs, 0, width);      //applying dot product
+      }
+      activations[n].applyLayer(thetas[n], acts[n], 0, numActs[n]);       //applying activation function
+
+      activations[n].outputPsis(thetas[n], acts[n], outputDataset[pass], psis[n], numActs[n]);
+      return;
+   } // public void trainingForwardPass(int pass)
+
+   /**
+    * Performs a single forward pass for running
+    */
+   public void runForwardPass()
+   {
+      for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
+      {
+         double[] layerWeights = weights[n];
+         double[] prevActs = acts[n-1];
+         int width = numActs[n-1];
+
+         for (int k = 0; k < numActs[n]; k++)
+         {
+            thetas[n][k] = kernels.dot(layerWeights, k * width, prevActs, 0, width);   //applying dot product
+         }
+         activations[n].applyLayer(thetas[n], acts[n], 0, numActs[n]);       //applying activation function
+      } // for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
+
+      return;
+   } // public void runForwardPass()
+
+   /**
+    * Backpropagates the output psis through every connectivity layer and updates the weights in place
+    * through the optimizer, creating it if training has not started it yet.
+    * Each weight row m of layer n+1 adds its omegas of layer n into psis[n] and is then updated while it is
+    * still in cache, so the flat weight arrays are always read in storage order.
+    */
+   public void backPropagate()
+   {
+      if (optimizer == null)
+      {
+         createOptimizer();
+      }
+      optimizer.beginStep();
+
+      for (int n = outputLocation-1; n >= HIDDENS_ONE_LOC; n--)
+      {
+         double[] layerWeights = weights[n+1];
+         double[] layerActs = acts[n];
+         double[] omegas = psis[n];
+         int width = numActs[n];
+
+         Arrays.fill(omegas, 0, width, 0.0);
+         for (int m = 0; m < numActs[n+1]; m++)
+         {
+            int row = m * width;
+            double psi = psis[n+1][m];
+            kernels.addScaled(omegas, 0, layerWeights, row, psi, width);
+            optimizer.updateRow(n+1, layerWeights, row, layerActs, psi, width);
+         } // for (int m = 0; m < numActs[n+1]; m++)
+
+         for (int j = 0; j < width; j++)
+         {
+            psis[n][j] = omegas[j] * activations[n].derivative(thetas[n][j], acts[n][j]);
+         }
+      } // for (int n = outputLocation-1; n >= HIDDENS_ONE_LOC; n--)
+
+      int n = HIDDENS_ONE_LOC;
+      double[] layerWeights = weights[n];
+      double[] inputActs = acts[n-1];
+      int width = numActs[n-1];
+
+      for (int j = 0; j < numActs[n]; j++)
+      {
+         optimizer.updateRow(n, layerWeights, j * width, inputActs, psis[n][j], width);
+      }
+      return;
+   } // public void backPropagate()
+
+   /**
+    * Creates the optimizer named in the control file, with fresh state, for the current weights
+    */
+   public void createOptimizer()
+   {
+      optimizer = Optimizer.forName(optimizerName, this);
+   }
+
+   /**
+    * Restores the weights, optimizer state, iteration count and error of the latest valid checkpoint, so training
+    * continues where it stopped. Starts from the weights already set if there is no valid checkpoint.
+    */
+   public void resumeFromCheckpoint()
+   {
+      int slot = Checkpoint.findLatest(weightFile, checkpointFiles, numActs);
+      System.out.println();
+      if (slot < 0)
+      {
+         System.out.println("No valid checkpoint found, training starts from the initial weights");
+         return;
+      }
+
+      String fileName = Checkpoint.slotName(weightFile, slot);
+      try
+      {
+         createOptimizer();
+         Checkpoint.read(fileName, numActs).restore(this);
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException("Checkpoint could not be loaded: " + e.getMessage(), e);
+      }
+
+      startIteration = iterTracker;
+      checkpointCount = slot + 1;                           //the next checkpoint overwrites the oldest file
+      System.out.printf("Resumed from %s at iteration %d, Error = %f\n", fileName, iterTracker, errorTracker);
+   } //public void resumeFromCheckpoint()
+
+   /**
+    * Starts writing a checkpoint on the background thread when the iteration count is a multiple of the
+    * checkpoint interval. The training state is copied first, so training goes on while the copy is written.
+    * If the previous checkpoint is still being written, this one is skipped rather than waiting for it.
+    */
+   public void checkpointIfDue()
+   {
+      if (checkpointInterval <= 0 || iterTracker % checkpointInterval != 0)
+      {
+         return;
+      }
+
+      if (pendingCheckpoint != null && !pendingCheckpoint.isDone())
+      {
+         System.out.println("Skipping checkpoint at iteration " + iterTracker +
+                            ", the last one is still being written");
+         return;
+      }
+
+      if (checkpointWriter == null)
+      {
+         checkpointWriter = Executors.newSingleThreadExecutor(task ->
+         {
+            Thread thread = new Thread(task, "checkpoint-writer");
+            thread.setDaemon(true);                          //never keeps a failed run alive
+            return thread;
+         });
+      }
+
+      Checkpoint snapshot = Checkpoint.snapshot(this);
+      String fileName = Checkpoint.slotName(weightFile, checkpointCount % checkpointFiles);
+      checkpointCount++;
+
+      pendingCheckpoint = checkpointWriter.submit(() ->
+      {
+         try
+         {
+            snapshot.write(fileName);
+         }
+         catch (IOException e)
+         {
+            System.out.println("Checkpoint could not be saved to " + fileName + ": " + e.getMessage());
+         }
+      });
+   } //public void checkpointIfDue()
+
+   /**
+    * Waits for the checkpoint being written, if any, and stops the background thread
+    */
+   public void finishCheckpoints()
+   {
+      if (checkpointWriter == null)
+      {
+         return;
+      }
+
+      checkpointWriter.shutdown();
+      try
+      {
+         pendingCheckpoint.get();
+      }
+      catch (InterruptedException | ExecutionException e)
+      {
+         throw new RuntimeException(e);
+      }
+      checkpointWriter = null;
+   } //public void finishCheckpoints()
+
+   /**
+    * Creates the metrics and registers them over JMX if the control file turned them on.
+    * The MXBean is named after the control file.
+    */
+   public void createMetrics()
+   {
+      if (metricsEnabled && metrics == null)
+      {
+         metrics = new NetworkMetrics(new File(configFile).getName(), metricsFile);
+         metrics.register();
+      }
+   } //public void createMetrics()
+
+   /**
+    * Gives the float copy of the network used in single precision, creating it the first time or when the
+    * accumulation has changed
+    *
+    * @return the float network
+    */
+   public FloatNetwork getFloatNetwork()
+   {
+      if (floatNetwork == null || floatNetwork.doubleAccumulation != doubleAccumulation)
+      {
+         floatNetwork = new FloatNetwork(this, doubleAccumulation);
+      }
+      return floatNetwork;
+   } //public FloatNetwork getFloatNetwork()
+
+   /**
+    * Initializes training for the network. Until an error threshold or number of iterations is met,
+    * the network makes a forward pass, calculates the error, stores that, and then applies that to
+    * adjust its weights.
+    * With the exact error mode another forward pass after each update gives the error of the updated weights.
+    * With the estimated mode the error comes from the training forward pass, made before the update, which saves
+    * that second pass. Every evalInterval iterations the estimate is replaced by a full evaluation pass.
+    */
+   public void trainNetwork()
+   {
+      if (optimizer == null)
+      {
+         createOptimizer();
+      }
+
+      if (trainingMode == MINI_BATCH_TRAINING)
+      {
+         trainNetworkParallel();
+         return;
+      }
+
+      if (FLOAT_PRECISION.equals(precision))
+      {
+         getFloatNetwork().trainNetwork();
+         return;
+      }
+
+      iterTracker = startIteration;
+      boolean trainingBool = false;
+      long startTime = System.currentTimeMillis();
+      System.out.println();
+
+      while (!trainingBool)
+      {
+         if (metrics != null)
+         {
+            metrics.startEpoch(optimizer.steps);
+         }
+
+         tempError = 0.0;
+         for (int k = 0; k < numTestCases; k++)
+         {
+            long forwardStart = (metrics != null) ? System.nanoTime() : 0L;
+            loadInputs(k, acts[INPUTS_LOC], 0);
+
+            trainingForwardPass(k);
+            long backwardStart = (metrics != null) ? System.nanoTime() : 0L;
+            backPropagate();
+            long backwardEnd = (metrics != null) ? System.nanoTime() : 0L;
+
+            if (errorMode == EXACT_ERROR)
+            {
+               runForwardPass();
+            }
+
+            if (metrics != null)
+            {
+               metrics.addForward(backwardStart - forwardStart + System.nanoTime() - backwardEnd);
+               metrics.addBackward(backwardEnd - backwardStart);
+            }
+
+            int n = outputLocation;
+            for (int j = 0; j < numActs[n]; j++)
+            {
+               finalOutputs[k][j] = acts[n][j];
+               tempError += 0.5 * (outputDataset[k][j]-acts[n][j]) * (outputDataset[k][j]-acts[n][j]);
+            }
+         } // for (int k = 0; k < numTestCases; k++)
+
+         iterTracker++;
+         errorTracker = (tempError/ (double) numTestCases);
+
+         if (errorMode == ESTIMATED_ERROR && evalInterval > 0 && iterTracker % evalInterval == 0)
+         {
+            errorTracker = evaluateError();
+         }
+
+         trainingBool = ((errorTracker < errorThresh) || (iterTracker >= maxIter));
+
+         if (metrics != null)
+         {
+            metrics.endEpoch(iterTracker, errorTracker, numTestCases, optimizer.steps, countWeights());
+         }
+
+         if (keepAliveTracker != 0 && iterTracker % keepAliveTracker == 0)
+         {
+            System.out.printf("Iteration %d, Error = %f\n", iterTracker, errorTracker);
+         }
+
+         checkpointIfDue();
+      } // while (!trainingBool)
+
+      finishCheckpoints();
+      elapsed = System.currentTimeMillis() - startTime;
+
+   } // public void trainNetwork()
+
+   /**
+    * Trains the network in mini-batches across a fixed thread pool.
+    * Each batch of test cases is split between the workers, which compute the gradients of their cases against
+    * the current weights into private buffers. The workers then each reduce a slice of every weight layer,
+    * adding the optimizer's delta for the gradient summed over the batch, so a batch size of one takes the same
+    * step as online training. With the estimated error mode the error is accumulated from the forward passes the workers
+    * already made, with a full evaluation pass every evalInterval iterations. With the exact mode every iteration
+    * ends with an evaluation pass over the updated weights.
+    */
+   public void trainNetworkParallel()
+   {
+      iterTracker = startIteration;
+      boolean trainingBool = false;
+      long startTime = System.currentTimeMillis();
+      System.out.println();
+
+      int threads = Math.max(1, Math.min(numThreads, Math.max(batchSize, 1)));
+      ExecutorService pool = Executors.newFixedThreadPool(threads);
+      TrainingWorker[] workers = new TrainingWorker[threads];
+      for (int t = 0; t < threads; t++)
+      {
+         workers[t] = new TrainingWorker(this);
+      }
+
+      List<Callable<Void>> gradientTasks = new ArrayList<Callable<Void>>();
+      List<Callable<Void>> reduceTasks = new ArrayList<Callable<Void>>();
+      int[] batch = new int[2];                                  //first and last (exclusive) test case of the batch
+
+      for (int t = 0; t < threads; t++)
+      {
+         final int worker = t;
+         gradientTasks.add(() ->
+         {
+            int size = batch[1] - batch[0];
+            workers[worker].accumulate(batch[0] + size * worker / threads, batch[0] + size * (worker + 1) / threads);
+            return null;
+         });
+         reduceTasks.add(() ->
+         {
+            for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
+            {
+               int length = weights[n].length;
+               TrainingWorker.applyGradients(weights[n], workers, n, optimizer,
+                     (int) ((long) length * worker / threads), (int) ((long) length * (worker + 1) / threads));
+            }
+            return null;
+         });
+      } // for (int t = 0; t < threads; t++)
+
+      try
+      {
+         while (!trainingBool)
          {
-            for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
+            if (metrics != null)
+            {
+               metrics.startEpoch(optimizer.steps);
+            }
+
+            tempError = 0.0;
+            for (int first = 0; first < numTestCases; first += batchSize)
             {
-               for (int j = 0; j < numActs[n-1]; j++)
+               batch[0] = first;
+               batch[1] = Math.min(first + batchSize, numTestCases);
+               runTasks(pool, gradientTasks);
+               long updateStart = (metrics != null) ? System.nanoTime() : 0L;
+               optimizer.beginStep();
+               runTasks(pool, reduceTasks);
+               if (metrics != null)
                {
-                  for (int k = 0; k < numActs[n]; k++)
-                  {
-                     weights[n][j][k] = randomize(highRandWeight, lowRandWeight);
-                  }
+                  metrics.addUpdate(System.nanoTime() - updateStart);
                }
-            } // for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
-            break;
-         } //case 2:
+            } // for (int first = 0; first < numTestCases; first += batchSize)
 
-         case 3:              //sets all weights to a constant
-         {
-            for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
+            for (int t = 0; t < threads; t++)
             {
-               for (int j = 0; j < numActs[n-1]; j++)
+               tempError += workers[t].error;
+               workers[t].error = 0.0;
+               if (metrics != null)
                {
-                  for (int k = 0; k < numActs[n]; k++)
-                  {
-                     weights[n][j][k] = DEFAULT_WEIGHT_VALUE;
-                  }
+                  metrics.addForward(workers[t].forwardNanos);
+                  metrics.addBackward(workers[t].backwardNanos);
                }
-            } // for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
-            break;
-         } //case 3:
-      } //switch (weightsMode)
+               workers[t].forwardNanos = 0L;
+               workers[t].backwardNanos = 0L;
+            } // for (int t = 0; t < threads; t++)
 
-      try
-      {
-         inputScanner = new Scanner(new File(inputFile));
-      }
-      catch (FileNotFoundException e)
-      {
-         System.out.println("Input file could not be found");
-      }
+            iterTracker++;
+            errorTracker = (tempError/ (double) numTestCases);
 
-      /**
-      try
-      {
-         testCaseScanner = new Scanner(new File(testCaseFile));
-      }
-      catch (FileNotFoundException e)
-      {
-         System.out.println("Test case file could not be found");
-      }
-       */
+            if (errorMode == EXACT_ERROR || (evalInterval > 0 && iterTracker % evalInterval == 0))
+            {
+               errorTracker = evaluateError();
+            }
 
-      inputScanner.nextLine();
-      inputScanner.nextLine();
-      String temp;
+            trainingBool = ((errorTracker < errorThresh) || (iterTracker >= maxIter));
 
-      try
-      {
-         for (int k = 0; k < numTestCases; k++)
-         {
-            for (int i = 0; i < numActs[INPUTS_LOC]; i++)
+            if (metrics != null)
             {
-               temp = inputScanner.nextLine();
-               inputDataset[k][i] = Double.parseDouble(temp.substring(0, temp.indexOf("=")));
+               metrics.endEpoch(iterTracker, errorTracker, numTestCases, optimizer.steps, countWeights());
             }
-         }
-      } //try
 
-      catch (Exception e)
+            if (keepAliveTracker != 0 && iterTracker % keepAliveTracker == 0)
+            {
+               System.out.printf("Iteration %d, Error = %f\n", iterTracker, errorTracker);
+            }
+
+            checkpointIfDue();
+         } // while (!trainingBool)
+      } //try
+      finally
       {
-         throw new RuntimeException("Input dataset too big");
+         pool.shutdown();
+         finishCheckpoints();
       }
 
+      elapsed = System.currentTimeMillis() - startTime;
+   } // public void trainNetworkParallel()
 
-      if (training)
-      {
-         inputScanner.nextLine();
-
-         try
-         {
-            for (int i = 0; i < numActs[outputLocation]; i++)
-            {
-               for (int k = 0; k < numTestCases; k++)
-               {
-                  temp = inputScanner.nextLine();
-                  outputDataset[k][i] = Double.parseDouble(temp.substring(0, temp.indexOf("=")));
-               }
-            }
-         } //try
+   /**
+    * Runs the network over every test case with the current weights and calculates the average error,
+    * leaving the outputs in finalOutputs
+    *
+    * @return the error of the current weights
+    */
+   public double evaluateError()
+   {
+      runNetwork();
 
-         catch (Exception e)
+      double error = 0.0;
+      for (int k = 0; k < numTestCases; k++)
+      {
+         for (int j = 0; j < numActs[outputLocation]; j++)
          {
-            throw new RuntimeException("Output dataset too big");
+            double diff = outputDataset[k][j] - finalOutputs[k][j];
+            error += 0.5 * diff * diff;
          }
       }
-      inputScanner.close();
-      return;
-   } //public void populateArrays()
-
+      return error / (double) numTestCases;
+   } //public double evaluateError()
 
    /**
-    * Saves the input to hidden and from the hidden to output weights into a text file called Weights.txt
-    * The weights are saved where each line contains a single weight, with a single line separating weights of
-    * different layers
+    * Runs every task on the pool and waits for all of them to finish
+    *
+    * @param pool the thread pool
+    * @param tasks the tasks to run
     */
-   public void saveWeights()
+   private void runTasks(ExecutorService pool, List<Callable<Void>> tasks)
    {
       try
       {
-         PrintWriter out = new PrintWriter(new File(weightFile));
-         out.println("Network: ");
-         for (int n = 0; n < numTotalLayers; n++)
+         for (Future<Void> future : pool.invokeAll(tasks))
          {
-            out.print(numActs[n] + "-");
+            future.get();
          }
-         out.println();
-
-         for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
-         {
-            for (int k = 0; k < numActs[n-1]; k++)
-            {
-               for (int j = 0; j < numActs[n]; j++)
-               {
-                  out.println(String.format("%.17f", weights[n][k][j]));
-               }
-               out.println();
-            }
-         } // for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
-
-         out.close();
-         System.out.println();
-         System.out.println("Weights have saved");                       //indicates completion
-
       } //try
-      catch (IOException e)
+      catch (InterruptedException e)
       {
-         System.out.println();
-         System.out.println("Weights could not be saved");
+         Thread.currentThread().interrupt();
+         throw new RuntimeException(e);
       }
-   } //public void saveWeights()
+      catch (ExecutionException e)
+      {
+         throw new RuntimeException(e.getCause());
+      }
+   } //private void runTasks(ExecutorService pool, List<Callable<Void>> tasks)
+
 
    /**
-    * Loads the weights from a text file named Weights.txt
-    * Parses each line as a double for a weight and updates the network weight arrays
-    * Prints "Weights have loaded" upon completion
+    * Initializes the running of the network
+    * Executes a forward pass of the network for all inputs
     */
-   public void loadWeights()
+   public void runNetwork()
    {
-      try
+      long runStart = (metrics != null) ? System.nanoTime() : 0L;
+      if (FLOAT_PRECISION.equals(precision))
       {
-         weightScanner = new Scanner(new File(weightFile));
+         getFloatNetwork().runNetwork();
+         recordRun(runStart);
+         return;
+      }
 
-         weightScanner.nextLine();
-         weightScanner.nextLine();
+      if (runThreads > 1)
+      {
+         runNetworkParallel();
+         recordRun(runStart);
+         return;
+      }
 
-         for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
+      if (inferenceBatchSize > 1)
+      {
+         runNetworkBatched();
+         recordRun(runStart);
+         return;
+      }
+
+      for (int tests = 0; tests < numTestCases; tests++)
+      {
+         loadInputs(tests, acts[INPUTS_LOC], 0);
+
+         for (int n = HIDDENS_ONE_LOC; n < outputLocation; n++)
          {
-            for (int k = 0; k < numActs[n-1]; k++)
+            double[] layerWeights = weights[n];
+            double[] prevActs = acts[n-1];
+            int width = numActs[n-1];
+
+            for (int k = 0; k < numActs[n]; k++)
             {
-               for (int j = 0; j < numActs[n]; j++)
-               {
-                  weights[n][k][j] = Double.parseDouble(weightScanner.nextLine());
-               }
-               weightScanner.nextLine();
+               acts[n][k] = kernels.dot(layerWeights, k * width, prevActs, 0, width);   //applying dot product
             }
-         }
+            activations[n].applyLayer(acts[n], acts[n], 0, numActs[n]);    //applying activation function
+         } // for (int n = HIDDENS_ONE_LOC; n < outputLocation; n++)
 
-         weightScanner.close();
-         System.out.println();
-         System.out.println("Weights have loaded");                        //indicates completion
-      } //try
+         int n = outputLocation;
+         double[] layerWeights = weights[n];
+         double[] prevActs = acts[n-1];
+         int width = numActs[n-1];
 
-      catch(FileNotFoundException e)
-      {
-         System.out.println();
-         System.out.println("Weights could not be loaded");
-      }
-   } //public void loadWeights()
+         for (int i = 0; i < numActs[n]; i++)
+         {
+            acts[n][i] = kernels.dot(layerWeights, i * width, prevActs, 0, width);
+         }
+         activations[n].applyLayer(acts[n], acts[n], 0, numActs[n]);
+         System.arraycopy(acts[n], 0, finalOutputs[tests], 0, numActs[n]);
+      } //for (int tests = 0; tests < numTestCases; tests++)
+      recordRun(runStart);
+   } //public void runNetwork()
 
    /**
-    * Calculates a random weight value using the high and low variables
-    *
-    * @param high - higher bound of randomized weight value calculation
-    * @param low - lower bound of randomized weight value calculation
-    * @return randomized value for weight
+    * Gives the metrics the time of a run over every test case that started at runStart
     */
-   public double randomize(double high, double low)
+   private void recordRun(long runStart)
    {
-      return Math.random() * (high - low) + low;
+      if (metrics != null)
+      {
+         metrics.addRun(numTestCases, System.nanoTime() - runStart);
+      }
    }
 
    /**
-    * Sigmoid calculation
-    *
-    * @param input: input into the sigmoid
-    * @return the output of the sigmoid
+    * Gives the number of weights in every connectivity layer
     */
-   public double sigmoid(double input)
+   private long countWeights()
    {
-      input =  1.0 / (1.0 + Math.exp(-input));
-      return input;
+      long count = 0L;
+      for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
+      {
+         count += weights[n].length;
+      }
+      return count;
    }
 
    /**
-    * Sigmoid derivative calculation
+    * Creates an immutable model of the current weights, which any number of threads may run at once
     *
-    * @param input: input into the sigmoid derivative
-    * @return the output of the sigmoid derivative
+    * @return the model
     */
-   public double sigmoidDeriv(double input)
+   public NetworkModel createModel()
    {
-      input = sigmoid(input);
-      return input * (1.0 - input);
+      return NetworkModel.snapshot(this);
    }
 
    /**
-    * Activation function
+    * Creates a predictor for single samples with the current weights, which later training does not change
     *
-    * @param input: input into the activation function
-    * @return the output of the activation function
+    * @return the predictor
     */
-   public double activationFunction(double input)
+   public Predictor createPredictor()
    {
-      return sigmoid(input);
+      return new Predictor(createModel());
    }
 
    /**
-    * Calculates the derivative of the activation function, in this case a sigmoid
-    *
-    * @param in: value of the activation function
-    * @return the derivative of the input activation
+    * Runs the network over all inputs on runThreads threads.
+    * The test cases are split into one contiguous share per thread. Every thread runs its share through the same
+    * model of the current weights with its own workspace and writes only its own rows of finalOutputs, so the
+    * outputs are exactly those of the single threaded pass.
     */
-   public double activationDeriv(double in)
+   public void runNetworkParallel()
    {
-      return sigmoidDeriv(in);
-   }
+      NetworkModel model = createModel();
+      int threads = Math.max(1, Math.min(runThreads, numTestCases));
+      ExecutorService pool = Executors.newFixedThreadPool(threads);
+      List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+      for (int t = 0; t < threads; t++)
+      {
+         int first = (int) ((long) numTestCases * t / threads);
+         int last = (int) ((long) numTestCases * (t + 1) / threads);
+         tasks.add(() ->
+         {
+            Workspace workspace = model.createWorkspace();
+            for (int tests = first; tests < last; tests++)
+            {
+               loadInputs(tests, workspace.acts[INPUTS_LOC], 0);
+               double[] outputs = model.forward(workspace);
+               System.arraycopy(outputs, 0, finalOutputs[tests], 0, outputs.length);
+            }
+            return null;
+         });
+      } // for (int t = 0; t < threads; t++)
 
+      try
+      {
+         runTasks(pool, tasks);
+      }
+      finally
+      {
+         pool.shutdown();
+      }
+   } //public void runNetworkParallel()
 
    /**
-    * Performs the forward pass for training hidden and output activations.
-    * Updates the activations based on dot product of weights and input dataset.
-    * Also applies the activation function
+    * Runs the network over all inputs a block of inferenceBatchSize test cases at a time.
+    * Each layer is computed for the whole block before moving to the next layer, so every weight is read
+    * from memory once per block instead of once per test case.
     */
-   public void trainingForwardPass(int pass)
+   public void runNetworkBatched()
    {
-      for (int n = HIDDENS_ONE_LOC; n < outputLocation; n++)
+      int blockSize = Math.min(inferenceBatchSize, numTestCases);
+      allocateBatchActs(blockSize);
+
+      int width = numActs[INPUTS_LOC];
+      int outputs = numActs[outputLocation];
+
+      for (int first = 0; first < numTestCases; first += blockSize)
       {
-         for (int k = 0; k < numActs[n]; k++)
+         int count = Math.min(blockSize, numTestCases - first);
+
+         for (int b = 0; b < count; b++)
          {
-            thetas[n][k] = 0.0;                                              //clearing saved theta
-            for (int j = 0; j < numActs[n-1]; j++)
-            {
-               thetas[n][k] += weights[n][j][k] * acts[n-1][j];              //applying dot product
-            }
-            acts[n][k] = activationFunction(thetas[n][k]);                   //applying activation function
-         } //for (int k = 0; k < numActs[n]; k++)
-      } //for (int n = HIDDENS_ONE_LOC; n < outputLocation; n++)
+            loadInputs(first + b, batchActs[INPUTS_LOC], b * width);
+         }
 
-      double tempTheta;
-      int n = outputLocation;
-      for (int k = 0; k < numActs[n]; k++)                                    //finding hidden to output
-      {
-         tempTheta = 0.0;                                                     //clearing temp theta
-         for (int j = 0; j < numActs[n-1]; j++)
+         for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
          {
-            tempTheta += weights[n][j][k] * acts[n-1][j];                     //applying dot product
+            batchForwardLayer(n, count);
          }
-         acts[n][k] = activationFunction(tempTheta);                          //applying activation function
-         psis[n][k] = (outputDataset[pass][k] - acts[n][k]) * (activationDeriv(tempTheta));
-      } // for (int k = 0; k < numActs[n]; k++)
-      return;
-   } // public void trainingForwardPass(int pass)
+
+         for (int b = 0; b < count; b++)
+         {
+            System.arraycopy(batchActs[outputLocation], b * outputs, finalOutputs[first + b], 0, outputs);
+         }
+      } // for (int first = 0; first < numTestCases; first += blockSize)
+   } //public void runNetworkBatched()
 
    /**
-    * Performs a single forward pass for running
+    * Makes sure batchActs can hold a block of blockSize test cases
+    *
+    * @param blockSize number of test cases in a block
     */
-   public void runForwardPass()
+   public void allocateBatchActs(int blockSize)
    {
-      for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
+      if (batchActs == null || batchActs[INPUTS_LOC].length < blockSize * numActs[INPUTS_LOC])
       {
-         for (int k = 0; k < numActs[n]; k++)
+         batchActs = new double[numTotalLayers][];
+         for (int n = 0; n < numTotalLayers; n++)
          {
-            thetas[n][k] = 0.0;                                                 //clearing temp theta
-            for (int m = 0; m < numActs[n-1]; m++)
-            {
-               thetas[n][k] += weights[n][m][k] * acts[n-1][m];                 //applying dot product
-            }
-            acts[n][k] = activationFunction(thetas[n][k]);                      //applying activation function
-         } // for (int k = 0; k < numActHiddenOne; k++)
-      } // for (int n = HIDDENS_ONE_LOC; n < numTotalLayers; n++)
-
+            batchActs[n] = new double[blockSize * numActs[n]];
+         }
+      }
       return;
-   } // public void runForwardPass()
+   } //public void allocateBatchActs(int blockSize)
 
    /**
-    * Initializes training for the network. Until an error threshold or number of iterations is met,
-    * the network makes a forward pass, calculates the error, stores that, and then applies that to
-    * adjust its weights.
+    * Computes layer n for the first count test cases in batchActs as a product of the activation block of
+    * layer n-1 and the weight matrix of layer n. The input nodes are split into tiles of BATCH_TILE, and each
+    * tile of a weight row is applied to every test case of the block while it is still in cache.
+    * Four test cases share each weight load, which gives the processor four independent sums to work on instead
+    * of one chain of dependent additions. Each weighted sum is still accumulated in input node order, so the
+    * results match runNetwork exactly.
+    *
+    * @param n the layer being computed
+    * @param count number of test cases in the block
     */
-   public void trainNetwork()
+   public void batchForwardLayer(int n, int count)
    {
-      iterTracker = 0;
-      boolean trainingBool = false;
-      double omegas;
-      long startTime = System.currentTimeMillis();
-      System.out.println();
+      double[] layerWeights = weights[n];
+      double[] prevActs = batchActs[n-1];
+      double[] layerActs = batchActs[n];
+      int width = numActs[n-1];
+      int nodes = numActs[n];
 
-      while (!trainingBool)
+      for (int tile = 0; tile < width; tile += BATCH_TILE)
       {
-         tempError = 0.0;
-         for (int k = 0; k < numTestCases; k++)
-         {
-            for (int j = 0; j < numActs[INPUTS_LOC]; j++)
-            {
-               acts[INPUTS_LOC][j] = inputDataset[k][j];
-            }
-
-            trainingForwardPass(k);
-
-            for (int n = outputLocation-1; n > HIDDENS_ONE_LOC; n--)
-            {
-               for (int j = 0; j < numActs[n]; j++)
-               {
-                  omegas = 0.0;
-                  for (int m = 0; m < numActs[n+1]; m++)
-                  {
-                     omegas += psis[n+1][m] * weights[n+1][j][m];
-                     weights[n+1][j][m] += lambda * acts[n][j] * psis[n+1][m];
-                  }
-                  psis[n][j] = omegas * activationDeriv(thetas[n][j]);
-               } // for (int j = 0; j < numActs[n]; j++)
-            } // for (int n = outputLocation-1; n > HIDDENS_ONE_LOC; n--)
+         int tileEnd = Math.min(tile + BATCH_TILE, width);
 
-            int n = HIDDENS_ONE_LOC;
-            for (int j = 0; j < numActs[n]; j++)
+         for (int k = 0; k < nodes; k++)
+         {
+            int row = k * width;
+            int b = 0;
+            for (; b + BATCH_LANES <= count; b += BATCH_LANES)              //four test cases per weight load
             {
-               omegas = 0.0;
-               for (int m = 0; m < numActs[n+1]; m++)
+               int in0 = b * width;
+               int in1 = in0 + width;
+               int in2 = in1 + width;
+               int in3 = in2 + width;
+               double theta0 = 0.0;
+               double theta1 = 0.0;
+               double theta2 = 0.0;
+               double theta3 = 0.0;
+               if (tile > 0)
                {
-                  omegas += psis[n+1][m] * weights[n+1][j][m];
-                  weights[n+1][j][m] += lambda * acts[n][j] * psis[n+1][m];
+                  theta0 = layerActs[b * nodes + k];
+                  theta1 = layerActs[(b + 1) * nodes + k];
+                  theta2 = layerActs[(b + 2) * nodes + k];
+                  theta3 = layerActs[(b + 3) * nodes + k];
                }
-               psis[n][j] = omegas * activationDeriv(thetas[n][j]);
 
-               for (int l = 0; l < numActs[INPUTS_LOC]; l++)
+               for (int j = tile; j < tileEnd; j++)
                {
-                  weights[n][l][j] += lambda * acts[n-1][l] * psis[n][j];
+                  double weight = layerWeights[row + j];
+                  theta0 += weight * prevActs[in0 + j];                        //applying dot products
+                  theta1 += weight * prevActs[in1 + j];
+                  theta2 += weight * prevActs[in2 + j];
+                  theta3 += weight * prevActs[in3 + j];
                }
-            } //for (int j = 0; j < numActs[n]; j++)
-
-            runForwardPass();
-
-            n = outputLocation;
-            for (int j = 0; j < numActs[n]; j++)
-            {
-               finalOutputs[k][j] = acts[n][j];
-               tempError += 0.5 * (outputDataset[k][j]-acts[n][j]) * (outputDataset[k][j]-acts[n][j]);
-            }
-         } // for (int k = 0; k < numTestCases; k++)
-
-         iterTracker++;
-         errorTracker = (tempError/ (double) numTestCases);
-         trainingBool = ((errorTracker < errorThresh) || (iterTracker >= maxIter));
-
-         if (keepAliveTracker != 0 && iterTracker % keepAliveTracker == 0)
-         {
-            System.out.printf("Iteration %d, Error = %f\n", iterTracker, errorTracker);
-         }
-
-      } // while (!trainingBool)
-
-      elapsed = System.currentTimeMillis() - startTime;
-
-   } // public void trainNetwork()
-
-
-   /**
-    * Initializes the running of the network
-    * Executes a forward pass of the network for all inputs
-    */
-   public void runNetwork()
-   {
-      for (int tests = 0; tests < numTestCases; tests++)
-      {
-         for (int j = 0; j < numActs[INPUTS_LOC]; j++)
-         {
-            acts[INPUTS_LOC][j] = inputDataset[tests][j];
-         }
 
-         double tempTheta;
+               layerActs[b * nodes + k] = theta0;
+               layerActs[(b + 1) * nodes + k] = theta1;
+               layerActs[(b + 2) * nodes + k] = theta2;
+               layerActs[(b + 3) * nodes + k] = theta3;
+            } // for (; b + BATCH_LANES <= count; b += BATCH_LANES)
 
-         for (int n = HIDDENS_ONE_LOC; n < outputLocation; n++)
-         {
-            for (int k = 0; k < numActs[n]; k++)
+            for (; b < count; b++)                                            //remaining test cases of the block
             {
-               tempTheta = 0.0;                                                 //clearing temp theta
-               for (int m = 0; m < numActs[n-1]; m++)
+               int in = b * width;
+               double theta = (tile == 0) ? 0.0 : layerActs[b * nodes + k];
+               for (int j = tile; j < tileEnd; j++)
                {
-                  tempTheta += weights[n][m][k] * acts[n-1][m];                 //applying dot product
+                  theta += layerWeights[row + j] * prevActs[in + j];
                }
-               acts[n][k] = activationFunction(tempTheta);                      //applying activation function
-            } // for (int k = 0; k < numActHiddenOne; k++)
-         } // for (int n = HIDDENS_ONE_LOC; n < outputLocation; n++)
-
-         int n = outputLocation;
-         for (int i = 0; i < numActs[n]; i++)
-         {
-            tempTheta = 0.0;
-            for (int j = 0; j < numActs[n-1]; j++)
-            {
-               tempTheta += weights[n][j][i] * acts[n-1][j];
+               layerActs[b * nodes + k] = theta;
             }
-            acts[n][i] = activationFunction(tempTheta);
-            finalOutputs[tests][i] = acts[n][i];
-         } // for (int i = 0; i < numActs[n]; i++)
-      } //for (int tests = 0; tests < numTestCases; tests++)
-   } //public void runNetwork()
+         } // for (int k = 0; k < nodes; k++)
+      } // for (int tile = 0; tile < width; tile += BATCH_TILE)
+
+      for (int b = 0; b < count; b++)
+      {
+         activations[n].applyLayer(layerActs, layerActs, b * nodes, nodes);    //applying activation function
+      }
+   } //public void batchForwardLayer(int n, int count)
 
    /**
     * Reports results for the training or running of the network.
@@ -812,6 +2070,7 @@ public class Network
       network.echoConfigParams();
       network.allocateArrays();
       network.populateArrays();
+      network.createMetrics();
 
       if (network.training)
       {
@@ -825,6 +2084,12 @@ public class Network
       {
          network.saveWeights();
       }
+
+      if (network.metrics != null)
+      {
+         network.metrics.printSummary();
+         network.metrics.close();
+      }
    } //public static void main(String[] args)
 } //public class Network
 
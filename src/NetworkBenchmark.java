@@ -0,0 +1,942 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+
+/**
+ * This class is the benchmark suite of the network. Every benchmark is run through a BenchmarkRunner for each
+ * network shape, so warmup, measurement and the JSON results work the same way for all of them:
+ *    forwardPass.jagged   - forward pass over a jagged [n][j][k] copy of the weights, the layout used before
+ *    forwardPass.flat     - runForwardPass over the flat row-major weights
+ *    trainingPass         - trainingForwardPass followed by backPropagate for one test case, for each activation
+ *    runNetwork           - inference over INFERENCE_CASES test cases, one at a time, in batches and split across
+ *                           every processor (at least two threads) through a NetworkModel
+ *    predict              - Predictor.predict on one test case after another, printed along with its latency
+ *                           percentiles and the bytes each call allocates
+ *    trainEpoch           - one training epoch with the exact and the estimated error modes
+ *    saveWeights          - saveWeights in the binary and the text format
+ *    loadWeights          - loadWeights from the binary and the text format
+ *    populateArrays       - random weights and the text dataset of DATASET_CASES test cases
+ *    initializeWeights    - random weights from Math.random, the single locked generator used before, and from
+ *                           randomizeWeights with each scheme of WEIGHT_INITS on every processor
+ *    loadDataset.binary   - loadDataset from the same test cases stored as a binary dataset
+ *    activation           - each activation function and its derivative over ACTIVATION_VALUES weighted sums,
+ *                           printed along with its largest error against the exact sigmoid
+ *    trainToThreshold     - training CONVERGENCE_SHAPE from the same weights until CONVERGENCE_THRESHOLD with each
+ *                           optimizer, whose iterations to the threshold are part of the params
+ *    precision.*          - the convergence, final error and throughput of double precision against float precision
+ *                           with float and with double accumulation: trainToThreshold on CONVERGENCE_SHAPE from
+ *                           the same weights, with the iterations and final error as params, and trainEpoch and
+ *                           runNetwork on PRECISION_SHAPE
+ *    kernels.*            - the dot product, omega accumulation (addScaled) and gradient descent update (addProduct)
+ *                           of the scalar kernels and, when run with --add-modules jdk.incubator.vector and
+ *                           VectorKernels compiled, the vector kernels, over KERNEL_VALUES values split into rows
+ *                           of each of KERNEL_WIDTHS
+ *    bmpDecode            - BmpPipeline converting the images in "Converted Images" with one thread and with
+ *                           every processor, when run from src
+ *    grayscale            - gray levels of every pel of the first image through the packed int helpers and through
+ *                           the RgbQuad path used before, printed along with the bytes each allocates per pel and
+ *                           the bytes a decoder allocates per image beyond its file and image buffers
+ * The files the I/O benchmarks use are written to a temporary directory, which is deleted afterwards.
+ *
+ * Usage: java NetworkBenchmark [-shapes 2-2-1,100-50-5] [-wi warmups] [-i iterations] [-time ms]
+ *                              [-include text] [-json results.json]
+ * Only benchmarks whose name contains the -include text are run.
+ *
+ * Methods:
+ * public static Network createNetwork(int[] shape, int cases)
+ * public static int[] parseShape(String shape)
+ * public static double[][][] toJagged(Network network)
+ * public static double jaggedForwardPass(Network network, double[][][] jagged)
+ * public static void writeTextDataset(Network network, String fileName)
+ * public static void benchmarkShape(BenchmarkRunner runner, String shapeName, String include, File directory)
+ * public static void benchmarkActivations(BenchmarkRunner runner, String include)
+ * public static void benchmarkOptimizers(BenchmarkRunner runner, String include)
+ * public static void setPrecision(Network network, String mode)
+ * public static void benchmarkPrecision(BenchmarkRunner runner, String include)
+ * public static void benchmarkKernels(BenchmarkRunner runner, String include)
+ * public static void benchmarkImages(BenchmarkRunner runner, String include, File directory)
+ * public static void benchmarkGrayscale(BenchmarkRunner runner, String include)
+ * public static void main(String[] args)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class NetworkBenchmark
+{
+   public static final String DEFAULT_SHAPES = "2-2-1,100-50-5,10000-100-5";
+   public static final int DEFAULT_WARMUPS = 2;
+   public static final int DEFAULT_ITERATIONS = 5;
+   public static final long DEFAULT_ITERATION_MILLIS = 1000;
+   public static final long NANOS_PER_MILLI = 1_000_000L;
+   public static final int INFERENCE_CASES = 256;
+   public static final int INFERENCE_BATCH = 32;
+   public static final int TRAINING_CASES = 32;
+   public static final int DATASET_CASES = 32;
+   public static final double BENCHMARK_LAMBDA = 0.001;   // small, so repeated updates do not saturate the weights
+   public static final String[] ACTIVATIONS = {SigmoidActivation.NAME, TableSigmoidActivation.NAME};
+   public static final int ACTIVATION_VALUES = 4096;
+   public static final double ACTIVATION_RANGE = 20.0;    // weighted sums are spread over -RANGE to RANGE
+   public static final String CONVERGENCE_SHAPE = "100-20-5";
+   public static final int CONVERGENCE_CASES = 25;
+   public static final double CONVERGENCE_THRESHOLD = 2.0e-4;
+   public static final int CONVERGENCE_MAX_ITERATIONS = 2000;
+   public static final String[] OPTIMIZERS = {SgdOptimizer.NAME, MomentumOptimizer.NAME, NesterovOptimizer.NAME,
+                                              RmsPropOptimizer.NAME, AdamOptimizer.NAME};
+   public static final double[] OPTIMIZER_RATES = {0.3, 0.1, 0.1, 0.01, 0.01};  // learning rate of each optimizer
+   public static final String IMAGE_DIRECTORY = "Converted Images";
+   public static final String[] PRECISIONS = {"double", "float", "float+double"};  // precision and accumulation
+   public static final String PRECISION_SHAPE = "10000-100-5";
+   public static final String[] WEIGHT_INITS = {Network.UNIFORM_INIT, Network.XAVIER_INIT, Network.HE_INIT};
+   public static final int[] KERNEL_WIDTHS = {16, 100, 1000, 10000};
+   public static final int KERNEL_VALUES = 1 << 20;        // values each kernel benchmark goes through per operation
+   public static double sink;                      // results are summed here so the work cannot be optimized away
+
+   /**
+    * Builds a network of the given shape with random test cases and random weights in [-1, 1)
+    * without reading a control file. The first test case is copied into the input activations.
+    *
+    * @param shape number of activations in each layer, input layer first
+    * @param cases number of test cases
+    * @return a network ready for forward passes
+    */
+   public static Network createNetwork(int[] shape, int cases)
+   {
+      Network network = new Network();
+      network.numTotalLayers = shape.length;
+      network.numConLayers = shape.length - 1;
+      network.outputLocation = shape.length - 1;
+      network.numTestCases = cases;
+      network.numActs = shape.clone();
+      network.training = true;
+
+      for (int n = 0; n < shape.length; n++)
+      {
+         network.maxTotalNodes = Math.max(network.maxTotalNodes, shape[n]);
+         if (n > 0)
+         {
+            network.maxHiddenOutputNodes = Math.max(network.maxHiddenOutputNodes, shape[n]);
+         }
+      }
+
+      network.allocateArrays();
+
+      for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+      {
+         for (int w = 0; w < network.weights[n].length; w++)
+         {
+            network.weights[n][w] = network.randomize(1.0, -1.0);
+         }
+      }
+
+      for (int k = 0; k < cases; k++)
+      {
+         for (int j = 0; j < shape[Network.INPUTS_LOC]; j++)
+         {
+            network.inputDataset[k][j] = Math.random();
+         }
+         network.outputDataset[k][k % shape[network.outputLocation]] = 1.0;
+      }
+      System.arraycopy(network.inputDataset[0], 0, network.acts[Network.INPUTS_LOC], 0, shape[Network.INPUTS_LOC]);
+      return network;
+   } //public static Network createNetwork(int[] shape, int cases)
+
+   /**
+    * Parses a shape such as 100-50-5 into layer sizes
+    *
+    * @param shape dash separated layer sizes
+    * @return number of activations in each layer
+    */
+   public static int[] parseShape(String shape)
+   {
+      String[] parts = shape.split("-");
+      int[] sizes = new int[parts.length];
+      for (int n = 0; n < parts.length; n++)
+      {
+         sizes[n] = Integer.parseInt(parts[n].trim());
+      }
+      return sizes;
+   }
+
+   /**
+    * Copies the flat weights of a network into the jagged [n][j][k] layout used before the weights were flattened
+    *
+    * @param network network whose weights are copied
+    * @return jagged copy of the weights
+    */
+   public static double[][][] toJagged(Network network)
+   {
+      double[][][] jagged = new double[network.numTotalLayers][][];
+      for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+      {
+         int width = network.numActs[n-1];
+         jagged[n] = new double[width][network.numActs[n]];
+         for (int j = 0; j < width; j++)
+         {
+            for (int k = 0; k < network.numActs[n]; k++)
+            {
+               jagged[n][j][k] = network.weights[n][k * width + j];
+            }
+         }
+      }
+      return jagged;
+   } //public static double[][][] toJagged(Network network)
+
+   /**
+    * Forward pass over jagged weights with the input node as the inner loop, as the network used to run it
+    *
+    * @param network network supplying the activation arrays
+    * @param jagged weights in [n][j][k] layout
+    * @return the first output activation, so the work cannot be optimized away
+    */
+   public static double jaggedForwardPass(Network network, double[][][] jagged)
+   {
+      for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+      {
+         for (int k = 0; k < network.numActs[n]; k++)
+         {
+            double theta = 0.0;
+            for (int j = 0; j < network.numActs[n-1]; j++)
+            {
+               theta += jagged[n][j][k] * network.acts[n-1][j];
+            }
+            network.acts[n][k] = theta;
+         }
+         network.activations[n].applyLayer(network.acts[n], network.acts[n], 0, network.numActs[n]);
+      }
+      return network.acts[network.outputLocation][0];
+   } //public static double jaggedForwardPass(Network network, double[][][] jagged)
+
+   /**
+    * Writes the test cases of a network in the text dataset format loadDataset reads: two header lines,
+    * the inputs of each case in turn, a separator line, then the expected values of each output over all cases
+    *
+    * @param network network holding the test cases
+    * @param fileName the dataset file
+    * @throws IOException if the file cannot be written
+    */
+   public static void writeTextDataset(Network network, String fileName) throws IOException
+   {
+      try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(fileName))))
+      {
+         out.println("Inputs:");
+         out.println();
+         for (int k = 0; k < network.numTestCases; k++)
+         {
+            for (int j = 0; j < network.numActs[Network.INPUTS_LOC]; j++)
+            {
+               out.println(network.inputDataset[k][j] + "=case " + k);
+            }
+         }
+
+         out.println("Outputs:");
+         for (int i = 0; i < network.numActs[network.outputLocation]; i++)
+         {
+            for (int k = 0; k < network.numTestCases; k++)
+            {
+               out.println(network.outputDataset[k][i]);
+            }
+         }
+      } //try (PrintWriter out = ...)
+   } //public static void writeTextDataset(Network network, String fileName)
+
+   /**
+    * Runs every included benchmark of one network shape
+    *
+    * @param runner the runner recording the results
+    * @param shapeName shape such as 100-50-5
+    * @param include only benchmarks whose name contains this text are run
+    * @param directory directory for the weight and dataset files
+    * @throws IOException if a fixture file cannot be written
+    */
+   public static void benchmarkShape(BenchmarkRunner runner, String shapeName, String include, File directory)
+         throws IOException
+   {
+      int[] shape = parseShape(shapeName);
+      String params = "shape=" + shapeName;
+
+      if ("forwardPass.jagged".contains(include))
+      {
+         Network network = createNetwork(shape, 1);
+         double[][][] jagged = toJagged(network);
+         runner.run("forwardPass.jagged", params, () -> sink += jaggedForwardPass(network, jagged));
+      }
+
+      if ("forwardPass.flat".contains(include))
+      {
+         Network network = createNetwork(shape, 1);
+         runner.run("forwardPass.flat", params, () ->
+         {
+            network.runForwardPass();
+            sink += network.acts[network.outputLocation][0];
+         });
+      }
+
+      if ("trainingPass".contains(include))
+      {
+         for (String name : ACTIVATIONS)
+         {
+            Network network = createNetwork(shape, 1);
+            network.lambda = BENCHMARK_LAMBDA;
+            network.setActivations(name);
+            runner.run("trainingPass", params + ",activation=" + name, () ->
+            {
+               network.trainingForwardPass(0);
+               network.backPropagate();
+               sink += network.psis[network.outputLocation][0];
+            });
+         }
+      } // if ("trainingPass".contains(include))
+
+      if ("runNetwork".contains(include))
+      {
+         Network network = createNetwork(shape, INFERENCE_CASES);
+         for (int batch : new int[] {1, INFERENCE_BATCH})
+         {
+            network.inferenceBatchSize = batch;
+            runner.run("runNetwork", params + ",cases=" + INFERENCE_CASES + ",batch=" + batch, () ->
+            {
+               network.runNetwork();
+               sink += network.finalOutputs[0][0];
+            });
+         }
+         network.inferenceBatchSize = 1;
+
+         network.runThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+         runner.run("runNetwork", params + ",cases=" + INFERENCE_CASES + ",threads=" + network.runThreads, () ->
+         {
+            network.runNetwork();
+            sink += network.finalOutputs[0][0];
+         });
+         network.runThreads = 1;
+      } // if ("runNetwork".contains(include))
+
+      if ("predict".contains(include))
+      {
+         Network network = createNetwork(shape, INFERENCE_CASES);
+         Predictor predictor = network.createPredictor();
+         double[] outputs = new double[predictor.getOutputCount()];
+         int[] next = new int[1];                                //test case predicted next
+         Runnable predict = () ->
+         {
+            predictor.predict(network.inputDataset[next[0]], outputs);
+            next[0] = (next[0] + 1) % INFERENCE_CASES;
+            sink += outputs[0];
+         };
+
+         runner.run("predict", params, predict);
+         predictor.getLatency().printSummary("predict " + params);
+         System.out.printf("predict allocation: %.3f bytes/call\n", allocatedBytes(() ->
+         {
+            for (int k = 0; k < INFERENCE_CASES; k++)
+            {
+               predict.run();
+            }
+         }) / (double) INFERENCE_CASES);
+      } // if ("predict".contains(include))
+
+      if ("trainEpoch".contains(include))
+      {
+         Network network = createNetwork(shape, TRAINING_CASES);
+         network.lambda = BENCHMARK_LAMBDA;
+         network.maxIter = 1;
+         network.errorThresh = 0.0;
+         network.keepAliveTracker = 0;
+
+         for (int mode : new int[] {Network.EXACT_ERROR, Network.ESTIMATED_ERROR})
+         {
+            network.errorMode = mode;
+            runner.run("trainEpoch", params + ",cases=" + TRAINING_CASES + ",errorMode=" +
+                       (mode == Network.EXACT_ERROR ? "exact" : "estimate"), () ->
+            {
+               network.trainNetwork();
+               sink += network.errorTracker;
+            });
+         }
+      } // if ("trainEpoch".contains(include))
+
+      if ("saveWeights".contains(include) || "loadWeights".contains(include))
+      {
+         Network network = createNetwork(shape, 1);
+         for (String format : new String[] {Network.BINARY_WEIGHTS, Network.TEXT_WEIGHTS})
+         {
+            network.weightFormat = format;
+            network.weightFile = new File(directory, shapeName + "." + format).getPath();
+            network.saveWeights();
+
+            if ("saveWeights".contains(include))
+            {
+               runner.run("saveWeights", params + ",format=" + format, network::saveWeights);
+            }
+            if ("loadWeights".contains(include))
+            {
+               runner.run("loadWeights", params + ",format=" + format, () ->
+               {
+                  network.loadWeights();
+                  sink += network.weights[Network.HIDDENS_ONE_LOC][0];
+               });
+            }
+         } // for (String format : new String[] {Network.BINARY_WEIGHTS, Network.TEXT_WEIGHTS})
+      } // if ("saveWeights".contains(include) || "loadWeights".contains(include))
+
+      if ("populateArrays".contains(include) || "loadDataset.binary".contains(include))
+      {
+         Network network = createNetwork(shape, DATASET_CASES);
+         network.lowRandWeight = -1.0;
+         network.highRandWeight = 1.0;
+         network.weightsMode = 2;
+
+         String textFile = new File(directory, shapeName + ".txt").getPath();
+         String binaryFile = new File(directory, shapeName + ".bin").getPath();
+         writeTextDataset(network, textFile);
+         BinaryDataset.write(binaryFile, BinaryDataset.TYPE_FLOAT64, network.inputDataset, network.outputDataset);
+
+         if ("populateArrays".contains(include))
+         {
+            network.inputFile = textFile;
+            runner.run("populateArrays", params + ",cases=" + DATASET_CASES + ",format=text", () ->
+            {
+               network.populateArrays();
+               sink += network.inputDataset[0][0];
+            });
+         }
+         if ("loadDataset.binary".contains(include))
+         {
+            network.inputFile = binaryFile;
+            runner.run("loadDataset.binary", params + ",cases=" + DATASET_CASES + ",format=float64", () ->
+            {
+               network.loadDataset();
+               sink += network.inputDataset[0][0];
+            });
+         }
+      } // if ("populateArrays".contains(include) || "loadDataset.binary".contains(include))
+
+      if ("initializeWeights".contains(include))
+      {
+         Network network = createNetwork(shape, 1);
+         network.lowRandWeight = -1.0;
+         network.highRandWeight = 1.0;
+
+         runner.run("initializeWeights", params + ",path=mathRandom", () ->
+         {
+            for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+            {
+               for (int w = 0; w < network.weights[n].length; w++)
+               {
+                  network.weights[n][w] = Math.random() * (network.highRandWeight - network.lowRandWeight) +
+                                          network.lowRandWeight;
+               }
+            }
+            sink += network.weights[Network.HIDDENS_ONE_LOC][0];
+         });
+
+         for (String scheme : WEIGHT_INITS)
+         {
+            network.weightInit = scheme;
+            runner.run("initializeWeights", params + ",init=" + scheme + ",threads=" + network.numThreads, () ->
+            {
+               network.randomizeWeights();
+               sink += network.weights[Network.HIDDENS_ONE_LOC][0];
+            });
+         }
+      } // if ("initializeWeights".contains(include))
+   } //public static void benchmarkShape(...)
+
+   /**
+    * Benchmarks each activation function with its derivative over weighted sums spread evenly across
+    * -ACTIVATION_RANGE to ACTIVATION_RANGE, and prints the largest errors against the exact sigmoid
+    *
+    * @param runner the runner recording the results
+    * @param include only benchmarks whose name contains this text are run
+    */
+   public static void benchmarkActivations(BenchmarkRunner runner, String include)
+   {
+      if (!"activation".contains(include))
+      {
+         return;
+      }
+
+      double[] thetas = new double[ACTIVATION_VALUES];
+      for (int i = 0; i < ACTIVATION_VALUES; i++)
+      {
+         thetas[i] = ACTIVATION_RANGE * (2.0 * i / (ACTIVATION_VALUES - 1) - 1.0);
+      }
+
+      NodeActivation exact = new SigmoidActivation();
+      for (String name : ACTIVATIONS)
+      {
+         NodeActivation activation = (NodeActivation) Activation.forName(name);
+         double maxError = 0.0;
+         double maxDerivError = 0.0;
+         for (double theta : thetas)
+         {
+            double value = activation.apply(theta);
+            double exactValue = exact.apply(theta);
+            maxError = Math.max(maxError, Math.abs(value - exactValue));
+            maxDerivError = Math.max(maxDerivError, Math.abs(activation.derivative(theta, value) -
+                                     exact.derivative(theta, exactValue)));
+         }
+
+         runner.run("activation", "function=" + name + ",values=" + ACTIVATION_VALUES, () ->
+         {
+            double sum = 0.0;
+            for (double theta : thetas)
+            {
+               double value = activation.apply(theta);
+               sum += value + activation.derivative(theta, value);
+            }
+            sink += sum;
+         });
+         System.out.printf("%-20s max error %.3e, derivative max error %.3e\n", "", maxError, maxDerivError);
+      } // for (String name : ACTIVATIONS)
+   } //public static void benchmarkActivations(BenchmarkRunner runner, String include)
+
+   /**
+    * Trains CONVERGENCE_SHAPE on random test cases with each optimizer, always starting from the same weights,
+    * and benchmarks a whole training run to CONVERGENCE_THRESHOLD or CONVERGENCE_MAX_ITERATIONS
+    *
+    * @param runner the runner recording the results
+    * @param include only benchmarks whose name contains this text are run
+    */
+   public static void benchmarkOptimizers(BenchmarkRunner runner, String include)
+   {
+      if (!"trainToThreshold".contains(include))
+      {
+         return;
+      }
+
+      Network network = createNetwork(parseShape(CONVERGENCE_SHAPE), CONVERGENCE_CASES);
+      network.errorThresh = CONVERGENCE_THRESHOLD;
+      network.maxIter = CONVERGENCE_MAX_ITERATIONS;
+      network.keepAliveTracker = 0;
+
+      double[][] initialWeights = new double[network.numTotalLayers][];
+      for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+      {
+         for (int w = 0; w < network.weights[n].length; w++)
+         {
+            network.weights[n][w] = network.randomize(0.5, -0.5);
+         }
+         initialWeights[n] = network.weights[n].clone();
+      }
+
+      for (int o = 0; o < OPTIMIZERS.length; o++)
+      {
+         network.optimizerName = OPTIMIZERS[o];
+         network.lambda = OPTIMIZER_RATES[o];
+         Runnable training = () ->
+         {
+            for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+            {
+               System.arraycopy(initialWeights[n], 0, network.weights[n], 0, initialWeights[n].length);
+            }
+            network.createOptimizer();
+            network.trainNetwork();
+            sink += network.errorTracker;
+         };
+
+         training.run();
+         runner.run("trainToThreshold", "shape=" + CONVERGENCE_SHAPE + ",optimizer=" + OPTIMIZERS[o] + ",lambda=" +
+                    OPTIMIZER_RATES[o] + ",iterations=" + network.iterTracker, training);
+      } // for (int o = 0; o < OPTIMIZERS.length; o++)
+   } //public static void benchmarkOptimizers(BenchmarkRunner runner, String include)
+
+   /**
+    * Sets the precision of a network from one of PRECISIONS
+    *
+    * @param network the network
+    * @param mode double, float, or float+double for float with double accumulation
+    */
+   public static void setPrecision(Network network, String mode)
+   {
+      network.precision = mode.startsWith(Network.FLOAT_PRECISION) ? Network.FLOAT_PRECISION :
+                          Network.DOUBLE_PRECISION;
+      network.doubleAccumulation = mode.endsWith(Network.DOUBLE_PRECISION);
+   }
+
+   /**
+    * Compares float precision with double precision. CONVERGENCE_SHAPE is trained with plain gradient descent to
+    * CONVERGENCE_THRESHOLD from the same weights in each precision, and the iterations it took, the final error
+    * and the largest difference of the trained weights from the double ones are printed. Then one training epoch
+    * and one run over INFERENCE_CASES test cases of PRECISION_SHAPE are benchmarked in each precision.
+    *
+    * @param runner the runner recording the results
+    * @param include only benchmarks whose name contains this text are run
+    */
+   public static void benchmarkPrecision(BenchmarkRunner runner, String include)
+   {
+      if ("precision.trainToThreshold".contains(include))
+      {
+         Network network = createNetwork(parseShape(CONVERGENCE_SHAPE), CONVERGENCE_CASES);
+         network.errorThresh = CONVERGENCE_THRESHOLD;
+         network.maxIter = CONVERGENCE_MAX_ITERATIONS;
+         network.keepAliveTracker = 0;
+         network.lambda = OPTIMIZER_RATES[0];
+
+         double[][] initialWeights = new double[network.numTotalLayers][];
+         double[][] doubleWeights = new double[network.numTotalLayers][];
+         for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+         {
+            for (int w = 0; w < network.weights[n].length; w++)
+            {
+               network.weights[n][w] = network.randomize(0.5, -0.5);
+            }
+            initialWeights[n] = network.weights[n].clone();
+         }
+
+         for (String mode : PRECISIONS)
+         {
+            setPrecision(network, mode);
+            Runnable training = () ->
+            {
+               for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+               {
+                  System.arraycopy(initialWeights[n], 0, network.weights[n], 0, initialWeights[n].length);
+               }
+               network.createOptimizer();
+               network.trainNetwork();
+               sink += network.errorTracker;
+            };
+
+            training.run();
+            double maxDifference = 0.0;
+            for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+            {
+               if (doubleWeights[n] == null)
+               {
+                  doubleWeights[n] = network.weights[n].clone();
+               }
+               for (int w = 0; w < network.weights[n].length; w++)
+               {
+                  maxDifference = Math.max(maxDifference, Math.abs(network.weights[n][w] - doubleWeights[n][w]));
+               }
+            } // for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+
+            runner.run("precision.trainToThreshold", "shape=" + CONVERGENCE_SHAPE + ",precision=" + mode +
+                       ",iterations=" + network.iterTracker, training);
+            System.out.printf("%-20s final error %.6e, largest weight difference from double %.3e\n", "",
+                              network.errorTracker, maxDifference);
+         } // for (String mode : PRECISIONS)
+      } // if ("precision.trainToThreshold".contains(include))
+
+      String params = "shape=" + PRECISION_SHAPE;
+      if ("precision.trainEpoch".contains(include))
+      {
+         Network network = createNetwork(parseShape(PRECISION_SHAPE), TRAINING_CASES);
+         network.lambda = BENCHMARK_LAMBDA;
+         network.maxIter = 1;
+         network.errorThresh = 0.0;
+         network.keepAliveTracker = 0;
+         network.errorMode = Network.ESTIMATED_ERROR;
+
+         for (String mode : PRECISIONS)
+         {
+            setPrecision(network, mode);
+            runner.run("precision.trainEpoch", params + ",cases=" + TRAINING_CASES + ",precision=" + mode, () ->
+            {
+               network.trainNetwork();
+               sink += network.errorTracker;
+            });
+         }
+      } // if ("precision.trainEpoch".contains(include))
+
+      if ("precision.runNetwork".contains(include))
+      {
+         Network network = createNetwork(parseShape(PRECISION_SHAPE), INFERENCE_CASES);
+         for (String mode : PRECISIONS)
+         {
+            setPrecision(network, mode);
+            runner.run("precision.runNetwork", params + ",cases=" + INFERENCE_CASES + ",precision=" + mode, () ->
+            {
+               network.runNetwork();
+               sink += network.finalOutputs[0][0];
+            });
+         }
+      } // if ("precision.runNetwork".contains(include))
+   } //public static void benchmarkPrecision(BenchmarkRunner runner, String include)
+
+   /**
+    * Benchmarks each kernel of the scalar and, if they load, the vector kernels over rows of each width.
+    * Every operation goes through KERNEL_VALUES weights, one row at a time, against one row of activations.
+    *
+    * @param runner the runner recording the results
+    * @param include only benchmarks whose name contains this text are run
+    */
+   public static void benchmarkKernels(BenchmarkRunner runner, String include)
+   {
+      if (!"kernels.dot".contains(include) && !"kernels.addScaled".contains(include) &&
+          !"kernels.addProduct".contains(include))
+      {
+         return;
+      }
+
+      Kernels[] kernelSets = {new ScalarKernels(), Kernels.forName(ScalarKernels.VECTOR_NAME)};
+      double[] weights = new double[KERNEL_VALUES];
+      for (int w = 0; w < KERNEL_VALUES; w++)
+      {
+         weights[w] = Math.random() - 0.5;
+      }
+
+      for (int width : KERNEL_WIDTHS)
+      {
+         int rows = KERNEL_VALUES / width;
+         double[] acts = new double[width];
+         for (int j = 0; j < width; j++)
+         {
+            acts[j] = Math.random();
+         }
+
+         for (int set = 0; set < kernelSets.length; set++)
+         {
+            Kernels kernels = kernelSets[set];
+            if (set > 0 && ScalarKernels.NAME.equals(kernels.getName()))
+            {
+               continue;                                   //the vector kernels did not load
+            }
+            String params = "kernels=" + kernels.getName() + ",width=" + width;
+
+            if ("kernels.dot".contains(include))
+            {
+               runner.run("kernels.dot", params, () ->
+               {
+                  double sum = 0.0;
+                  for (int r = 0; r < rows; r++)
+                  {
+                     sum += kernels.dot(weights, r * width, acts, 0, width);
+                  }
+                  sink += sum;
+               });
+            }
+            if ("kernels.addScaled".contains(include))
+            {
+               double[] omegas = new double[width];
+               runner.run("kernels.addScaled", params, () ->
+               {
+                  for (int r = 0; r < rows; r++)
+                  {
+                     kernels.addScaled(omegas, 0, weights, r * width, 1.0e-9, width);
+                  }
+                  sink += omegas[0];
+               });
+            }
+            if ("kernels.addProduct".contains(include))
+            {
+               runner.run("kernels.addProduct", params, () ->
+               {
+                  for (int r = 0; r < rows; r++)
+                  {
+                     kernels.addProduct(weights, r * width, acts, 1.0e-9, -1.0e-9, width);
+                  }
+                  sink += weights[0];
+               });
+            }
+         } // for (int set = 0; set < kernelSets.length; set++)
+      } // for (int width : KERNEL_WIDTHS)
+   } //public static void benchmarkKernels(BenchmarkRunner runner, String include)
+
+   /**
+    * Benchmarks converting the BMP images to gray scale bins, which needs the working directory to be src.
+    * The bins are written to the temporary directory.
+    *
+    * @param runner the runner recording the results
+    * @param include only benchmarks whose name contains this text are run
+    * @param directory directory for the bins
+    */
+   public static void benchmarkImages(BenchmarkRunner runner, String include, File directory)
+   {
+      File images = new File(IMAGE_DIRECTORY);
+      if (!"bmpDecode".contains(include) || !images.isDirectory())
+      {
+         return;
+      }
+
+      int count = images.list((dir, name) -> name.endsWith(BmpPipeline.BMP_EXTENSION)).length;
+      int processors = Runtime.getRuntime().availableProcessors();
+      for (int threads : processors > 1 ? new int[] {1, processors} : new int[] {1})
+      {
+         BmpPipeline pipeline = new BmpPipeline(IMAGE_DIRECTORY, directory.getPath(), threads);
+         runner.run("bmpDecode", "images=" + count + ",threads=" + threads, () ->
+         {
+            sink += pipeline.convertDirectory();
+         });
+      }
+   } //public static void benchmarkImages(BenchmarkRunner runner, String include, File directory)
+
+   /**
+    * Benchmarks converting the pels of the first image to gray levels and measures the memory allocated by the
+    * conversion and by decoding whole images, which needs the working directory to be src
+    *
+    * @param runner the runner recording the results
+    * @param include only benchmarks whose name contains this text are run
+    */
+   public static void benchmarkGrayscale(BenchmarkRunner runner, String include)
+   {
+      File[] images = new File(IMAGE_DIRECTORY).listFiles((dir, name) -> name.endsWith(BmpPipeline.BMP_EXTENSION));
+      if (!"grayscale".contains(include) || images == null || images.length == 0)
+      {
+         return;
+      }
+      java.util.Arrays.sort(images);
+
+      BMP2OneByte decoder = new BMP2OneByte();
+      int[][] pels;
+      try
+      {
+         decoder.readImage(images[0].getPath());
+         pels = decoder.imageArray;
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+      int count = pels.length * pels[0].length;
+
+      Runnable packed = () ->
+      {
+         long sum = 0;
+         for (int[] row : pels)
+         {
+            for (int pel : row)
+            {
+               sum += BMP2OneByte.grayscale(pel);
+            }
+         }
+         sink += sum;
+      };
+      Runnable rgbQuad = () ->
+      {
+         long sum = 0;
+         for (int[] row : pels)
+         {
+            for (int pel : row)
+            {
+               RgbQuad rgb = decoder.pelToRGB(pel);
+               sum += (int) Math.round(0.3 * (double) rgb.red + 0.589 * (double) rgb.green +
+                                       0.11 * (double) rgb.blue);
+            }
+         }
+         sink += sum;
+      };
+
+      runner.run("grayscale", "pels=" + count + ",path=packed", packed);
+      runner.run("grayscale", "pels=" + count + ",path=rgbQuad", rgbQuad);
+
+      System.out.printf("grayscale allocation: packed %.3f bytes/pel, rgbQuad %.3f bytes/pel\n",
+                        allocatedBytes(packed) / (double) count, allocatedBytes(rgbQuad) / (double) count);
+
+      long buffers = 0;
+      long allocated = allocatedBytes(() ->
+      {
+         for (File image : images)
+         {
+            try
+            {
+               BMP2OneByte imageDecoder = new BMP2OneByte();
+               imageDecoder.readImage(image.getPath());
+            }
+            catch (IOException e)
+            {
+               throw new RuntimeException(e);
+            }
+         }
+      });
+      for (File image : images)
+      {
+         buffers += image.length() + (long) count * (Integer.BYTES + 1);
+      }
+      System.out.printf("readImage allocation: %d bytes/image, %d bytes/image in file, pel and gray buffers\n",
+                        allocated / images.length, buffers / images.length);
+   } //public static void benchmarkGrayscale(BenchmarkRunner runner, String include)
+
+   /**
+    * Runs an operation on this thread after warming it up and gives the bytes of heap it allocated
+    */
+   private static long allocatedBytes(Runnable operation)
+   {
+      com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+      for (int i = 0; i < DEFAULT_WARMUPS * 100; i++)
+      {
+         operation.run();
+      }
+
+      long before = threads.getCurrentThreadAllocatedBytes();
+      operation.run();
+      return threads.getCurrentThreadAllocatedBytes() - before;
+   } //private static long allocatedBytes(Runnable operation)
+
+   /**
+    * Parses the options, runs the benchmarks of every shape and prints the results,
+    * writing them as JSON as well when a JSON file is given
+    */
+   public static void main(String[] args) throws IOException
+   {
+      String shapes = DEFAULT_SHAPES;
+      String include = "";
+      String jsonFile = null;
+      int warmups = DEFAULT_WARMUPS;
+      int iterations = DEFAULT_ITERATIONS;
+      long millis = DEFAULT_ITERATION_MILLIS;
+
+      for (int a = 0; a + 1 < args.length; a += 2)
+      {
+         switch (args[a])
+         {
+            case "-shapes":
+               shapes = args[a + 1];
+               break;
+            case "-include":
+               include = args[a + 1];
+               break;
+            case "-json":
+               jsonFile = args[a + 1];
+               break;
+            case "-wi":
+               warmups = Integer.parseInt(args[a + 1]);
+               break;
+            case "-i":
+               iterations = Integer.parseInt(args[a + 1]);
+               break;
+            case "-time":
+               millis = Long.parseLong(args[a + 1]);
+               break;
+            default:
+               throw new IllegalArgumentException("Unknown option " + args[a]);
+         }
+      } // for (int a = 0; a + 1 < args.length; a += 2)
+
+      BenchmarkRunner runner = new BenchmarkRunner(warmups, iterations, millis * NANOS_PER_MILLI);
+      File directory = Files.createTempDirectory("network-benchmark").toFile();
+      try
+      {
+         for (String shapeName : shapes.split(","))
+         {
+            benchmarkShape(runner, shapeName.trim(), include, directory);
+         }
+         benchmarkActivations(runner, include);
+         benchmarkOptimizers(runner, include);
+         benchmarkPrecision(runner, include);
+         benchmarkKernels(runner, include);
+         benchmarkImages(runner, include, directory);
+         benchmarkGrayscale(runner, include);
+      } //try
+      finally
+      {
+         for (File file : directory.listFiles())
+         {
+            file.delete();
+         }
+         directory.delete();
+      }
+
+      runner.printTable();
+      if (jsonFile != null)
+      {
+         runner.writeJson(jsonFile);
+         System.out.println("Results written to " + jsonFile);
+      }
+      System.out.println("(checksum " + sink + ")");
+   } //public static void main(String[] args)
+} //public class NetworkBenchmark
@@ -0,0 +1,506 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.Locale;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This class collects the timers and counters of a network while it trains and runs. The training loops report
+ * the time of each phase of an epoch, forward passes, backpropagation, weight updates and evaluation passes, and
+ * endEpoch turns them into the epoch time, test cases and optimizer steps per second, and the error trajectory,
+ * together with the heap in use and the garbage collections during the epoch. Runs over the test cases outside
+ * training are counted as inference.
+ * The values are published as an MXBean, and each epoch and inference run can also be written as one line of
+ * a CSV file, or of a JSON lines file when the file name ends in .json or .jsonl.
+ * A network without metrics holds null instead of an instance, so when metrics are off the training loops only
+ * test that reference and never read the clock.
+ * Phases are recorded and epochs ended by the thread running the training loop. The MXBean getters may be called
+ * from any thread and see the values of the last completed epoch.
+ *
+ * Methods:
+ * public NetworkMetrics(String name, String dumpFile)
+ * public void register()
+ * public void startEpoch(long steps)
+ * public void addForward(long nanos)
+ * public void addBackward(long nanos)
+ * public void addUpdate(long nanos)
+ * public void addRun(int cases, long nanos)
+ * public void endEpoch(int iteration, double error, int samples, long steps, long weightCount)
+ * public void printSummary()
+ * public void close()
+ * The getters and reset of NetworkMetricsMXBean
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class NetworkMetrics implements NetworkMetricsMXBean
+{
+   public static final String DOMAIN = "NeuralNetwork";
+   public static final int HISTORY_LENGTH = 1000;          // epochs of error kept for the MXBean
+   public static final double NANOS_PER_MILLI = 1.0e6;
+   public static final double NANOS_PER_SECOND = 1.0e9;
+   public static final String CSV_HEADER = "phase,iteration,millis,forwardMillis,backwardMillis,updateMillis," +
+         "evaluationMillis,samplesPerSecond,stepsPerSecond,weightUpdatesPerSecond,error,heapUsedBytes,gcCount," +
+         "gcMillis";
+
+   public final String name;
+   public final String dumpFile;          // CSV or JSON lines file the epochs are written to, null for none
+   public final boolean json;             // true if dumpFile is written as JSON lines
+   public ObjectName objectName;          // name the MXBean is registered under, null until registered
+   private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+   private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+   private PrintWriter out;
+
+   private boolean inEpoch;               // true between startEpoch and endEpoch
+   private long epochStart;               // clock at the start of the epoch
+   private long epochSteps;               // optimizer steps at the start of the epoch
+   private long epochForward;             // nanoseconds of each phase in the current epoch
+   private long epochBackward;
+   private long epochUpdate;
+   private long epochEvaluation;
+   private long epochGcCount;             // collections and collection time at the start of the epoch
+   private long epochGcMillis;
+
+   private volatile int epochs;
+   private volatile long lastEpochNanos;
+   private volatile long totalEpochNanos;
+   private volatile long totalForward;
+   private volatile long totalBackward;
+   private volatile long totalUpdate;
+   private volatile long totalEvaluation;
+   private volatile double samplesPerSecond;
+   private volatile double stepsPerSecond;
+   private volatile double weightUpdatesPerSecond;
+   private volatile double lastError = Double.NaN;
+   private volatile long inferenceRuns;
+   private volatile long inferenceSamples;
+   private volatile double inferenceSamplesPerSecond;
+   private volatile long baseGcCount;     // collections and collection time when the metrics were created or reset
+   private volatile long baseGcMillis;
+   private final double[] errorHistory = new double[HISTORY_LENGTH];   // ring of the latest errors
+   private int historyCount;
+
+   /**
+    * Creates the metrics of one network
+    *
+    * @param name name of the network, used in the MXBean name
+    * @param dumpFile file each epoch is written to, or null to keep the values only in memory
+    */
+   public NetworkMetrics(String name, String dumpFile)
+   {
+      this.name = name;
+      this.dumpFile = dumpFile;
+      json = (dumpFile != null) && (dumpFile.endsWith(".json") || dumpFile.endsWith(".jsonl"));
+
+      if (dumpFile != null)
+      {
+         try
+         {
+            out = new PrintWriter(new BufferedWriter(new FileWriter(dumpFile)));
+         }
+         catch (IOException e)
+         {
+            throw new RuntimeException(e);
+         }
+         if (!json)
+         {
+            out.println(CSV_HEADER);
+         }
+      } // if (dumpFile != null)
+      resetCounters();
+      epochGcCount = baseGcCount;
+      epochGcMillis = baseGcMillis;
+   } //public NetworkMetrics(String name, String dumpFile)
+
+   /**
+    * Registers the metrics with the platform MBean server as NeuralNetwork:type=NetworkMetrics,name=name,
+    * replacing metrics registered under the same name before
+    */
+   public void register()
+   {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      try
+      {
+         objectName = new ObjectName(DOMAIN + ":type=NetworkMetrics,name=" + ObjectName.quote(name));
+         if (server.isRegistered(objectName))
+         {
+            server.unregisterMBean(objectName);
+         }
+         server.registerMBean(this, objectName);
+      } //try
+      catch (JMException e)
+      {
+         throw new RuntimeException(e);
+      }
+   } //public void register()
+
+   /**
+    * Starts timing an epoch
+    *
+    * @param steps optimizer steps taken before the epoch
+    */
+   public void startEpoch(long steps)
+   {
+      inEpoch = true;
+      epochSteps = steps;
+      epochForward = 0L;
+      epochBackward = 0L;
+      epochUpdate = 0L;
+      epochEvaluation = 0L;
+      epochGcCount = gcCount();
+      epochGcMillis = gcMillis();
+      epochStart = System.nanoTime();
+   } //public void startEpoch(long steps)
+
+   /**
+    * Adds time spent in forward passes to the current epoch
+    *
+    * @param nanos the time in nanoseconds
+    */
+   public void addForward(long nanos)
+   {
+      epochForward += nanos;
+   }
+
+   /**
+    * Adds time spent in backpropagation to the current epoch
+    *
+    * @param nanos the time in nanoseconds
+    */
+   public void addBackward(long nanos)
+   {
+      epochBackward += nanos;
+   }
+
+   /**
+    * Adds time spent applying gradients to the weights to the current epoch
+    *
+    * @param nanos the time in nanoseconds
+    */
+   public void addUpdate(long nanos)
+   {
+      epochUpdate += nanos;
+   }
+
+   /**
+    * Records a run over the test cases. During an epoch it is an evaluation pass of training, otherwise it is
+    * counted and written as inference.
+    *
+    * @param cases number of test cases run
+    * @param nanos the time of the run in nanoseconds
+    */
+   public void addRun(int cases, long nanos)
+   {
+      if (inEpoch)
+      {
+         epochEvaluation += nanos;
+         return;
+      }
+
+      long gcCount = gcCount();
+      long gcMillis = gcMillis();
+      inferenceRuns++;
+      inferenceSamples += cases;
+      inferenceSamplesPerSecond = cases * NANOS_PER_SECOND / Math.max(nanos, 1L);
+      writeRow("inference", epochs, nanos, nanos, 0L, 0L, 0L, inferenceSamplesPerSecond, 0.0, 0.0, Double.NaN,
+               gcCount - epochGcCount, gcMillis - epochGcMillis);
+      epochGcCount = gcCount;
+      epochGcMillis = gcMillis;
+   } //public void addRun(int cases, long nanos)
+
+   /**
+    * Ends the current epoch, publishing its times, rates and error and writing its line
+    *
+    * @param iteration iterations completed
+    * @param error error after the epoch
+    * @param samples test cases trained in the epoch
+    * @param steps optimizer steps taken so far
+    * @param weightCount number of weights changed by each step
+    */
+   public void endEpoch(int iteration, double error, int samples, long steps, long weightCount)
+   {
+      long nanos = Math.max(System.nanoTime() - epochStart, 1L);
+      double seconds = nanos / NANOS_PER_SECOND;
+      inEpoch = false;
+
+      lastEpochNanos = nanos;
+      totalEpochNanos += nanos;
+      totalForward += epochForward;
+      totalBackward += epochBackward;
+      totalUpdate += epochUpdate;
+      totalEvaluation += epochEvaluation;
+      samplesPerSecond = samples / seconds;
+      stepsPerSecond = (steps - epochSteps) / seconds;
+      weightUpdatesPerSecond = stepsPerSecond * weightCount;
+      lastError = error;
+
+      synchronized (errorHistory)
+      {
+         errorHistory[historyCount % HISTORY_LENGTH] = error;
+         historyCount++;
+      }
+      epochs++;
+
+      long gcCount = gcCount();
+      long gcMillis = gcMillis();
+      writeRow("train", iteration, nanos, epochForward, epochBackward, epochUpdate, epochEvaluation,
+               samplesPerSecond, stepsPerSecond, weightUpdatesPerSecond, error, gcCount - epochGcCount,
+               gcMillis - epochGcMillis);
+      epochGcCount = gcCount;
+      epochGcMillis = gcMillis;
+   } //public void endEpoch(int iteration, double error, int samples, long steps, long weightCount)
+
+   /**
+    * Writes one line of the dump file, if there is one
+    */
+   private void writeRow(String phase, int iteration, long nanos, long forward, long backward, long update,
+                         long evaluation, double samples, double steps, double weightUpdates, double error,
+                         long gcCount, long gcMillis)
+   {
+      if (out == null)
+      {
+         return;
+      }
+
+      long heapUsed = memory.getHeapMemoryUsage().getUsed();
+      if (json)
+      {
+         out.printf(Locale.ROOT, "{\"phase\":\"%s\",\"iteration\":%d,\"millis\":%.3f,\"forwardMillis\":%.3f," +
+                    "\"backwardMillis\":%.3f,\"updateMillis\":%.3f,\"evaluationMillis\":%.3f," +
+                    "\"samplesPerSecond\":%.3f,\"stepsPerSecond\":%.3f,\"weightUpdatesPerSecond\":%.1f," +
+                    "\"error\":%s,\"heapUsedBytes\":%d,\"gcCount\":%d,\"gcMillis\":%d}\n", phase, iteration,
+                    nanos / NANOS_PER_MILLI, forward / NANOS_PER_MILLI, backward / NANOS_PER_MILLI,
+                    update / NANOS_PER_MILLI, evaluation / NANOS_PER_MILLI, samples, steps, weightUpdates,
+                    Double.isFinite(error) ? String.valueOf(error) : "null", heapUsed, gcCount, gcMillis);
+      }
+      else
+      {
+         out.printf(Locale.ROOT, "%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.1f,%s,%d,%d,%d\n", phase, iteration,
+                    nanos / NANOS_PER_MILLI, forward / NANOS_PER_MILLI, backward / NANOS_PER_MILLI,
+                    update / NANOS_PER_MILLI, evaluation / NANOS_PER_MILLI, samples, steps, weightUpdates,
+                    Double.isNaN(error) ? "" : String.valueOf(error), heapUsed, gcCount, gcMillis);
+      }
+   } //private void writeRow(...)
+
+   /**
+    * Prints the totals of training and inference
+    */
+   public void printSummary()
+   {
+      System.out.println();
+      if (epochs > 0)
+      {
+         System.out.printf("Metrics: %d epochs in %.1f ms (%.3f ms each), forward %.1f ms, backward %.1f ms, " +
+                           "update %.1f ms, evaluation %.1f ms\n", epochs, getTotalTrainingMillis(),
+                           getTotalTrainingMillis() / epochs, getForwardMillis(), getBackwardMillis(),
+                           getUpdateMillis(), getEvaluationMillis());
+         System.out.printf("Last epoch: %.1f samples/s, %.1f steps/s, %.4g weight updates/s, error %f\n",
+                           samplesPerSecond, stepsPerSecond, weightUpdatesPerSecond, lastError);
+      }
+      if (inferenceRuns > 0)
+      {
+         System.out.printf("Inference: %d runs, %d samples, last run %.1f samples/s\n", inferenceRuns,
+                           inferenceSamples, inferenceSamplesPerSecond);
+      }
+      System.out.printf("Heap: %.1f MB used, %d collections taking %d ms\n",
+                        getHeapUsedBytes() / Network.BYTES_PER_MEGABYTE, getGcCount(), getGcMillis());
+   } //public void printSummary()
+
+   /**
+    * Flushes and closes the dump file and unregisters the MXBean
+    */
+   public void close()
+   {
+      if (out != null)
+      {
+         out.close();
+         out = null;
+      }
+
+      if (objectName != null)
+      {
+         try
+         {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+         }
+         catch (JMException e)
+         {
+            throw new RuntimeException(e);
+         }
+         objectName = null;
+      } // if (objectName != null)
+   } //public void close()
+
+   /**
+    * Gives the collections of every garbage collector so far
+    */
+   private long gcCount()
+   {
+      long count = 0L;
+      for (GarbageCollectorMXBean collector : collectors)
+      {
+         count += Math.max(collector.getCollectionCount(), 0L);
+      }
+      return count;
+   }
+
+   /**
+    * Gives the collection time of every garbage collector so far
+    */
+   private long gcMillis()
+   {
+      long millis = 0L;
+      for (GarbageCollectorMXBean collector : collectors)
+      {
+         millis += Math.max(collector.getCollectionTime(), 0L);
+      }
+      return millis;
+   }
+
+   public int getEpochs()
+   {
+      return epochs;
+   }
+
+   public double getLastEpochMillis()
+   {
+      return lastEpochNanos / NANOS_PER_MILLI;
+   }
+
+   public double getTotalTrainingMillis()
+   {
+      return totalEpochNanos / NANOS_PER_MILLI;
+   }
+
+   public double getForwardMillis()
+   {
+      return totalForward / NANOS_PER_MILLI;
+   }
+
+   public double getBackwardMillis()
+   {
+      return totalBackward / NANOS_PER_MILLI;
+   }
+
+   public double getUpdateMillis()
+   {
+      return totalUpdate / NANOS_PER_MILLI;
+   }
+
+   public double getEvaluationMillis()
+   {
+      return totalEvaluation / NANOS_PER_MILLI;
+   }
+
+   public double getSamplesPerSecond()
+   {
+      return samplesPerSecond;
+   }
+
+   public double getStepsPerSecond()
+   {
+      return stepsPerSecond;
+   }
+
+   public double getWeightUpdatesPerSecond()
+   {
+      return weightUpdatesPerSecond;
+   }
+
+   public double getLastError()
+   {
+      return lastError;
+   }
+
+   public double[] getErrorHistory()
+   {
+      synchronized (errorHistory)
+      {
+         int count = Math.min(historyCount, HISTORY_LENGTH);
+         double[] history = new double[count];
+         for (int i = 0; i < count; i++)
+         {
+            history[i] = errorHistory[(historyCount - count + i) % HISTORY_LENGTH];
+         }
+         return history;
+      }
+   } //public double[] getErrorHistory()
+
+   public long getInferenceRuns()
+   {
+      return inferenceRuns;
+   }
+
+   public long getInferenceSamples()
+   {
+      return inferenceSamples;
+   }
+
+   public double getInferenceSamplesPerSecond()
+   {
+      return inferenceSamplesPerSecond;
+   }
+
+   public long getHeapUsedBytes()
+   {
+      return memory.getHeapMemoryUsage().getUsed();
+   }
+
+   public long getHeapCommittedBytes()
+   {
+      return memory.getHeapMemoryUsage().getCommitted();
+   }
+
+   public long getGcCount()
+   {
+      return gcCount() - baseGcCount;
+   }
+
+   public long getGcMillis()
+   {
+      return gcMillis() - baseGcMillis;
+   }
+
+   /**
+    * Clears the published totals and the error history. The epoch in progress belongs to the training thread
+    * and is left alone, so its own line of the dump file is unaffected.
+    */
+   public void reset()
+   {
+      resetCounters();
+   }
+
+   /**
+    * Clears the published totals and the error history, and starts counting garbage collections from now
+    */
+   private void resetCounters()
+   {
+      epochs = 0;
+      lastEpochNanos = 0L;
+      totalEpochNanos = 0L;
+      totalForward = 0L;
+      totalBackward = 0L;
+      totalUpdate = 0L;
+      totalEvaluation = 0L;
+      samplesPerSecond = 0.0;
+      stepsPerSecond = 0.0;
+      weightUpdatesPerSecond = 0.0;
+      lastError = Double.NaN;
+      inferenceRuns = 0L;
+      inferenceSamples = 0L;
+      inferenceSamplesPerSecond = 0.0;
+      synchronized (errorHistory)
+      {
+         historyCount = 0;
+      }
+      baseGcCount = gcCount();
+      baseGcMillis = gcMillis();
+   } //private void resetCounters()
+} //public class NetworkMetrics
@@ -0,0 +1,133 @@
+/**
+ * This interface is the management view of NetworkMetrics, which JMX clients such as jconsole or
+ * VisualVM show as the attributes and operations of a NeuralNetwork:type=NetworkMetrics bean.
+ * Times are in milliseconds and rates are per second. Training values are those of the last completed epoch
+ * unless they are called totals.
+ *
+ * Methods:
+ * public int getEpochs()
+ * public double getLastEpochMillis()
+ * public double getTotalTrainingMillis()
+ * public double getForwardMillis()
+ * public double getBackwardMillis()
+ * public double getUpdateMillis()
+ * public double getEvaluationMillis()
+ * public double getSamplesPerSecond()
+ * public double getStepsPerSecond()
+ * public double getWeightUpdatesPerSecond()
+ * public double getLastError()
+ * public double[] getErrorHistory()
+ * public long getInferenceRuns()
+ * public long getInferenceSamples()
+ * public double getInferenceSamplesPerSecond()
+ * public long getHeapUsedBytes()
+ * public long getHeapCommittedBytes()
+ * public long getGcCount()
+ * public long getGcMillis()
+ * public void reset()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public interface NetworkMetricsMXBean
+{
+   /**
+    * @return training epochs completed
+    */
+   int getEpochs();
+
+   /**
+    * @return wall clock time of the last epoch
+    */
+   double getLastEpochMillis();
+
+   /**
+    * @return wall clock time of all epochs
+    */
+   double getTotalTrainingMillis();
+
+   /**
+    * @return total time spent in forward passes while training, summed over the training threads
+    */
+   double getForwardMillis();
+
+   /**
+    * @return total time spent in backpropagation while training, summed over the training threads
+    */
+   double getBackwardMillis();
+
+   /**
+    * @return total time spent applying summed gradients to the weights in mini-batch training
+    */
+   double getUpdateMillis();
+
+   /**
+    * @return total time spent in full evaluation passes while training
+    */
+   double getEvaluationMillis();
+
+   /**
+    * @return test cases trained per second in the last epoch
+    */
+   double getSamplesPerSecond();
+
+   /**
+    * @return optimizer steps, updates of the whole network, per second in the last epoch
+    */
+   double getStepsPerSecond();
+
+   /**
+    * @return single weights changed per second in the last epoch
+    */
+   double getWeightUpdatesPerSecond();
+
+   /**
+    * @return error after the last epoch
+    */
+   double getLastError();
+
+   /**
+    * @return error after each of the most recent epochs, oldest first
+    */
+   double[] getErrorHistory();
+
+   /**
+    * @return runs over the test cases made outside training
+    */
+   long getInferenceRuns();
+
+   /**
+    * @return test cases run outside training
+    */
+   long getInferenceSamples();
+
+   /**
+    * @return test cases per second of the last run outside training
+    */
+   double getInferenceSamplesPerSecond();
+
+   /**
+    * @return bytes of heap in use now
+    */
+   long getHeapUsedBytes();
+
+   /**
+    * @return bytes of heap committed now
+    */
+   long getHeapCommittedBytes();
+
+   /**
+    * @return garbage collections since the metrics were created or reset
+    */
+   long getGcCount();
+
+   /**
+    * @return time spent in garbage collection since the metrics were created or reset
+    */
+   long getGcMillis();
+
+   /**
+    * Clears every published total and the error history. The epoch in progress is still reported in full.
+    */
+   void reset();
+} //public interface NetworkMetricsMXBean
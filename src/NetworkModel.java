@@ -0,0 +1,104 @@
+/**
+ * This class is the immutable part of a network: its layer sizes, weights, activation functions and kernels.
+ * The arrays are copied when the model is made and never written afterwards, so one model can be run by any number
+ * of threads at once. Everything a forward pass writes lives in a Workspace, one per thread.
+ * The forward pass adds each weighted sum in the same order as Network.runNetwork, so both give the same outputs.
+ *
+ * Methods:
+ * public NetworkModel(int[] numActs, double[][] weights, Activation[] activations, Kernels kernels)
+ * public static NetworkModel snapshot(Network network)
+ * public Workspace createWorkspace()
+ * public double[] forward(Workspace workspace)
+ * public int getNumLayers()
+ * public int getLayerSize(int n)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class NetworkModel
+{
+   private final int[] numActs;           // number of activations in each layer
+   private final double[][] weights;      // flat row-major weights per connectivity layer, as in Network.weights
+   private final Activation[] activations;   // activation function of each connectivity layer
+   private final Kernels kernels;         // inner loops of the forward pass
+   private final int outputLocation;      // index of the output layer
+
+   /**
+    * Creates a model from copies of the given layer sizes and weights.
+    * Activation functions and kernels hold no state, so they are shared rather than copied.
+    *
+    * @param numActs number of activations in each layer
+    * @param weights weights of each connectivity layer, index 0 unused
+    * @param activations activation function of each connectivity layer, index 0 unused
+    * @param kernels the kernels used for the dot products
+    */
+   public NetworkModel(int[] numActs, double[][] weights, Activation[] activations, Kernels kernels)
+   {
+      this.numActs = numActs.clone();
+      this.weights = new double[weights.length][];
+      for (int n = Network.HIDDENS_ONE_LOC; n < weights.length; n++)
+      {
+         this.weights[n] = weights[n].clone();
+      }
+      this.activations = activations.clone();
+      this.kernels = kernels;
+      outputLocation = numActs.length - 1;
+   } //public NetworkModel(int[] numActs, double[][] weights, Activation[] activations, Kernels kernels)
+
+   /**
+    * Creates a model of the current weights of a network
+    *
+    * @param network the network
+    * @return the model
+    */
+   public static NetworkModel snapshot(Network network)
+   {
+      return new NetworkModel(network.numActs, network.weights, network.activations, network.kernels);
+   }
+
+   /**
+    * Creates a workspace sized for this model
+    *
+    * @return the workspace
+    */
+   public Workspace createWorkspace()
+   {
+      return new Workspace(numActs);
+   }
+
+   /**
+    * Runs the inputs held in the input layer of the workspace through the network
+    *
+    * @param workspace the workspace of the calling thread, with its inputs already loaded
+    * @return the output layer of the workspace, which is overwritten by the next pass through it
+    */
+   public double[] forward(Workspace workspace)
+   {
+      double[][] acts = workspace.acts;
+
+      for (int n = Network.HIDDENS_ONE_LOC; n <= outputLocation; n++)
+      {
+         double[] layerWeights = weights[n];
+         double[] prevActs = acts[n-1];
+         int width = numActs[n-1];
+
+         for (int k = 0; k < numActs[n]; k++)
+         {
+            acts[n][k] = kernels.dot(layerWeights, k * width, prevActs, 0, width);      //applying dot product
+         }
+         activations[n].applyLayer(acts[n], acts[n], 0, numActs[n]);          //applying activation function
+      } // for (int n = Network.HIDDENS_ONE_LOC; n <= outputLocation; n++)
+
+      return acts[outputLocation];
+   } //public double[] forward(Workspace workspace)
+
+   public int getNumLayers()
+   {
+      return numActs.length;
+   }
+
+   public int getLayerSize(int n)
+   {
+      return numActs[n];
+   }
+} //public class NetworkModel
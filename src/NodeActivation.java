@@ -0,0 +1,38 @@
+/**
+ * This interface is an activation function that is computed for each node on its own from its weighted sum,
+ * which is every activation function of the network except softmax. A layer is applied one node at a time.
+ *
+ * Methods:
+ * public double apply(double theta)
+ * public void applyLayer(double[] thetas, double[] acts, int offset, int count)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public interface NodeActivation extends Activation
+{
+   /**
+    * Computes the activation of a node
+    *
+    * @param theta the weighted sum into the node
+    * @return the activation
+    */
+   double apply(double theta);
+
+   /**
+    * Computes the activations of count nodes of one layer from their weighted sums.
+    * The thetas and the activations may be the same array.
+    *
+    * @param thetas the weighted sums, starting at offset
+    * @param acts destination of the activations, starting at offset
+    * @param offset index of the first node
+    * @param count number of nodes in the layer
+    */
+   default void applyLayer(double[] thetas, double[] acts, int offset, int count)
+   {
+      for (int i = offset; i < offset + count; i++)
+      {
+         acts[i] = apply(thetas[i]);
+      }
+   }
+} //public interface NodeActivation
@@ -0,0 +1,143 @@
+/**
+ * This class is the rule that turns a weight gradient into a weight change during training.
+ * The gradient passed in is the direction that lowers the error, activation times psi, so the returned
+ * change is added to the weight. Optimizers that keep per-weight state store it in flat arrays laid out like
+ * Network.weights, [n][k * numActs[n-1] + j], so the state of a weight sits at the same index as the weight.
+ * beginStep is called once before each update of the whole network, which is once per test case in online
+ * training and once per batch in mini-batch training. delta and updateRow may then be called from several threads
+ * as long as they work on different weights.
+ * Every optimizer implements updateRow with its own loop, so the call to delta inside the loop always goes to
+ * one class and is inlined even when several optimizers are in use.
+ *
+ * Methods:
+ * protected Optimizer(double learningRate)
+ * public void beginStep()
+ * public double[][][] getState()
+ * public abstract double delta(int n, int i, double gradient)
+ * public abstract void updateRow(int n, double[] layerWeights, int row, double[] acts, double psi, int width)
+ * public abstract void updateRow(int n, float[] layerWeights, int row, float[] acts, float psi, int width)
+ * public abstract String getName()
+ * protected static double[][] stateLike(double[][] weights)
+ * public static Optimizer forName(String name, Network network)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public abstract class Optimizer
+{
+   public final double learningRate;
+   public long steps;                     // number of steps begun
+
+   /**
+    * Creates an optimizer
+    *
+    * @param learningRate the step size, lambda in the control file
+    */
+   protected Optimizer(double learningRate)
+   {
+      this.learningRate = learningRate;
+   }
+
+   /**
+    * Called once before each update of the whole network, counts the step
+    */
+   public void beginStep()
+   {
+      steps++;
+   }
+
+   /**
+    * Gives the per-weight state arrays of the optimizer, each laid out like the weights, so they can be
+    * saved and restored. Optimizers without state return none.
+    *
+    * @return the state arrays themselves, not copies
+    */
+   public double[][][] getState()
+   {
+      return new double[0][][];
+   }
+
+   /**
+    * Computes the change of one weight from its gradient, updating the state kept for that weight
+    *
+    * @param n the connectivity layer
+    * @param i the flat index of the weight in layer n
+    * @param gradient the gradient of the weight, summed over the test cases of the step
+    * @return the amount to add to the weight
+    */
+   public abstract double delta(int n, int i, double gradient);
+
+   /**
+    * Updates one row of the weights of layer n, the weights into one node, for a single test case.
+    * The gradient of weight row + j is acts[j] times psi.
+    *
+    * @param n the connectivity layer
+    * @param layerWeights the weights of layer n
+    * @param row flat index of the first weight of the row
+    * @param acts activations of layer n-1
+    * @param psi psi of the node the row feeds
+    * @param width number of weights in the row
+    */
+   public abstract void updateRow(int n, double[] layerWeights, int row, double[] acts, double psi, int width);
+
+   /**
+    * Updates one row of float weights the same way, for training in single precision. Any per-weight state
+    * of the optimizer stays in double.
+    *
+    * @param n the connectivity layer
+    * @param layerWeights the float weights of layer n
+    * @param row flat index of the first weight of the row
+    * @param acts float activations of layer n-1
+    * @param psi psi of the node the row feeds
+    * @param width number of weights in the row
+    */
+   public abstract void updateRow(int n, float[] layerWeights, int row, float[] acts, float psi, int width);
+
+   /**
+    * Name used for this optimizer in the control file
+    */
+   public abstract String getName();
+
+   /**
+    * Allocates zeroed state arrays with the same layout as the weights
+    *
+    * @param weights the network weights
+    * @return one state value per weight
+    */
+   protected static double[][] stateLike(double[][] weights)
+   {
+      double[][] state = new double[weights.length][];
+      for (int n = Network.HIDDENS_ONE_LOC; n < weights.length; n++)
+      {
+         state[n] = new double[weights[n].length];
+      }
+      return state;
+   }
+
+   /**
+    * Creates the optimizer with the given control file name for a network, taking the learning rate and other
+    * settings from the network
+    *
+    * @param name sgd, momentum, nesterov, rmsprop or adam
+    * @param network the network being trained, with its weights allocated
+    * @return the optimizer
+    */
+   public static Optimizer forName(String name, Network network)
+   {
+      switch (name)
+      {
+         case SgdOptimizer.NAME:
+            return new SgdOptimizer(network.lambda, network.kernels);
+         case MomentumOptimizer.NAME:
+            return new MomentumOptimizer(network.lambda, network.momentum, network.weights);
+         case NesterovOptimizer.NAME:
+            return new NesterovOptimizer(network.lambda, network.momentum, network.weights);
+         case RmsPropOptimizer.NAME:
+            return new RmsPropOptimizer(network.lambda, network.rmsDecay, network.epsilon, network.weights);
+         case AdamOptimizer.NAME:
+            return new AdamOptimizer(network.lambda, network.beta1, network.beta2, network.epsilon, network.weights);
+         default:
+            throw new IllegalArgumentException("Unknown optimizer " + name);
+      }
+   } //public static Optimizer forName(String name, Network network)
+} //public abstract class Optimizer
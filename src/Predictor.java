@@ -0,0 +1,82 @@
+/**
+ * This class scores single samples with a trained network, for embedding the network in a service.
+ * It runs an immutable NetworkModel, so the weights a predictor was made with never change under it, and each
+ * calling thread gets its own Workspace the first time it calls predict. After that first call a prediction
+ * allocates nothing: the inputs are copied into the workspace, the forward pass runs in its arrays and the outputs
+ * are copied into the caller's array.
+ * The time of every prediction is recorded in a LatencyHistogram, which can be read while predictions go on.
+ *
+ * Methods:
+ * public Predictor(NetworkModel model)
+ * public void predict(double[] in, double[] out)
+ * public int getInputCount()
+ * public int getOutputCount()
+ * public NetworkModel getModel()
+ * public LatencyHistogram getLatency()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class Predictor
+{
+   private final NetworkModel model;
+   private final ThreadLocal<Workspace> workspaces;   // workspace of each calling thread
+   private final LatencyHistogram latency = new LatencyHistogram();
+   private final int inputCount;
+   private final int outputCount;
+
+   /**
+    * Creates a predictor for a model, such as Network.createModel() after the weights are loaded or trained
+    *
+    * @param model the model
+    */
+   public Predictor(NetworkModel model)
+   {
+      this.model = model;
+      workspaces = ThreadLocal.withInitial(model::createWorkspace);
+      inputCount = model.getLayerSize(Network.INPUTS_LOC);
+      outputCount = model.getLayerSize(model.getNumLayers() - 1);
+   }
+
+   /**
+    * Runs one sample through the network and records how long it took
+    *
+    * @param in the input activations, at least getInputCount() of them
+    * @param out receives the output activations, at least getOutputCount() of them
+    * @throws IllegalArgumentException if either array is too short
+    */
+   public void predict(double[] in, double[] out)
+   {
+      long start = System.nanoTime();
+      if (in.length < inputCount || out.length < outputCount)
+      {
+         throw new IllegalArgumentException("Expected " + inputCount + " inputs and " + outputCount +
+                                            " outputs, got " + in.length + " and " + out.length);
+      }
+
+      Workspace workspace = workspaces.get();
+      System.arraycopy(in, 0, workspace.acts[Network.INPUTS_LOC], 0, inputCount);
+      System.arraycopy(model.forward(workspace), 0, out, 0, outputCount);
+      latency.record(System.nanoTime() - start);
+   } //public void predict(double[] in, double[] out)
+
+   public int getInputCount()
+   {
+      return inputCount;
+   }
+
+   public int getOutputCount()
+   {
+      return outputCount;
+   }
+
+   public NetworkModel getModel()
+   {
+      return model;
+   }
+
+   public LatencyHistogram getLatency()
+   {
+      return latency;
+   }
+} //public class Predictor
@@ -0,0 +1,44 @@
+/**
+ * This class is the rectified linear activation, max(0, theta).
+ * It does not saturate for positive weighted sums, so deep or wide layers keep a useful gradient.
+ *
+ * Methods:
+ * public double apply(double theta)
+ * public double derivative(double theta, double activation)
+ * public String getName()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class ReluActivation implements NodeActivation
+{
+   public static final String NAME = "relu";
+
+   /**
+    * Rectified linear calculation
+    *
+    * @param theta input into the rectifier
+    * @return theta if positive, 0 otherwise
+    */
+   public double apply(double theta)
+   {
+      return (theta > 0.0) ? theta : 0.0;
+   }
+
+   /**
+    * Rectified linear derivative calculation
+    *
+    * @param theta input into the rectifier
+    * @param activation output of the rectifier for theta
+    * @return 1 if theta is positive, 0 otherwise
+    */
+   public double derivative(double theta, double activation)
+   {
+      return (theta > 0.0) ? 1.0 : 0.0;
+   }
+
+   public String getName()
+   {
+      return NAME;
+   }
+} //public class ReluActivation
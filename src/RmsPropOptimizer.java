@@ -0,0 +1,72 @@
+/**
+ * This class is RMSProp, which divides each step by a running root mean square of the weight's gradients,
+ * so weights with small or rarely nonzero gradients still take steps of a useful size.
+ *
+ * Methods:
+ * public RmsPropOptimizer(double learningRate, double decay, double epsilon, double[][] weights)
+ * public double[][][] getState()
+ * public double delta(int n, int i, double gradient)
+ * public void updateRow(int n, double[] layerWeights, int row, double[] acts, double psi, int width)
+ * public void updateRow(int n, float[] layerWeights, int row, float[] acts, float psi, int width)
+ * public String getName()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class RmsPropOptimizer extends Optimizer
+{
+   public static final String NAME = "rmsprop";
+
+   public final double decay;
+   public final double epsilon;
+   public final double[][] meanSquare;    // running mean of the squared gradient of each weight
+
+   /**
+    * Creates the optimizer with zero mean squares
+    *
+    * @param learningRate the step size
+    * @param decay fraction of the mean square kept each step
+    * @param epsilon added to the root mean square to avoid dividing by zero
+    * @param weights the network weights
+    */
+   public RmsPropOptimizer(double learningRate, double decay, double epsilon, double[][] weights)
+   {
+      super(learningRate);
+      this.decay = decay;
+      this.epsilon = epsilon;
+      meanSquare = stateLike(weights);
+   }
+
+   public double[][][] getState()
+   {
+      return new double[][][] {meanSquare};
+   }
+
+   public double delta(int n, int i, double gradient)
+   {
+      double s = decay * meanSquare[n][i] + (1.0 - decay) * gradient * gradient;
+      meanSquare[n][i] = s;
+      return learningRate * gradient / (Math.sqrt(s) + epsilon);
+   }
+
+   public void updateRow(int n, double[] layerWeights, int row, double[] acts, double psi, int width)
+   {
+      for (int j = 0; j < width; j++)
+      {
+         layerWeights[row + j] += delta(n, row + j, acts[j] * psi);
+      }
+   }
+
+   public void updateRow(int n, float[] layerWeights, int row, float[] acts, float psi, int width)
+   {
+      for (int j = 0; j < width; j++)
+      {
+         layerWeights[row + j] += (float) delta(n, row + j, (double) acts[j] * psi);
+      }
+   }
+
+   public String getName()
+   {
+      return NAME;
+   }
+} //public class RmsPropOptimizer
@@ -0,0 +1,50 @@
+/**
+ * This class is the plain loop version of the network kernels, which the JIT compiles on its own.
+ * The element-wise loops are auto-vectorized, while the dot product adds its terms one after another, so it gives
+ * the same sums as the loops the network has always used.
+ *
+ * Methods:
+ * public double dot(double[] x, int xOffset, double[] y, int yOffset, int width)
+ * public void addScaled(double[] y, int yOffset, double[] x, int xOffset, double scale, int width)
+ * public void addProduct(double[] y, int yOffset, double[] x, double a, double b, int width)
+ * public String getName()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class ScalarKernels implements Kernels
+{
+   public static final String NAME = "scalar";
+   public static final String VECTOR_NAME = "vector";     // name of VectorKernels, which is loaded by name
+
+   public double dot(double[] x, int xOffset, double[] y, int yOffset, int width)
+   {
+      double sum = 0.0;
+      for (int j = 0; j < width; j++)
+      {
+         sum += x[xOffset + j] * y[yOffset + j];
+      }
+      return sum;
+   }
+
+   public void addScaled(double[] y, int yOffset, double[] x, int xOffset, double scale, int width)
+   {
+      for (int j = 0; j < width; j++)
+      {
+         y[yOffset + j] += scale * x[xOffset + j];
+      }
+   }
+
+   public void addProduct(double[] y, int yOffset, double[] x, double a, double b, int width)
+   {
+      for (int j = 0; j < width; j++)
+      {
+         y[yOffset + j] += a * x[j] * b;
+      }
+   }
+
+   public String getName()
+   {
+      return NAME;
+   }
+} //public class ScalarKernels
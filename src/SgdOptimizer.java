@@ -0,0 +1,67 @@
+/**
+ * This class is plain stochastic gradient descent, which moves each weight by the learning rate times its gradient
+ * and keeps no state.
+ *
+ * Methods:
+ * public SgdOptimizer(double learningRate)
+ * public SgdOptimizer(double learningRate, Kernels kernels)
+ * public double delta(int n, int i, double gradient)
+ * public void updateRow(int n, double[] layerWeights, int row, double[] acts, double psi, int width)
+ * public void updateRow(int n, float[] layerWeights, int row, float[] acts, float psi, int width)
+ * public String getName()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class SgdOptimizer extends Optimizer
+{
+   public static final String NAME = "sgd";
+
+   public final Kernels kernels;          // kernels the weight rows are updated with
+
+   /**
+    * Creates the optimizer
+    *
+    * @param learningRate the step size
+    */
+   public SgdOptimizer(double learningRate)
+   {
+      this(learningRate, new ScalarKernels());
+   }
+
+   /**
+    * Creates the optimizer with the kernels that update each row
+    *
+    * @param learningRate the step size
+    * @param kernels the kernels of the network
+    */
+   public SgdOptimizer(double learningRate, Kernels kernels)
+   {
+      super(learningRate);
+      this.kernels = kernels;
+   }
+
+   public double delta(int n, int i, double gradient)
+   {
+      return learningRate * gradient;
+   }
+
+   public void updateRow(int n, double[] layerWeights, int row, double[] acts, double psi, int width)
+   {
+      kernels.addProduct(layerWeights, row, acts, learningRate, psi, width);
+   }
+
+   public void updateRow(int n, float[] layerWeights, int row, float[] acts, float psi, int width)
+   {
+      float rate = (float) learningRate;
+      for (int j = 0; j < width; j++)
+      {
+         layerWeights[row + j] += rate * acts[j] * psi;
+      }
+   }
+
+   public String getName()
+   {
+      return NAME;
+   }
+} //public class SgdOptimizer
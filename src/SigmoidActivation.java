@@ -0,0 +1,44 @@
+/**
+ * This class is the exact sigmoid activation, 1 / (1 + e^-theta).
+ * Its derivative is computed from the stored activation as a(1 - a).
+ *
+ * Methods:
+ * public double apply(double theta)
+ * public double derivative(double theta, double activation)
+ * public String getName()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class SigmoidActivation implements NodeActivation
+{
+   public static final String NAME = "sigmoid";
+
+   /**
+    * Sigmoid calculation
+    *
+    * @param theta input into the sigmoid
+    * @return the output of the sigmoid
+    */
+   public double apply(double theta)
+   {
+      return 1.0 / (1.0 + Math.exp(-theta));
+   }
+
+   /**
+    * Sigmoid derivative calculation from the sigmoid already computed
+    *
+    * @param theta input into the sigmoid
+    * @param activation output of the sigmoid for theta
+    * @return the output of the sigmoid derivative
+    */
+   public double derivative(double theta, double activation)
+   {
+      return activation * (1.0 - activation);
+   }
+
+   public String getName()
+   {
+      return NAME;
+   }
+} //public class SigmoidActivation
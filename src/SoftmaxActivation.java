@@ -0,0 +1,91 @@
+/**
+ * This class is the softmax activation of an output layer, e^theta_i / sum of e^theta_j over the layer,
+ * so the outputs are positive and add up to one. The largest weighted sum is subtracted before exponentiating
+ * to avoid overflow.
+ * Every output depends on every weighted sum of the layer, so the psis of the output layer go through the whole
+ * softmax Jacobian, a_j(delta_jk - a_k), in outputPsis. The derivative on its own is only the diagonal, a(1 - a).
+ * Softmax cannot be applied to a single node, so unlike the other functions it is not a NodeActivation.
+ *
+ * Methods:
+ * public void applyLayer(double[] thetas, double[] acts, int offset, int count)
+ * public double derivative(double theta, double activation)
+ * public void outputPsis(double[] thetas, double[] acts, double[] expected, double[] psis, int count)
+ * public String getName()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class SoftmaxActivation implements Activation
+{
+   public static final String NAME = "softmax";
+
+   /**
+    * Softmax calculation over one layer
+    *
+    * @param thetas the weighted sums, starting at offset
+    * @param acts destination of the activations, starting at offset
+    * @param offset index of the first node
+    * @param count number of nodes in the layer
+    */
+   public void applyLayer(double[] thetas, double[] acts, int offset, int count)
+   {
+      double max = Double.NEGATIVE_INFINITY;
+      for (int i = offset; i < offset + count; i++)
+      {
+         max = Math.max(max, thetas[i]);
+      }
+
+      double sum = 0.0;
+      for (int i = offset; i < offset + count; i++)
+      {
+         acts[i] = Math.exp(thetas[i] - max);
+         sum += acts[i];
+      }
+
+      for (int i = offset; i < offset + count; i++)
+      {
+         acts[i] /= sum;
+      }
+   } //public void applyLayer(double[] thetas, double[] acts, int offset, int count)
+
+   /**
+    * Diagonal softmax derivative calculation from the softmax already computed
+    *
+    * @param theta weighted sum into the node
+    * @param activation softmax output of the node
+    * @return the derivative of the output with respect to its own weighted sum
+    */
+   public double derivative(double theta, double activation)
+   {
+      return activation * (1.0 - activation);
+   }
+
+   /**
+    * Output psis through the whole softmax Jacobian for the error 0.5 * sum of (t - a)^2,
+    * psi_k = sum over j of (t_j - a_j) a_j (delta_jk - a_k) = a_k ((t_k - a_k) - sum over j of (t_j - a_j) a_j)
+    *
+    * @param thetas the weighted sums of the output layer, not needed
+    * @param acts the softmax outputs
+    * @param expected the expected outputs
+    * @param psis destination of the psis, which may be the thetas
+    * @param count number of nodes in the output layer
+    */
+   public void outputPsis(double[] thetas, double[] acts, double[] expected, double[] psis, int count)
+   {
+      double weightedError = 0.0;
+      for (int j = 0; j < count; j++)
+      {
+         weightedError += (expected[j] - acts[j]) * acts[j];
+      }
+
+      for (int k = 0; k < count; k++)
+      {
+         psis[k] = acts[k] * ((expected[k] - acts[k]) - weightedError);
+      }
+   } //public void outputPsis(double[] thetas, double[] acts, double[] expected, double[] psis, int count)
+
+   public String getName()
+   {
+      return NAME;
+   }
+} //public class SoftmaxActivation
@@ -0,0 +1,424 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class trains many variations of one network concurrently to compare hyperparameters.
+ * The base control file is read once and its dataset loaded once. Every trial is a Network set up from the same
+ * control file with some parameters replaced, which shares the input and output datasets of the base network
+ * instead of loading its own copy. Training only reads the datasets, so the trials run side by side on a fixed
+ * pool of threads. Each trial runs its own training on a single thread, and every trial starts from the seed of the
+ * base network unless it sets its own, so trials differ only in the parameters being swept.
+ *
+ * The sweep file lists the parameters to try, one per line, with # starting a comment:
+ *    lambda=0.1 0.3 1.0          - a grid axis: every trial is run with each of the values, separated by spaces
+ *    run: optimizer=adam lambda=0.01
+ *                                - one listed trial, a set of name=value pairs
+ * The trials are every listed trial, or the base parameters if none are listed, combined with every point of the
+ * grid. Besides the name=value parameters of the control file, a trial may set lambda, lowRandWeight,
+ * highRandWeight, maxIter, errorThresh and hidden, the sizes of the hidden layers such as 20 or 40-10.
+ *
+ * Trials never save their weights, write checkpoints or resume from them, since they all have the weight file of
+ * the control file.
+ *
+ * The results are printed ranked by final error, then by iterations, and can also be written to a file.
+ * A trial that fails is listed last with its error message.
+ *
+ * Usage: java SweepRunner <control file> <sweep file> [-threads processors] [-out results.txt]
+ *
+ * Methods:
+ * public SweepRunner(String configFile)
+ * public static List<Map<String, String>> readSweep(String sweepFile)
+ * public Network createTrial(Map<String, String> params)
+ * public List<Result> run(List<Map<String, String>> trials, int threads)
+ * public static void printResults(List<Result> results, PrintWriter out)
+ * public static void main(String[] args)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class SweepRunner
+{
+   public static final String RUN_PREFIX = "run:";
+   public static final String HIDDEN_PARAM = "hidden";
+   public static final long NANOS_PER_MILLI = 1_000_000L;
+
+   public final String configFile;
+   public final Network base;             // the network whose dataset every trial shares
+
+   /**
+    * The outcome of one trial
+    */
+   public static class Result
+   {
+      public final String params;         // the parameters of the trial as name=value pairs
+      public double error = Double.NaN;   // error when training ended
+      public int iterations;
+      public boolean reachedThreshold;
+      public long wallMillis;             // time to set up and train the trial
+      public String failure;              // message of the exception that stopped the trial, null if none
+
+      public Result(String params)
+      {
+         this.params = params;
+      }
+   } //public static class Result
+
+   /**
+    * Reads the base control file and loads its dataset
+    *
+    * @param configFile the control file every trial starts from
+    */
+   public SweepRunner(String configFile)
+   {
+      this.configFile = configFile;
+      base = new Network();
+      base.setConfigParams(configFile);
+      base.training = true;
+      base.allocateArrays();
+      base.loadDataset();
+   }
+
+   /**
+    * Reads a sweep file into the list of trials it describes
+    *
+    * @param sweepFile the sweep file
+    * @return the parameters of each trial, in the order they are listed and then in grid order
+    * @throws IOException if the file cannot be read
+    */
+   public static List<Map<String, String>> readSweep(String sweepFile) throws IOException
+   {
+      List<Map<String, String>> trials = new ArrayList<Map<String, String>>();
+      List<String> axisNames = new ArrayList<String>();
+      List<String[]> axisValues = new ArrayList<String[]>();
+
+      for (String raw : Files.readAllLines(Paths.get(sweepFile)))
+      {
+         int comment = raw.indexOf('#');
+         String line = (comment < 0 ? raw : raw.substring(0, comment)).trim();
+         if (line.isEmpty())
+         {
+            continue;
+         }
+
+         if (line.startsWith(RUN_PREFIX))
+         {
+            Map<String, String> trial = new LinkedHashMap<String, String>();
+            for (String pair : line.substring(RUN_PREFIX.length()).trim().split("\\s+"))
+            {
+               int split = pair.indexOf('=');
+               if (split < 0)
+               {
+                  throw new IllegalArgumentException("Expected name=value in " + line);
+               }
+               trial.put(pair.substring(0, split), pair.substring(split + 1));
+            }
+            trials.add(trial);
+         } // if (line.startsWith(RUN_PREFIX))
+         else
+         {
+            int split = line.indexOf('=');
+            if (split < 0)
+            {
+               throw new IllegalArgumentException("Expected name=values in " + line);
+            }
+            axisNames.add(line.substring(0, split).trim());
+            axisValues.add(line.substring(split + 1).trim().split("\\s+"));
+         }
+      } // for (String raw : Files.readAllLines(Paths.get(sweepFile)))
+
+      if (trials.isEmpty())
+      {
+         trials.add(new LinkedHashMap<String, String>());
+      }
+
+      for (int a = 0; a < axisNames.size(); a++)                     //combines every trial with every grid value
+      {
+         List<Map<String, String>> combined = new ArrayList<Map<String, String>>();
+         for (Map<String, String> trial : trials)
+         {
+            for (String value : axisValues.get(a))
+            {
+               Map<String, String> point = new LinkedHashMap<String, String>(trial);
+               point.put(axisNames.get(a), value);
+               combined.add(point);
+            }
+         }
+         trials = combined;
+      } // for (int a = 0; a < axisNames.size(); a++)
+      return trials;
+   } //public static List<Map<String, String>> readSweep(String sweepFile)
+
+   /**
+    * Sets up a network from the base control file with the given parameters replaced, sharing the dataset of the
+    * base network, and sets its weights as directed by its weights mode
+    *
+    * @param params the parameters of the trial
+    * @return the network, ready to train
+    */
+   public Network createTrial(Map<String, String> params)
+   {
+      Network network = new Network();
+      network.setConfigParams(configFile);
+      network.training = true;
+      network.saving = false;
+      network.keepAliveTracker = 0;
+      network.metricsEnabled = false;
+      network.numThreads = 1;
+      network.setOptionalParam("seed=" + base.seed);
+
+      if (params.containsKey(HIDDEN_PARAM))
+      {
+         setHiddenLayers(network, params.get(HIDDEN_PARAM));
+      }
+
+      for (Map.Entry<String, String> param : params.entrySet())
+      {
+         String value = param.getValue();
+         switch (param.getKey())
+         {
+            case HIDDEN_PARAM:
+               break;
+            case "lambda":
+               network.lambda = Double.parseDouble(value);
+               break;
+            case "lowRandWeight":
+               network.lowRandWeight = Double.parseDouble(value);
+               break;
+            case "highRandWeight":
+               network.highRandWeight = Double.parseDouble(value);
+               break;
+            case "maxIter":
+               network.maxIter = Integer.parseInt(value);
+               break;
+            case "errorThresh":
+               network.errorThresh = Double.parseDouble(value);
+               break;
+            default:
+               network.setOptionalParam(param.getKey() + "=" + value);
+         }
+      } // for (Map.Entry<String, String> param : params.entrySet())
+
+      network.checkpointInterval = 0;         //every trial has the weight file of the control file, so none saves to it
+      network.resume = false;
+
+      network.mapDataset = base.mapDataset;
+      network.mappedDataset = base.mappedDataset;
+      network.inputDataset = base.inputDataset;
+      network.outputDataset = base.outputDataset;
+      network.allocateArrays();
+      network.initializeWeights();
+      return network;
+   } //public Network createTrial(Map<String, String> params)
+
+   /**
+    * Replaces the hidden layers of a network, keeping its input and output layers. The activation function of the
+    * first connectivity layer is then used for every layer, unless the trial sets its own.
+    *
+    * @param network the network
+    * @param hidden the hidden layer sizes separated by dashes, such as 40-10
+    */
+   private static void setHiddenLayers(Network network, String hidden)
+   {
+      String[] sizes = hidden.split("-");
+      int inputs = network.numActs[Network.INPUTS_LOC];
+      int outputs = network.numActs[network.outputLocation];
+      String activation = network.activations[Network.HIDDENS_ONE_LOC].getName();
+
+      network.numTotalLayers = sizes.length + 2;
+      network.numConLayers = network.numTotalLayers - 1;
+      network.outputLocation = network.numTotalLayers - 1;
+      network.numActs = new int[network.numTotalLayers];
+      network.numActs[Network.INPUTS_LOC] = inputs;
+      for (int n = 0; n < sizes.length; n++)
+      {
+         network.numActs[Network.HIDDENS_ONE_LOC + n] = Integer.parseInt(sizes[n]);
+      }
+      network.numActs[network.outputLocation] = outputs;
+
+      network.maxTotalNodes = 0;
+      network.maxHiddenOutputNodes = 0;
+      for (int n = 0; n < network.numTotalLayers; n++)
+      {
+         network.maxTotalNodes = Math.max(network.numActs[n], network.maxTotalNodes);
+         if (n > 0)
+         {
+            network.maxHiddenOutputNodes = Math.max(network.numActs[n], network.maxHiddenOutputNodes);
+         }
+      }
+      network.setActivations(activation);
+   } //private static void setHiddenLayers(Network network, String hidden)
+
+   /**
+    * Gives the parameters of a trial as name=value pairs separated by spaces
+    */
+   private static String describe(Map<String, String> params)
+   {
+      if (params.isEmpty())
+      {
+         return "(base)";
+      }
+
+      StringBuilder text = new StringBuilder();
+      for (Map.Entry<String, String> param : params.entrySet())
+      {
+         text.append(text.length() > 0 ? " " : "").append(param.getKey()).append('=').append(param.getValue());
+      }
+      return text.toString();
+   } //private static String describe(Map<String, String> params)
+
+   /**
+    * Trains every trial on a pool of the given number of threads and ranks the results
+    *
+    * @param trials the parameters of each trial
+    * @param threads number of trials trained at once
+    * @return the results, best first
+    */
+   public List<Result> run(List<Map<String, String>> trials, int threads)
+   {
+      ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, trials.size())));
+      List<Future<Result>> futures = new ArrayList<Future<Result>>();
+
+      for (Map<String, String> params : trials)
+      {
+         futures.add(pool.submit(() ->
+         {
+            Result result = new Result(describe(params));
+            long start = System.nanoTime();
+            try
+            {
+               Network network = createTrial(params);
+               network.trainNetwork();
+               result.error = network.errorTracker;
+               result.iterations = network.iterTracker;
+               result.reachedThreshold = network.errorTracker < network.errorThresh;
+            }
+            catch (RuntimeException e)
+            {
+               result.failure = e.toString();
+            }
+            result.wallMillis = (System.nanoTime() - start) / NANOS_PER_MILLI;
+            return result;
+         }));
+      } // for (Map<String, String> params : trials)
+
+      List<Result> results = new ArrayList<Result>();
+      try
+      {
+         for (Future<Result> future : futures)
+         {
+            results.add(future.get());
+         }
+      } //try
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException(e);
+      }
+      catch (ExecutionException e)
+      {
+         throw new RuntimeException(e.getCause());
+      }
+      finally
+      {
+         pool.shutdown();
+      }
+
+      results.sort(Comparator.comparing((Result result) -> result.failure != null)
+                             .thenComparingDouble(result -> result.error)
+                             .thenComparingInt(result -> result.iterations));
+      return results;
+   } //public List<Result> run(List<Map<String, String>> trials, int threads)
+
+   /**
+    * Prints the ranked results as a table
+    *
+    * @param results the results, best first
+    * @param out where the table is printed
+    */
+   public static void printResults(List<Result> results, PrintWriter out)
+   {
+      out.printf("%-5s %-14s %-10s %-9s %-10s %s\n", "Rank", "Final Error", "Iterations", "Reached", "Wall (ms)",
+                 "Parameters");
+      for (int r = 0; r < results.size(); r++)
+      {
+         Result result = results.get(r);
+         if (result.failure != null)
+         {
+            out.printf("%-5d %-14s %-10s %-9s %-10d %s - %s\n", r + 1, "failed", "-", "-", result.wallMillis,
+                       result.params, result.failure);
+         }
+         else
+         {
+            out.printf("%-5d %-14.6e %-10d %-9s %-10d %s\n", r + 1, result.error, result.iterations,
+                       result.reachedThreshold, result.wallMillis, result.params);
+         }
+      } // for (int r = 0; r < results.size(); r++)
+      out.flush();
+   } //public static void printResults(List<Result> results, PrintWriter out)
+
+   /**
+    * Loads the dataset, runs every trial of the sweep file and prints the ranked results
+    */
+   public static void main(String[] args) throws IOException
+   {
+      if (args.length < 2)
+      {
+         System.out.println("Usage: java SweepRunner <control file> <sweep file> [-threads processors] " +
+                            "[-out results.txt]");
+         return;
+      }
+
+      int threads = Runtime.getRuntime().availableProcessors();
+      String outFile = null;
+      for (int a = 2; a + 1 < args.length; a += 2)
+      {
+         switch (args[a])
+         {
+            case "-threads":
+               threads = Integer.parseInt(args[a + 1]);
+               break;
+            case "-out":
+               outFile = args[a + 1];
+               break;
+            default:
+               throw new IllegalArgumentException("Unknown option " + args[a]);
+         }
+      } // for (int a = 2; a + 1 < args.length; a += 2)
+
+      SweepRunner sweep = new SweepRunner(args[0]);
+      List<Map<String, String>> trials = readSweep(args[1]);
+      System.out.println();
+      System.out.println("Sweeping " + trials.size() + " trials of " + args[0] + " on " + threads + " threads, " +
+                         sweep.base.numTestCases + " shared test cases, seed " + sweep.base.seed);
+
+      long start = System.nanoTime();
+      List<Result> results = sweep.run(trials, threads);
+      long millis = (System.nanoTime() - start) / NANOS_PER_MILLI;
+
+      System.out.println();
+      printResults(results, new PrintWriter(System.out));
+      System.out.println("Sweep took " + millis + " ms");
+
+      if (outFile != null)
+      {
+         try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(outFile))))
+         {
+            printResults(results, out);
+         }
+         System.out.println("Results written to " + outFile);
+      }
+   } //public static void main(String[] args)
+} //public class SweepRunner
@@ -0,0 +1,44 @@
+/**
+ * This class is the hyperbolic tangent activation, which ranges from -1 to 1 and is centered on zero.
+ * Its derivative is computed from the stored activation as 1 - a^2.
+ *
+ * Methods:
+ * public double apply(double theta)
+ * public double derivative(double theta, double activation)
+ * public String getName()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class TanhActivation implements NodeActivation
+{
+   public static final String NAME = "tanh";
+
+   /**
+    * Hyperbolic tangent calculation
+    *
+    * @param theta input into the tangent
+    * @return the output of the tangent
+    */
+   public double apply(double theta)
+   {
+      return Math.tanh(theta);
+   }
+
+   /**
+    * Hyperbolic tangent derivative calculation from the tangent already computed
+    *
+    * @param theta input into the tangent
+    * @param activation output of the tangent for theta
+    * @return the output of the tangent derivative
+    */
+   public double derivative(double theta, double activation)
+   {
+      return 1.0 - activation * activation;
+   }
+
+   public String getName()
+   {
+      return NAME;
+   }
+} //public class TanhActivation
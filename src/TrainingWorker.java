@@ -0,0 +1,164 @@
+import java.util.Arrays;
+
+/**
+ * This class holds the private state of one mini-batch training thread.
+ * A worker runs the forward pass and backpropagation of its share of a batch against the shared weights,
+ * which are only read, and sums the weight gradients into its own buffers laid out like Network.weights.
+ * The gradients are reduced into the weights by applyGradients once every worker of the batch has finished.
+ *
+ * Methods:
+ * public TrainingWorker(Network network)
+ * public void accumulate(int first, int last)
+ * public static void applyGradients(double[] layerWeights, TrainingWorker[] workers, int n, Optimizer optimizer,
+ *                                   int from, int to)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class TrainingWorker
+{
+   public final Network network;
+   public double[][] acts;                // private activations for the test case being worked on
+   public double[][] thetas;              // private weighted sums of the hidden layers
+   public double[][] psis;                // private psis, also used to accumulate the omegas
+   public double[][] gradients;           // summed weight gradients of the current batch, laid out like the weights
+   public double error;                   // summed error of the test cases worked on since the last reset
+   public long forwardNanos;              // time in forward passes since the last reset, kept only with metrics
+   public long backwardNanos;             // time in backpropagation since the last reset, kept only with metrics
+
+   /**
+    * Allocates the private arrays for a worker of the given network
+    *
+    * @param network the network being trained
+    */
+   public TrainingWorker(Network network)
+   {
+      this.network = network;
+      acts = new double[network.numTotalLayers][network.maxTotalNodes];
+      thetas = new double[network.numTotalLayers][network.maxTotalNodes];
+      psis = new double[network.numTotalLayers][network.maxTotalNodes];
+
+      gradients = new double[network.numTotalLayers][];
+      for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+      {
+         gradients[n] = new double[network.weights[n].length];
+      }
+   } //public TrainingWorker(Network network)
+
+   /**
+    * Runs the forward pass and backpropagation for the test cases first to last - 1 and adds their weight
+    * gradients to the gradient buffers. The weights themselves are not changed.
+    *
+    * @param first first test case
+    * @param last one past the last test case
+    */
+   public void accumulate(int first, int last)
+   {
+      int[] numActs = network.numActs;
+      int outputLocation = network.outputLocation;
+      double[][] weights = network.weights;
+      boolean timing = (network.metrics != null);
+
+      for (int k = first; k < last; k++)
+      {
+         long forwardStart = timing ? System.nanoTime() : 0L;
+         network.loadInputs(k, acts[Network.INPUTS_LOC], 0);
+
+         for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+         {
+            double[] layerWeights = weights[n];
+            double[] prevActs = acts[n-1];
+            int width = numActs[n-1];
+
+            for (int j = 0; j < numActs[n]; j++)
+            {
+               thetas[n][j] = network.kernels.dot(layerWeights, j * width, prevActs, 0, width);   //applying dot product
+            }
+            network.activations[n].applyLayer(thetas[n], acts[n], 0, numActs[n]);
+         } // for (int n = Network.HIDDENS_ONE_LOC; n < network.numTotalLayers; n++)
+
+         double[] expected = network.outputDataset[k];
+         for (int j = 0; j < numActs[outputLocation]; j++)
+         {
+            double diff = expected[j] - acts[outputLocation][j];
+            error += 0.5 * diff * diff;
+         }
+         network.activations[outputLocation].outputPsis(thetas[outputLocation], acts[outputLocation], expected,
+                                                        psis[outputLocation], numActs[outputLocation]);
+         long backwardStart = timing ? System.nanoTime() : 0L;
+
+         for (int n = outputLocation-1; n >= Network.HIDDENS_ONE_LOC; n--)
+         {
+            double[] layerWeights = weights[n+1];
+            double[] layerGradients = gradients[n+1];
+            double[] layerActs = acts[n];
+            double[] omegas = psis[n];
+            int width = numActs[n];
+
+            Arrays.fill(omegas, 0, width, 0.0);
+            for (int m = 0; m < numActs[n+1]; m++)
+            {
+               int row = m * width;
+               double psi = psis[n+1][m];
+               for (int j = 0; j < width; j++)
+               {
+                  omegas[j] += psi * layerWeights[row + j];
+                  layerGradients[row + j] += layerActs[j] * psi;
+               }
+            } // for (int m = 0; m < numActs[n+1]; m++)
+
+            for (int j = 0; j < width; j++)
+            {
+               psis[n][j] = omegas[j] * network.activations[n].derivative(thetas[n][j], acts[n][j]);
+            }
+         } // for (int n = outputLocation-1; n >= Network.HIDDENS_ONE_LOC; n--)
+
+         int n = Network.HIDDENS_ONE_LOC;
+         double[] layerGradients = gradients[n];
+         double[] inputActs = acts[n-1];
+         int width = numActs[n-1];
+
+         for (int j = 0; j < numActs[n]; j++)
+         {
+            int row = j * width;
+            double psi = psis[n][j];
+            for (int l = 0; l < width; l++)
+            {
+               layerGradients[row + l] += inputActs[l] * psi;
+            }
+         }
+
+         if (timing)
+         {
+            forwardNanos += backwardStart - forwardStart;
+            backwardNanos += System.nanoTime() - backwardStart;
+         }
+      } // for (int k = first; k < last; k++)
+   } //public void accumulate(int first, int last)
+
+   /**
+    * Adds the optimizer's delta for the gradient summed over all workers to the weights from to to - 1 of layer n,
+    * clearing those gradients for the next batch
+    *
+    * @param layerWeights the weights of layer n
+    * @param workers all workers of the batch
+    * @param n the connectivity layer
+    * @param optimizer the update rule, with its step already begun
+    * @param from first flat weight index
+    * @param to one past the last flat weight index
+    */
+   public static void applyGradients(double[] layerWeights, TrainingWorker[] workers, int n, Optimizer optimizer,
+                                     int from, int to)
+   {
+      for (int w = from; w < to; w++)
+      {
+         double sum = 0.0;
+         for (TrainingWorker worker : workers)
+         {
+            sum += worker.gradients[n][w];
+            worker.gradients[n][w] = 0.0;
+         }
+         layerWeights[w] += optimizer.delta(n, w, sum);
+      }
+   } //public static void applyGradients(...)
+} //public class TrainingWorker
@@ -0,0 +1,203 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * This class reads and writes the binary weight file format.
+ * All values are little-endian. The header is
+ *    int magic ("NNWT"), int version, int number of layers, one int per layer size, long CRC32 of the payload,
+ * padded with zeros to a multiple of eight bytes. The payload follows as raw doubles, one connectivity layer after
+ * another in the flat row-major order of Network.weights.
+ * Files are written through a FileChannel and loaded by memory-mapping them, so loading is a bulk copy
+ * out of the page cache instead of one parse per weight.
+ *
+ * Methods:
+ * public static boolean isBinary(String fileName)
+ * public static void write(String fileName, int[] numActs, double[][] weights)
+ * public static void read(String fileName, int[] numActs, double[][] weights)
+ * public static int headerSize(int numLayers)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class WeightFile
+{
+   public static final int MAGIC = 0x54574E4E;             // the bytes N N W T read as a little-endian int
+   public static final int VERSION = 1;
+   public static final int CHUNK_BYTES = 1 << 16;          // size of the write buffer
+   public static final int ALIGNMENT = Double.BYTES;
+
+   /**
+    * Checks whether a file starts with the binary weight file magic number
+    *
+    * @param fileName the weight file
+    * @return true if the file is a binary weight file, false otherwise
+    * @throws IOException if the file cannot be read
+    */
+   public static boolean isBinary(String fileName) throws IOException
+   {
+      try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ))
+      {
+         ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+         int read = 0;
+         while (magic.hasRemaining() && read >= 0)
+         {
+            read = channel.read(magic);
+         }
+         return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+      }
+   } //public static boolean isBinary(String fileName)
+
+   /**
+    * Computes the padded size of the header for a network with the given number of layers
+    *
+    * @param numLayers number of activation layers
+    * @return header size in bytes
+    */
+   public static int headerSize(int numLayers)
+   {
+      int size = 3 * Integer.BYTES + numLayers * Integer.BYTES + Long.BYTES;
+      return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+   }
+
+   /**
+    * Writes the weights in the binary format. The payload is streamed first and the header, which holds the
+    * checksum of the payload, is written last.
+    *
+    * @param fileName the weight file
+    * @param numActs number of activations in each layer
+    * @param weights flat weights of each connectivity layer, starting at layer 1
+    * @throws IOException if the file cannot be written
+    */
+   public static void write(String fileName, int[] numActs, double[][] weights) throws IOException
+   {
+      Path path = Paths.get(fileName);
+      int headerSize = headerSize(numActs.length);
+      CRC32 crc = new CRC32();
+
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING))
+      {
+         ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+         long position = headerSize;
+
+         for (int n = 1; n < numActs.length; n++)
+         {
+            double[] layer = weights[n];
+            int w = 0;
+            while (w < layer.length)
+            {
+               int count = Math.min(buffer.remaining() / Double.BYTES, layer.length - w);
+               buffer.asDoubleBuffer().put(layer, w, count);
+               buffer.position(buffer.position() + count * Double.BYTES);
+               w += count;
+
+               if (buffer.remaining() < Double.BYTES)
+               {
+                  position += flush(channel, buffer, crc, position);
+               }
+            }
+         } // for (int n = 1; n < numActs.length; n++)
+         position += flush(channel, buffer, crc, position);
+
+         ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+         header.putInt(MAGIC).putInt(VERSION).putInt(numActs.length);
+         for (int size : numActs)
+         {
+            header.putInt(size);
+         }
+         header.putLong(crc.getValue());
+         header.clear();
+         while (header.hasRemaining())
+         {
+            channel.write(header, header.position());
+         }
+      } //try (FileChannel channel = ...)
+   } //public static void write(String fileName, int[] numActs, double[][] weights)
+
+   /**
+    * Writes the filled part of the buffer at the given position, adding it to the checksum, and clears the buffer
+    *
+    * @return number of bytes written
+    */
+   private static int flush(FileChannel channel, ByteBuffer buffer, CRC32 crc, long position) throws IOException
+   {
+      buffer.flip();
+      crc.update(buffer.duplicate());
+      int written = 0;
+      while (buffer.hasRemaining())
+      {
+         written += channel.write(buffer, position + written);
+      }
+      buffer.clear();
+      return written;
+   }
+
+   /**
+    * Memory-maps a binary weight file and copies its weights into the flat weight arrays after checking that
+    * the header matches the network and the payload matches its checksum
+    *
+    * @param fileName the weight file
+    * @param numActs number of activations in each layer of the network being loaded
+    * @param weights flat weights of each connectivity layer, starting at layer 1, filled by this method
+    * @throws IOException if the file cannot be read, does not match the network, or is corrupt
+    */
+   public static void read(String fileName, int[] numActs, double[][] weights) throws IOException
+   {
+      try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ))
+      {
+         int headerSize = headerSize(numActs.length);
+         long payloadSize = 0;
+         for (int n = 1; n < numActs.length; n++)
+         {
+            payloadSize += (long) weights[n].length * Double.BYTES;
+         }
+
+         if (channel.size() != headerSize + payloadSize)
+         {
+            throw new IOException("Weight file size " + channel.size() + " does not match the network");
+         }
+
+         MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+         mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+         if (mapped.getInt() != MAGIC || mapped.getInt() != VERSION)
+         {
+            throw new IOException("Not a version " + VERSION + " binary weight file");
+         }
+         if (mapped.getInt() != numActs.length)
+         {
+            throw new IOException("Weight file has a different number of layers than the network");
+         }
+         for (int n = 0; n < numActs.length; n++)
+         {
+            int size = mapped.getInt();
+            if (size != numActs[n])
+            {
+               throw new IOException("Weight file layer " + n + " has " + size + " nodes, network has " + numActs[n]);
+            }
+         }
+         long checksum = mapped.getLong();
+
+         mapped.position(headerSize);
+         CRC32 crc = new CRC32();
+         crc.update(mapped.duplicate());
+         if (crc.getValue() != checksum)
+         {
+            throw new IOException("Weight file checksum does not match, the file is corrupt");
+         }
+
+         for (int n = 1; n < numActs.length; n++)
+         {
+            mapped.asDoubleBuffer().get(weights[n]);
+            mapped.position(mapped.position() + weights[n].length * Double.BYTES);
+         }
+      } //try (FileChannel channel = ...)
+   } //public static void read(String fileName, int[] numActs, double[][] weights)
+} //public class WeightFile
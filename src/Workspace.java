@@ -0,0 +1,29 @@
+/**
+ * This class holds the activations one thread writes while running a NetworkModel.
+ * Each layer gets an array of exactly its own size. A workspace is not thread-safe; every thread running a model
+ * makes its own, once, and reuses it for every test case.
+ *
+ * Methods:
+ * public Workspace(int[] numActs)
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class Workspace
+{
+   public final double[][] acts;          // activations of each layer for the test case being run, inputs at 0
+
+   /**
+    * Allocates the activation arrays of every layer
+    *
+    * @param numActs number of activations in each layer
+    */
+   public Workspace(int[] numActs)
+   {
+      acts = new double[numActs.length][];
+      for (int n = 0; n < numActs.length; n++)
+      {
+         acts[n] = new double[numActs[n]];
+      }
+   } //public Workspace(int[] numActs)
+} //public class Workspace
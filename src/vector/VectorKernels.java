@@ -0,0 +1,99 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * This class is the SIMD version of the network kernels, built on the incubating Vector API with the widest
+ * double vectors the processor has. It lives apart from the other sources because it only compiles and runs with
+ * the jdk.incubator.vector module added:
+ *    javac --add-modules jdk.incubator.vector -d <classes> vector/VectorKernels.java
+ *    java --add-modules jdk.incubator.vector -cp <classes> Network <control file>
+ * The network loads it by name through Kernels.forName, so it is only needed when the control file has
+ * kernels=vector.
+ * The dot product keeps DOT_UNROLL vector sums, so the fused multiply-adds of one do not wait on those of another,
+ * and adds the lanes together at the end, which changes the order of the sum from the scalar kernels. The element
+ * wise kernels multiply and add in the same order as the scalar ones, so they round exactly alike.
+ *
+ * Methods:
+ * public double dot(double[] x, int xOffset, double[] y, int yOffset, int width)
+ * public void addScaled(double[] y, int yOffset, double[] x, int xOffset, double scale, int width)
+ * public void addProduct(double[] y, int yOffset, double[] x, double a, double b, int width)
+ * public String getName()
+ *
+ * @author Jason Yi
+ * @version 10/18/2026
+ */
+public class VectorKernels implements Kernels
+{
+   public static final String NAME = ScalarKernels.VECTOR_NAME;
+   public static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+   public static final int LANES = SPECIES.length();
+   public static final int DOT_UNROLL = 4;                 // vector sums kept by the dot product
+
+   public double dot(double[] x, int xOffset, double[] y, int yOffset, int width)
+   {
+      DoubleVector sum0 = DoubleVector.zero(SPECIES);
+      DoubleVector sum1 = DoubleVector.zero(SPECIES);
+      DoubleVector sum2 = DoubleVector.zero(SPECIES);
+      DoubleVector sum3 = DoubleVector.zero(SPECIES);
+      int step = LANES * DOT_UNROLL;
+      int j = 0;
+
+      for (; j + step <= width; j += step)
+      {
+         sum0 = DoubleVector.fromArray(SPECIES, x, xOffset + j).fma(
+               DoubleVector.fromArray(SPECIES, y, yOffset + j), sum0);
+         sum1 = DoubleVector.fromArray(SPECIES, x, xOffset + j + LANES).fma(
+               DoubleVector.fromArray(SPECIES, y, yOffset + j + LANES), sum1);
+         sum2 = DoubleVector.fromArray(SPECIES, x, xOffset + j + 2 * LANES).fma(
+               DoubleVector.fromArray(SPECIES, y, yOffset + j + 2 * LANES), sum2);
+         sum3 = DoubleVector.fromArray(SPECIES, x, xOffset + j + 3 * LANES).fma(
+               DoubleVector.fromArray(SPECIES, y, yOffset + j + 3 * LANES), sum3);
+      }
+      for (; j + LANES <= width; j += LANES)
+      {
+         sum0 = DoubleVector.fromArray(SPECIES, x, xOffset + j).fma(
+               DoubleVector.fromArray(SPECIES, y, yOffset + j), sum0);
+      }
+
+      double sum = sum0.add(sum1).add(sum2.add(sum3)).reduceLanes(VectorOperators.ADD);
+      for (; j < width; j++)                                                  //remaining values of the row
+      {
+         sum += x[xOffset + j] * y[yOffset + j];
+      }
+      return sum;
+   } //public double dot(double[] x, int xOffset, double[] y, int yOffset, int width)
+
+   public void addScaled(double[] y, int yOffset, double[] x, int xOffset, double scale, int width)
+   {
+      int j = 0;
+      for (; j < SPECIES.loopBound(width); j += LANES)
+      {
+         DoubleVector.fromArray(SPECIES, x, xOffset + j).mul(scale)
+               .add(DoubleVector.fromArray(SPECIES, y, yOffset + j)).intoArray(y, yOffset + j);
+      }
+      for (; j < width; j++)
+      {
+         y[yOffset + j] += scale * x[xOffset + j];
+      }
+   } //public void addScaled(...)
+
+   public void addProduct(double[] y, int yOffset, double[] x, double a, double b, int width)
+   {
+      int j = 0;
+      for (; j < SPECIES.loopBound(width); j += LANES)
+      {
+         DoubleVector.fromArray(SPECIES, x, j).mul(a).mul(b)
+               .add(DoubleVector.fromArray(SPECIES, y, yOffset + j)).intoArray(y, yOffset + j);
+      }
+      for (; j < width; j++)
+      {
+         y[yOffset + j] += a * x[j] * b;
+      }
+   } //public void addProduct(...)
+
+   public String getName()
+   {
+      return NAME;
+   }
+} //public class VectorKernels